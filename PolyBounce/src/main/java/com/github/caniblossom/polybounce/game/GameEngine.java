@@ -46,18 +46,15 @@ import org.lwjgl.input.Keyboard;
  * @author Jani Salo
  */
 public class GameEngine {
-    private static final float TIME_STEP = 1.0f / 60.0f;
+    private static final float TIME_STEP = 1.0f / 30.0f;
     private static final float INERTIA = 0.995f;
     
     private static final Vector2 GRAVITY = new Vector2(0.0f, -0.5f);
 
-    private static final float PLAYER_ACCELERATION = 4.0f;    
-    private static final float PLAYER_X_THRUST = 0.1f;    
-    private static final float PLAYER_Y_THRUST = 0.2f;    
-    
     private static final float LEVEL_PADDING = 8.0f;
     
     private final PhysicsEngine physicsEngine;
+    private final PlayerControl playerControl;
     private final RenderingEngine renderingEngine;
     
     private Player player;
@@ -134,19 +131,7 @@ public class GameEngine {
     
     // Reads controls input and acts on it.
     private void handleControlInput(final float dt) {
-        if (Keyboard.isKeyDown(Keyboard.KEY_LEFT)) {
-            player.accelerate(PLAYER_ACCELERATION, dt);
-            player.thrust(new Vector2(-PLAYER_X_THRUST, 0.0f), dt);
-        } else if (Keyboard.isKeyDown(Keyboard.KEY_RIGHT)) {
-            player.accelerate(-PLAYER_ACCELERATION, dt);
-            player.thrust(new Vector2(PLAYER_X_THRUST, 0.0f), dt);
-        }
-        
-        if (Keyboard.isKeyDown(Keyboard.KEY_UP)) {
-            player.thrust(new Vector2(0.0f, PLAYER_Y_THRUST), dt);
-        } else if (Keyboard.isKeyDown(Keyboard.KEY_DOWN)) {
-            player.thrust(new Vector2(0.0f, -PLAYER_Y_THRUST), dt);
-        }
+        playerControl.steer(player, Keyboard.isKeyDown(Keyboard.KEY_LEFT), Keyboard.isKeyDown(Keyboard.KEY_RIGHT), Keyboard.isKeyDown(Keyboard.KEY_UP), Keyboard.isKeyDown(Keyboard.KEY_DOWN), dt);
     }
 
     // Reads menu input and acts on it.
@@ -229,6 +214,7 @@ public class GameEngine {
      */
     public GameEngine(final int viewWidth, final int viewHeight) {
         physicsEngine = new PhysicsEngine(TIME_STEP, INERTIA, GRAVITY, new BoundingBox(new Vector2(0.0f, 0.0f), 1.0f, 1.0f));
+        playerControl = new PlayerControl(physicsEngine);
         renderingEngine = new RenderingEngine(viewWidth, viewHeight);
         
         createNewLevel();    
@@ -280,4 +266,11 @@ public class GameEngine {
     public void deleteGLResources() {
         renderingEngine.deleteGLResources();
     }
+    
+    /**
+     * Stops the worker threads of the physics engine. The engine mustn't be updated afterwards.
+     */
+    public void dispose() {
+        physicsEngine.dispose();
+    }
 }
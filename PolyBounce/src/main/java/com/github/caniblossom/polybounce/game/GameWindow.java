@@ -99,6 +99,7 @@ public class GameWindow {
         }
         
         gameEngine.deleteGLResources();
+        gameEngine.dispose();
         Display.destroy();
     }
 }
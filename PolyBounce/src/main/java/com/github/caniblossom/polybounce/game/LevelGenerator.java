@@ -35,6 +35,7 @@ import com.github.caniblossom.polybounce.game.objects.Arc;
 import com.github.caniblossom.polybounce.game.objects.Goal;
 import com.github.caniblossom.polybounce.game.objects.Ramp;
 import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.body.ShapeRegistry;
 
 // TODO Clean up.
 
@@ -43,15 +44,27 @@ import com.github.caniblossom.polybounce.math.Vector2;
  * @author Jani Salo
  */
 public class LevelGenerator {
+    private final ShapeRegistry shapeRegistry;
+    
     /**
-     * Generates a new level.
+     * Constructs a new level generator.
+     */
+    public LevelGenerator() {
+        this.shapeRegistry = new ShapeRegistry();
+    }
+    
+    /**
+     * Generates a new level. Equal shapes are shared within the level, but not
+     * with earlier levels, as the random sizes would rarely match anyway.
      * @param length length of the level in structures
      * @return new level
      */
     public Level generate(int length) {
         final Level level = new Level();
+        
+        shapeRegistry.clear();
 
-        Structure last = new Arc(4.0f, 4.0f, new Vector2(0.0f, 0.0f), 2);
+        Structure last = new Arc(4.0f, 4.0f, new Vector2(0.0f, 0.0f), 2, shapeRegistry);
 
         level.addStructure(last);
         level.setPlayerSpawnPosition(last.getTopSpawnPosition());
@@ -65,16 +78,16 @@ public class LevelGenerator {
             final float h = (float) Math.random() * 4.0f;
             
             if (r < 0.4f) {
-                last = new Arc(w, h, new Vector2(lastMax.getX() + 1.0f, 0.0f), 1 + (int) (Math.random() * 2.999));
+                last = new Arc(w, h, new Vector2(lastMax.getX() + 1.0f, 0.0f), 1 + (int) (Math.random() * 2.999), shapeRegistry);
                 level.addStructure(last);
             } else {
-                last = new Ramp(w, h, new Vector2(lastMax.getX() + 1.0f, lastMax.getY() - 1.0f));
+                last = new Ramp(w, h, new Vector2(lastMax.getX() + 1.0f, lastMax.getY() - 1.0f), shapeRegistry);
                 level.addStructure(last);                
             }
             
         }
 
-        level.setGoal(new Goal(3.0f, new Vector2(last.getBoundingBox().getMaximum().getX() + 4.0f, 4.0f)));
+        level.setGoal(new Goal(3.0f, new Vector2(last.getBoundingBox().getMaximum().getX() + 4.0f, 4.0f), shapeRegistry));
         
         return level;
     }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.game;
+
+import com.github.caniblossom.polybounce.game.objects.Player;
+import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.PhysicsEngine;
+
+/**
+ * Class for steering the player, kept apart from the keyboard so that it can be tested.
+ * @author Jani Salo
+ */
+public class PlayerControl {
+    private static final float PLAYER_ACCELERATION = 4.0f;    
+    private static final float PLAYER_X_THRUST = 0.1f;    
+    private static final float PLAYER_Y_THRUST = 0.2f;    
+    
+    private final PhysicsEngine physicsEngine;
+    
+    /**
+     * Creates a new player control.
+     * @param physicsEngine physics engine the player is simulated in
+     */
+    public PlayerControl(final PhysicsEngine physicsEngine) {
+        this.physicsEngine = physicsEngine;
+    }
+    
+    /**
+     * Steers the player, waking it first if any direction is held so that a sleeping player responds.
+     * @param player player to steer
+     * @param left true if left is held
+     * @param right true if right is held
+     * @param up true if up is held
+     * @param down true if down is held
+     * @param dt change in time
+     */
+    public void steer(final Player player, final boolean left, final boolean right, final boolean up, final boolean down, final float dt) {
+        if (left || right || up || down) {
+            physicsEngine.wake(player.getBody());
+        }
+        
+        if (left) {
+            player.accelerate(PLAYER_ACCELERATION, dt);
+            player.thrust(new Vector2(-PLAYER_X_THRUST, 0.0f), dt);
+        } else if (right) {
+            player.accelerate(-PLAYER_ACCELERATION, dt);
+            player.thrust(new Vector2(PLAYER_X_THRUST, 0.0f), dt);
+        }
+        
+        if (up) {
+            player.thrust(new Vector2(0.0f, PLAYER_Y_THRUST), dt);
+        } else if (down) {
+            player.thrust(new Vector2(0.0f, -PLAYER_Y_THRUST), dt);
+        }
+    }
+}
@@ -29,10 +29,12 @@
  */
 package com.github.caniblossom.polybounce.game.objects;
 
+import com.github.caniblossom.polybounce.math.AABB;
 import com.github.caniblossom.polybounce.math.BoundingBox;
-import com.github.caniblossom.polybounce.math.ConvexPolygon;
 import com.github.caniblossom.polybounce.math.Vector2;
 import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.Shape;
+import com.github.caniblossom.polybounce.physics.body.ShapeRegistry;
 import com.github.caniblossom.polybounce.physics.body.StaticBody;
 import java.util.ArrayList;
 
@@ -55,21 +57,21 @@ public class Arc extends Structure {
     private final BoundingBox boundingBox;
 
     // Adds the base blocks for the arc.
-    private void addBase(final float width, final Vector2 position) {
-        final ConvexPolygon base = getBuilder().createBox(new Vector2(0.001f, 0.001f), new Vector2(0.999f, 0.999f));
+    private void addBase(final float width, final Vector2 position, final ShapeRegistry shapeRegistry) {
+        final Shape base = shapeRegistry.getShape(getBuilder().createBox(new Vector2(0.001f, 0.001f), new Vector2(0.999f, 0.999f)), MASS_B);
 
-        staticBodyList.add(new StaticBody(base, MASS_B, BOUNCINESS_B, STATIC_FRICTION_B, DYNAMIC_FRICTION_B, position.sum(new Vector2(0.0f, 0.0f)), 0.0f));
-        staticBodyList.add(new StaticBody(base, MASS_B, BOUNCINESS_B, STATIC_FRICTION_B, DYNAMIC_FRICTION_B, position.sum(new Vector2(3.0f + width, 0.0f)), 0.0f));        
+        staticBodyList.add(new StaticBody(base, BOUNCINESS_B, STATIC_FRICTION_B, DYNAMIC_FRICTION_B, position.sum(new Vector2(0.0f, 0.0f)), 0.0f));
+        staticBodyList.add(new StaticBody(base, BOUNCINESS_B, STATIC_FRICTION_B, DYNAMIC_FRICTION_B, position.sum(new Vector2(3.0f + width, 0.0f)), 0.0f));        
     }
     
     // Adds a new level to the arc.
-    private void addLayer(final float width, final float height, final Vector2 position) {
-        final ConvexPolygon hBar = getBuilder().createBox(new Vector2(0.001f, 0.001f), new Vector2(3.999f + width, 0.499f));
-        final ConvexPolygon vBar = getBuilder().createBox(new Vector2(0.001f, 0.001f), new Vector2(0.499f, 0.999f + height));
+    private void addLayer(final float width, final float height, final Vector2 position, final ShapeRegistry shapeRegistry) {
+        final Shape hBar = shapeRegistry.getShape(getBuilder().createBox(new Vector2(0.001f, 0.001f), new Vector2(3.999f + width, 0.499f)), MASS_A);
+        final Shape vBar = shapeRegistry.getShape(getBuilder().createBox(new Vector2(0.001f, 0.001f), new Vector2(0.499f, 0.999f + height)), MASS_A);
         
-        rigidBodyList.add(new RigidBody(vBar, MASS_A, BOUNCINESS_A, STATIC_FRICTION_A, DYNAMIC_FRICTION_A, position.sum(new Vector2(0.25f, 1.0f)), 0.0f, new Vector2(0.0f, 0.0f), 0.0f));
-        rigidBodyList.add(new RigidBody(vBar, MASS_A, BOUNCINESS_A, STATIC_FRICTION_A, DYNAMIC_FRICTION_A, position.sum(new Vector2(3.25f + width, 1.0f)), 0.0f, new Vector2(0.0f, 0.0f), 0.0f));
-        rigidBodyList.add(new RigidBody(hBar, MASS_A, BOUNCINESS_A, STATIC_FRICTION_A, DYNAMIC_FRICTION_A, position.sum(new Vector2(0.00f, 2.0f + height)), 0.0f, new Vector2(0.0f, 0.0f), 0.0f));        
+        rigidBodyList.add(new RigidBody(vBar, BOUNCINESS_A, STATIC_FRICTION_A, DYNAMIC_FRICTION_A, position.sum(new Vector2(0.25f, 1.0f)), 0.0f, new Vector2(0.0f, 0.0f), 0.0f));
+        rigidBodyList.add(new RigidBody(vBar, BOUNCINESS_A, STATIC_FRICTION_A, DYNAMIC_FRICTION_A, position.sum(new Vector2(3.25f + width, 1.0f)), 0.0f, new Vector2(0.0f, 0.0f), 0.0f));
+        rigidBodyList.add(new RigidBody(hBar, BOUNCINESS_A, STATIC_FRICTION_A, DYNAMIC_FRICTION_A, position.sum(new Vector2(0.00f, 2.0f + height)), 0.0f, new Vector2(0.0f, 0.0f), 0.0f));        
     }
     
     /**
@@ -80,19 +82,31 @@ public class Arc extends Structure {
      * @param layers number of layers on the arc
      */
     public Arc(final float width, final float height, final Vector2 position, final int layers) {
+        this(width, height, position, layers, new ShapeRegistry());
+    }
+    
+    /**
+     * Constructs a new arc at given position, sharing equal shapes with other structures.
+     * @param width width modifier for the arc
+     * @param height height modifier for the arc
+     * @param position lower left corner of the arc
+     * @param layers number of layers on the arc
+     * @param shapeRegistry registry to take the shapes of the bodies from
+     */
+    public Arc(final float width, final float height, final Vector2 position, final int layers, final ShapeRegistry shapeRegistry) {
         super();
                 
-        addBase(width, position);
+        addBase(width, position, shapeRegistry);
         for (int i = 0; i < layers; i++) {
-            addLayer(width, height, position.sum(new Vector2(0.0f, (float) i * (1.5f + height))));
+            addLayer(width, height, position.sum(new Vector2(0.0f, (float) i * (1.5f + height))), shapeRegistry);
         }
 
-        BoundingBox box = new BoundingBox(position, 0.0f, 0.0f);
-        box = combineBoundingBoxes(staticBodyList, box);
-        box = combineBoundingBoxes(rigidBodyList, box);
+        final AABB bounds = new AABB(position.getX(), position.getY(), position.getX(), position.getY());
+        combineBoundingBoxes(staticBodyList, bounds);
+        combineBoundingBoxes(rigidBodyList, bounds);
 
         topSpawnPosition = new Vector2(2.0f + 0.5f * width, 3.0f + (height + 1.5f) * (float) layers).sum(position);
-        boundingBox = box;
+        boundingBox = bounds.toBoundingBox();
     }
     
     /**
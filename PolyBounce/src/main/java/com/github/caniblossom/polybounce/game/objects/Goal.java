@@ -29,9 +29,12 @@
  */
 package com.github.caniblossom.polybounce.game.objects;
 
+import com.github.caniblossom.polybounce.math.AABB;
 import com.github.caniblossom.polybounce.math.BoundingBox;
 import com.github.caniblossom.polybounce.math.ConvexPolygon;
 import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.body.Shape;
+import com.github.caniblossom.polybounce.physics.body.ShapeRegistry;
 import com.github.caniblossom.polybounce.physics.body.StaticBody;
 import java.util.ArrayList;
 
@@ -49,7 +52,7 @@ public class Goal extends Structure {
     private final BoundingBox boundingBox;
     
     // Adds a new tooth to the goal.
-    private void addTooth(final float outRadius, final float angle, final float ratio, final Vector2 position) {
+    private void addTooth(final float outRadius, final float angle, final float ratio, final Vector2 position, final ShapeRegistry shapeRegistry) {
         final ArrayList<Vector2> vertexList = new ArrayList();
        
         final float goldenRatio = 1.6180339887498948482045868343656f;
@@ -63,8 +66,8 @@ public class Goal extends Structure {
         vertexList.add((new Vector2((float) Math.cos(b), (float) Math.sin(b))).scale(outRadius));
         vertexList.add((new Vector2((float) Math.cos(c), (float) Math.sin(c))).scale(inRadius));
         
-        final ConvexPolygon hull = ConvexPolygon.constructNew(vertexList);
-        staticBodyList.add(new StaticBody(hull, MASS, BOUNCINESS, STATIC_FRICTION, DYNAMIC_FRICTION, position, 0.0f));        
+        final Shape shape = shapeRegistry.getShape(ConvexPolygon.constructNew(vertexList), MASS);
+        staticBodyList.add(new StaticBody(shape, BOUNCINESS, STATIC_FRICTION, DYNAMIC_FRICTION, position, 0.0f));        
     }
     
     /**
@@ -73,18 +76,28 @@ public class Goal extends Structure {
      * @param position center of the goal
      */
     public Goal(final float outRadius, final Vector2 position) {
+        this(outRadius, position, new ShapeRegistry());
+    }
+    
+    /**
+     * Constructs a new goal at given position, sharing equal shapes with other structures.
+     * @param outRadius outer radius of the goal
+     * @param position center of the goal
+     * @param shapeRegistry registry to take the shapes of the bodies from
+     */
+    public Goal(final float outRadius, final Vector2 position, final ShapeRegistry shapeRegistry) {
         super();
                 
         for (int i = 0; i < 5; i++) {
             final float r = 2.0f * (float) Math.PI * (float) i / 5.0f;
-            addTooth(outRadius, r, 1.0f / 5.0f, position);
+            addTooth(outRadius, r, 1.0f / 5.0f, position, shapeRegistry);
         }
 
-        BoundingBox box = new BoundingBox(position, 0.0f, 0.0f);
-        box = combineBoundingBoxes(staticBodyList, box);
+        final AABB bounds = new AABB(position.getX(), position.getY(), position.getX(), position.getY());
+        combineBoundingBoxes(staticBodyList, bounds);
 
         topSpawnPosition = new Vector2(0.0f, outRadius + 2.0f).sum(position);
-        boundingBox = box;
+        boundingBox = bounds.toBoundingBox();
     }
     
     /**
@@ -29,10 +29,13 @@
  */
 package com.github.caniblossom.polybounce.game.objects;
 
+import com.github.caniblossom.polybounce.math.AABB;
 import com.github.caniblossom.polybounce.math.BoundingBox;
 import com.github.caniblossom.polybounce.math.ConvexPolygon;
 import com.github.caniblossom.polybounce.math.Vector2;
 import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.Shape;
+import com.github.caniblossom.polybounce.physics.body.ShapeRegistry;
 import com.github.caniblossom.polybounce.physics.body.StaticBody;
 import java.util.ArrayList;
 
@@ -55,21 +58,21 @@ public class Ramp extends Structure {
     private final BoundingBox boundingBox;
             
     // Adds the base block for the ramp.
-    private void addBase(final float width, final Vector2 position) {
-        final ConvexPolygon base = getBuilder().createBox(new Vector2(1.001f, 0.001f), new Vector2(1.999f + width, 0.999f));
-        staticBodyList.add(new StaticBody(base, MASS_B, BOUNCINESS_B, STATIC_FRICTION_B, DYNAMIC_FRICTION_B, position, 0.0f));        
+    private void addBase(final float width, final Vector2 position, final ShapeRegistry shapeRegistry) {
+        final Shape base = shapeRegistry.getShape(getBuilder().createBox(new Vector2(1.001f, 0.001f), new Vector2(1.999f + width, 0.999f)), MASS_B);
+        staticBodyList.add(new StaticBody(base, BOUNCINESS_B, STATIC_FRICTION_B, DYNAMIC_FRICTION_B, position, 0.0f));        
     }
     
     // Adds the ramp itself.
-    private void addRamp(final float width, final float height, final Vector2 offset) {
+    private void addRamp(final float width, final float height, final Vector2 offset, final ShapeRegistry shapeRegistry) {
         final ArrayList<Vector2> vertexList = new ArrayList();
         
         vertexList.add(new Vector2(1.500f + 0.5f * width, 0.001f));
         vertexList.add(new Vector2(2.999f + width, 0.999f + height));
         vertexList.add(new Vector2(0.001f, 0.999f + height));
 
-        final ConvexPolygon hull = ConvexPolygon.constructNew(vertexList);
-        rigidBodyList.add(new RigidBody(hull, MASS_A, BOUNCINESS_A, STATIC_FRICTION_A, DYNAMIC_FRICTION_A, offset, 0.0f, new Vector2(0.0f, 0.0f), 0.001f));
+        final Shape shape = shapeRegistry.getShape(ConvexPolygon.constructNew(vertexList), MASS_A);
+        rigidBodyList.add(new RigidBody(shape, BOUNCINESS_A, STATIC_FRICTION_A, DYNAMIC_FRICTION_A, offset, 0.0f, new Vector2(0.0f, 0.0f), 0.001f));
     }
     
     /**
@@ -79,17 +82,28 @@ public class Ramp extends Structure {
      * @param position lower left corner of the arc
      */
     public Ramp(final float width, final float height, final Vector2 position) {
+        this(width, height, position, new ShapeRegistry());
+    }
+    
+    /**
+     * Constructs a new ramp at given position, sharing equal shapes with other structures.
+     * @param width width modifier for the ramp
+     * @param height height modifier for the ramp
+     * @param position lower left corner of the ramp
+     * @param shapeRegistry registry to take the shapes of the bodies from
+     */
+    public Ramp(final float width, final float height, final Vector2 position, final ShapeRegistry shapeRegistry) {
         super();
 
-        addBase(width, position);
-        addRamp(width, height, position.sum(new Vector2(0.0f, 1.0f)));
+        addBase(width, position, shapeRegistry);
+        addRamp(width, height, position.sum(new Vector2(0.0f, 1.0f)), shapeRegistry);
 
-        BoundingBox box = new BoundingBox(position, 0.0f, 0.0f);
-        box = combineBoundingBoxes(staticBodyList, box);
-        box = combineBoundingBoxes(rigidBodyList, box);
+        final AABB bounds = new AABB(position.getX(), position.getY(), position.getX(), position.getY());
+        combineBoundingBoxes(staticBodyList, bounds);
+        combineBoundingBoxes(rigidBodyList, bounds);
 
         topSpawnPosition = new Vector2(1.500f + 0.5f * width, 0.999f + height + 2.0f).sum(position);
-        boundingBox = box;
+        boundingBox = bounds.toBoundingBox();
     }
 
     /**
@@ -29,11 +29,14 @@
  */
 package com.github.caniblossom.polybounce.game.objects;
 
+import com.github.caniblossom.polybounce.math.AABB;
 import com.github.caniblossom.polybounce.math.BoundingBox;
+import com.github.caniblossom.polybounce.math.ConvexPolygon;
 import com.github.caniblossom.polybounce.math.PolygonBuilder;
 import com.github.caniblossom.polybounce.math.Vector2;
 import com.github.caniblossom.polybounce.physics.body.Body;
 import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.ShapeRegistry;
 import com.github.caniblossom.polybounce.physics.body.StaticBody;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -57,18 +60,34 @@ public abstract class Structure {
     }
     
     /**
-     * Computes a bounding box from a list of boxes.
+     * Grows a box to contain the bounding boxes of a list of bodies.
      * @param <T> type extending Body
      * @param list list of Bodies whose bounding boxes to combine
-     * @param boundingBox initial bounding box
-     * @return combined bounding box
+     * @param bounds box to grow
      */
-    protected <T extends Body> BoundingBox combineBoundingBoxes(List<T> list, BoundingBox boundingBox) {
+    protected <T extends Body> void combineBoundingBoxes(List<T> list, AABB bounds) {
+        final AABB bodyBounds = new AABB();
+        
         for (T body : list) {
-            boundingBox = body.getHull().getBoundingBox().combine(boundingBox);
+            body.getBounds(bodyBounds);
+            bounds.union(bodyBounds);
+        }
+    }
+    
+    /**
+     * Adds a concave outline as a set of static bodies, one per convex piece.
+     * @param outline vertices of a simple polygon in body space
+     * @param mass mass of each piece
+     * @param bounciness bounciness of the bodies
+     * @param staticFriction static friction of the bodies
+     * @param dynamicFriction dynamic friction of the bodies
+     * @param position position of the outline in world space
+     * @param shapeRegistry registry to take the shapes of the pieces from
+     */
+    protected void addStaticOutline(final List<Vector2> outline, final float mass, final float bounciness, final float staticFriction, final float dynamicFriction, final Vector2 position, final ShapeRegistry shapeRegistry) {
+        for (ConvexPolygon piece : BUILDER.createConvexDecomposition(outline)) {
+            staticBodyList.add(new StaticBody(shapeRegistry.getShape(piece, mass), bounciness, staticFriction, dynamicFriction, position, 0.0f));
         }
-        
-        return boundingBox;
     }
     
     /**
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+/**
+ * A mutable axis aligned bounding box stored as its minimum and maximum coordinates.
+ * Unlike {@link BoundingBox} it's meant to be reused, so every operation works in 
+ * place and none of them allocate. An empty box has its minimums above its maximums, 
+ * which makes it the identity of {@link #union(AABB)}.
+ * @author Jani Salo
+ */
+public class AABB {
+    private float xMin, yMin, xMax, yMax;
+    
+    /**
+     * Constructs a new empty box.
+     */
+    public AABB() {
+        setEmpty();
+    }
+    
+    /**
+     * Constructs a new box from its minimum and maximum coordinates.
+     * @param xMin minimum x coordinate
+     * @param yMin minimum y coordinate
+     * @param xMax maximum x coordinate
+     * @param yMax maximum y coordinate
+     */
+    public AABB(final float xMin, final float yMin, final float xMax, final float yMax) {
+        set(xMin, yMin, xMax, yMax);
+    }
+    
+    /**
+     * Copy constructor
+     * @param box box to copy
+     */
+    public AABB(final AABB box) {
+        set(box);
+    }
+    
+    /**
+     * Constructs a new box covering the same area as a bounding box.
+     * @param box bounding box to copy
+     */
+    public AABB(final BoundingBox box) {
+        set(box);
+    }
+    
+    /**
+     * @return minimum x coordinate
+     */
+    public float getXMin() {
+        return xMin;
+    }
+
+    /**
+     * @return minimum y coordinate
+     */
+    public float getYMin() {
+        return yMin;
+    }
+
+    /**
+     * @return maximum x coordinate
+     */
+    public float getXMax() {
+        return xMax;
+    }
+
+    /**
+     * @return maximum y coordinate
+     */
+    public float getYMax() {
+        return yMax;
+    }
+    
+    /**
+     * @return width of the box, zero if the box is empty
+     */
+    public float getWidth() {
+        return Math.max(0.0f, xMax - xMin);
+    }
+
+    /**
+     * @return height of the box, zero if the box is empty
+     */
+    public float getHeight() {
+        return Math.max(0.0f, yMax - yMin);
+    }
+    
+    /**
+     * @return perimeter of the box, zero if the box is empty
+     */
+    public float getPerimeter() {
+        return 2.0f * (getWidth() + getHeight());
+    }
+    
+    /**
+     * @return true if and only if the box contains no points at all
+     */
+    public boolean isEmpty() {
+        return xMin > xMax || yMin > yMax;
+    }
+    
+    /**
+     * Makes this box empty.
+     */
+    public void setEmpty() {
+        xMin =  Float.MAX_VALUE;
+        yMin =  Float.MAX_VALUE;
+        xMax = -Float.MAX_VALUE;
+        yMax = -Float.MAX_VALUE;
+    }
+    
+    /**
+     * @param xMin minimum x coordinate
+     * @param yMin minimum y coordinate
+     * @param xMax maximum x coordinate
+     * @param yMax maximum y coordinate
+     */
+    public void set(final float xMin, final float yMin, final float xMax, final float yMax) {
+        this.xMin = xMin;
+        this.yMin = yMin;
+        this.xMax = xMax;
+        this.yMax = yMax;
+    }
+    
+    /**
+     * @param box box to copy
+     */
+    public void set(final AABB box) {
+        set(box.xMin, box.yMin, box.xMax, box.yMax);
+    }
+    
+    /**
+     * @param box bounding box to copy
+     */
+    public void set(final BoundingBox box) {
+        final float x = box.getPosition().getX();
+        final float y = box.getPosition().getY();
+        set(x, y, x + box.getWidth(), y + box.getHeight());
+    }
+    
+    /**
+     * Grows this box to contain a point.
+     * @param x x coordinate of the point
+     * @param y y coordinate of the point
+     */
+    public void include(final float x, final float y) {
+        xMin = Math.min(xMin, x);
+        yMin = Math.min(yMin, y);
+        xMax = Math.max(xMax, x);
+        yMax = Math.max(yMax, y);
+    }
+    
+    /**
+     * Grows this box to the smallest box containing both itself and another box.
+     * @param box box to combine with
+     */
+    public void union(final AABB box) {
+        xMin = Math.min(xMin, box.xMin);
+        yMin = Math.min(yMin, box.yMin);
+        xMax = Math.max(xMax, box.xMax);
+        yMax = Math.max(yMax, box.yMax);
+    }
+    
+    /**
+     * Sets this box to the union of two boxes.
+     * @param a first box
+     * @param b second box
+     */
+    public void setToUnion(final AABB a, final AABB b) {
+        xMin = Math.min(a.xMin, b.xMin);
+        yMin = Math.min(a.yMin, b.yMin);
+        xMax = Math.max(a.xMax, b.xMax);
+        yMax = Math.max(a.yMax, b.yMax);
+    }
+    
+    /**
+     * Shrinks this box to the area it shares with another box. The result is empty 
+     * if the boxes don't overlap.
+     * @param box box to intersect with
+     */
+    public void intersect(final AABB box) {
+        xMin = Math.max(xMin, box.xMin);
+        yMin = Math.max(yMin, box.yMin);
+        xMax = Math.min(xMax, box.xMax);
+        yMax = Math.min(yMax, box.yMax);
+    }
+    
+    /**
+     * Grows the box by a margin on every side.
+     * @param margin margin to add, may be negative
+     */
+    public void expand(final float margin) {
+        xMin -= margin;
+        yMin -= margin;
+        xMax += margin;
+        yMax += margin;
+    }
+    
+    /**
+     * Grows the box to cover every translation of itself up to the given one.
+     * @param dx translation along the x-axis
+     * @param dy translation along the y-axis
+     */
+    public void sweep(final float dx, final float dy) {
+        xMin = Math.min(xMin, xMin + dx);
+        yMin = Math.min(yMin, yMin + dy);
+        xMax = Math.max(xMax, xMax + dx);
+        yMax = Math.max(yMax, yMax + dy);
+    }
+    
+    /**
+     * @param xMin minimum x coordinate of the other box
+     * @param yMin minimum y coordinate of the other box
+     * @param xMax maximum x coordinate of the other box
+     * @param yMax maximum y coordinate of the other box
+     * @return true if and only if the boxes overlap, touching boxes overlap
+     */
+    public boolean doesOverlap(final float xMin, final float yMin, final float xMax, final float yMax) {
+        return this.xMin <= xMax && xMin <= this.xMax && this.yMin <= yMax && yMin <= this.yMax;
+    }
+    
+    /**
+     * @param box another box
+     * @return true if and only if the boxes overlap, touching boxes overlap
+     */
+    public boolean doesOverlap(final AABB box) {
+        return doesOverlap(box.xMin, box.yMin, box.xMax, box.yMax);
+    }
+    
+    /**
+     * @param box another box
+     * @return true if and only if the other box lies completely inside this box
+     */
+    public boolean contains(final AABB box) {
+        return xMin <= box.xMin && yMin <= box.yMin && box.xMax <= xMax && box.yMax <= yMax;
+    }
+    
+    /**
+     * @return a new immutable bounding box covering the same area
+     */
+    public BoundingBox toBoundingBox() {
+        return new BoundingBox(new Vector2(xMin, yMin), getWidth(), getHeight());
+    }
+}
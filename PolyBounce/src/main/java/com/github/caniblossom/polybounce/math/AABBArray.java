@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+import java.util.Arrays;
+
+/**
+ * A growable array of axis aligned boxes packed into a single float array as 
+ * consecutive minimum and maximum coordinates. Testing one box against many of 
+ * them walks the array linearly without touching any other objects.
+ * @author Jani Salo
+ */
+public class AABBArray {
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private float[] data;
+    private int count;
+    
+    // Makes sure the array can hold given number of boxes.
+    private void reserve(final int boxCount) {
+        if (4 * boxCount > data.length) {
+            data = Arrays.copyOf(data, Math.max(4 * boxCount, 2 * data.length));
+        }
+    }
+    
+    /**
+     * Constructs a new empty array.
+     */
+    public AABBArray() {
+        this.data = new float[4 * INITIAL_CAPACITY];
+        this.count = 0;
+    }
+    
+    /**
+     * @return number of boxes in the array
+     */
+    public int size() {
+        return count;
+    }
+    
+    /**
+     * Removes all boxes.
+     */
+    public void clear() {
+        count = 0;
+    }
+    
+    /**
+     * Adds a box to the end of the array.
+     * @param box box to add
+     * @return index of the new box
+     */
+    public int add(final AABB box) {
+        reserve(count + 1);
+        set(count++, box);
+        return count - 1;
+    }
+    
+    /**
+     * Overwrites a box.
+     * @param index index of the box
+     * @param box new value for the box
+     */
+    public void set(final int index, final AABB box) {
+        assert index >= 0 && index < count;
+        
+        final int i = 4 * index;
+        data[i    ] = box.getXMin();
+        data[i + 1] = box.getYMin();
+        data[i + 2] = box.getXMax();
+        data[i + 3] = box.getYMax();
+    }
+    
+    /**
+     * Copies a box out of the array.
+     * @param index index of the box
+     * @param output box to copy to
+     */
+    public void get(final int index, final AABB output) {
+        assert index >= 0 && index < count;
+        
+        final int i = 4 * index;
+        output.set(data[i], data[i + 1], data[i + 2], data[i + 3]);
+    }
+    
+    /**
+     * @param index index of the box
+     * @return minimum x coordinate of the box
+     */
+    public float getXMin(final int index) {
+        return data[4 * index];
+    }
+
+    /**
+     * @param index index of the box
+     * @return maximum x coordinate of the box
+     */
+    public float getXMax(final int index) {
+        return data[4 * index + 2];
+    }
+    
+    /**
+     * @param index index of the box
+     * @param box box to test against
+     * @return true if and only if the boxes overlap, touching boxes overlap
+     */
+    public boolean doesOverlap(final int index, final AABB box) {
+        final int i = 4 * index;
+        return data[i] <= box.getXMax() && box.getXMin() <= data[i + 2] && data[i + 1] <= box.getYMax() && box.getYMin() <= data[i + 3];
+    }
+    
+    /**
+     * Tests a box against every box in the array.
+     * @param box box to test
+     * @param output array to write the indices of the overlapping boxes to, must have room for all boxes
+     * @return number of indices written
+     */
+    public int findOverlaps(final AABB box, final int[] output) {
+        assert output.length >= count;
+        
+        final float xMin = box.getXMin();
+        final float yMin = box.getYMin();
+        final float xMax = box.getXMax();
+        final float yMax = box.getYMax();
+        
+        int found = 0;
+        
+        for (int i = 0, j = 0; i < count; i++, j += 4) {
+            if (data[j] <= xMax && xMin <= data[j + 2] && data[j + 1] <= yMax && yMin <= data[j + 3]) {
+                output[found++] = i;
+            }
+        }
+        
+        return found;
+    }
+    
+    /**
+     * Tests a box against a subset of the boxes in the array.
+     * @param box box to test
+     * @param candidates indices of the boxes to test against
+     * @param candidateCount number of indices to read from the candidates
+     * @param output array to write the indices of the overlapping boxes to, may be the candidate array itself
+     * @return number of indices written
+     */
+    public int findOverlaps(final AABB box, final int[] candidates, final int candidateCount, final int[] output) {
+        final float xMin = box.getXMin();
+        final float yMin = box.getYMin();
+        final float xMax = box.getXMax();
+        final float yMax = box.getYMax();
+        
+        int found = 0;
+        
+        for (int i = 0; i < candidateCount; i++) {
+            final int j = 4 * candidates[i];
+            
+            if (data[j] <= xMax && xMin <= data[j + 2] && data[j + 1] <= yMax && yMin <= data[j + 3]) {
+                output[found++] = candidates[i];
+            }
+        }
+        
+        return found;
+    }
+}
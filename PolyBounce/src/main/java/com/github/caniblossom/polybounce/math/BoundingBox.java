@@ -97,11 +97,11 @@ public class BoundingBox {
      * @return true if an only if the this box shares area with the other.
      */
     public boolean doesIntersect(final BoundingBox box) {
-        if (position.getX() > box.getMaximum().getX() || getMaximum().getX() < box.getPosition().getX()) {
+        if (position.getX() > box.position.getX() + box.width || position.getX() + width < box.position.getX()) {
             return false;
         }
 
-        if (position.getY() > box.getMaximum().getY() || getMaximum().getY() < box.getPosition().getY()) {
+        if (position.getY() > box.position.getY() + box.height || position.getY() + height < box.position.getY()) {
             return false;
         }
 
@@ -116,8 +116,8 @@ public class BoundingBox {
     public BoundingBox combine(final BoundingBox box) {
         final Vector2 newPosition = new Vector2(Math.min(position.getX(), box.position.getX()), Math.min(position.getY(), box.position.getY()));
         
-        final float newWidth  = Math.max(getMaximum().getX(), box.getMaximum().getX()) - newPosition.getX();
-        final float newHeight = Math.max(getMaximum().getY(), box.getMaximum().getY()) - newPosition.getY();
+        final float newWidth  = Math.max(position.getX() + width, box.position.getX() + box.width) - newPosition.getX();
+        final float newHeight = Math.max(position.getY() + height, box.position.getY() + box.height) - newPosition.getY();
         
         return new BoundingBox(newPosition, newWidth, newHeight);
     }
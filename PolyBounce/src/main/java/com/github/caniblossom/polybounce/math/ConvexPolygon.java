@@ -36,119 +36,305 @@ import java.util.List;
 /**
  * A class for representing an immutable convex polygon. The winding rule is 
  * counter-clockwise and no consecutive segments can lie on the same line.
+ * <p>
+ * The vertices are stored as packed coordinates. Edge normals and the vertex
+ * and segment lists are only derived when first asked for.
+ * <p>
+ * The only exception to immutability are scratch polygons, which can be 
+ * overwritten with transformed copies of other polygons to avoid allocating 
+ * new ones. Scratch polygons are meant to be owned by a single thread.
  * @author Jani Salo
  */
 public class ConvexPolygon {
-    private final ArrayList<Vector2> vertexList;
-    private final ArrayList<Segment2> segmentList;
+    // Polygons with fewer vertices than this are searched linearly for extreme vertices.
+    private static final int LINEAR_SEARCH_LIMIT = 10;
     
-    private final Vector2 vertexAverage;   
-    private final BoundingBox boundingBox;
+    // Loops for projecting the vertices of smaller polygons.
+    private static final ProjectionKernel KERNEL = ProjectionKernel.getSelected();
+    
+    // Helper class, immutable so that it can be shared between threads without locking.
+    private static class EdgeNormals {
+        public final float[] values;
+        
+        public EdgeNormals(final float[] values) {
+            this.values = values;
+        }
+    }
+    
+    // Coordinates of the vertices as x0, y0, x1, y1 and so on.
+    private final float[] coordinates;
+    private final int vertexCount;
+    private final boolean scratch;
+    
+    private float averageX, averageY;
+    private final AABB bounds = new AABB();
+
+    // Derived lazily, a thread may end up computing these again but never sees them half done.
+    private Vector2 vertexAverage = null;   
+    private BoundingBox boundingBox = null;
+    private EdgeNormals edgeNormals = null;
+    private boolean normalsValid = true;
+    private List<Vector2> vertexView = null;
+    private List<Segment2> segmentView = null;
+    
+    // Packs the vertices of a list into coordinates.
+    private static float[] packCoordinates(final List<Vector2> vertexList) {
+        final float[] packed = new float[2 * vertexList.size()];
+        
+        for (int i = 0; i < vertexList.size(); i++) {
+            packed[2 * i] = vertexList.get(i).getX();
+            packed[2 * i + 1] = vertexList.get(i).getY();
+        }
+        
+        return packed;
+    }
     
     // Simply sums the vertices together and returns average.
-    private static Vector2 computeVertexAverage(final List<Vector2> vertexList) {
+    private static Vector2 computeVertexAverage(final float[] coordinates, final int vertexCount) {
         float x = 0.0f;
         float y = 0.0f;
         
-        for (Vector2 v : vertexList) {
-            x += v.getX();
-            y += v.getY();
+        for (int i = 0; i < vertexCount; i++) {
+            x += coordinates[2 * i];
+            y += coordinates[2 * i + 1];
         }
         
-        return new Vector2(x / (float) vertexList.size(), y / (float) vertexList.size());
+        return new Vector2(x / (float) vertexCount, y / (float) vertexCount);
     }
     
-    // Finds the bounding box for the polygon.
-    private static BoundingBox computeBoundingBox(final List<Vector2> vertexList) {
-        float xMin =  Float.MAX_VALUE;
-        float xMax = -Float.MAX_VALUE;
-        float yMin =  Float.MAX_VALUE;
-        float yMax = -Float.MAX_VALUE;
+    // Finds the bounds for the polygon.
+    private void computeBounds() {
+        KERNEL.findBounds(coordinates, vertexCount, bounds);
+    }
     
-        for (Vector2 v : vertexList) {
-            xMin = Math.min(xMin, v.getX());
-            xMax = Math.max(xMax, v.getX());
-            yMin = Math.min(yMin, v.getY());
-            yMax = Math.max(yMax, v.getY());
-        }
+    // Constructs a new convex polygon without any checks due to speed reasons, takes ownership of the coordinates.
+    private ConvexPolygon(final float[] coordinates, final Vector2 vertexAverage, final boolean scratch) {
+        this.coordinates = coordinates;
+        this.vertexCount = coordinates.length / 2;
+        this.scratch = scratch;
         
-        return new BoundingBox(new Vector2(xMin, yMin), xMax - xMin, yMax - yMin);
-    }
+        this.averageX = vertexAverage.getX();
+        this.averageY = vertexAverage.getY();
+        this.vertexAverage = vertexAverage;
+        
+        computeBounds();
+    }    
     
-    // Constructs a new convex polygon without any checks due to speed reasons.
-    private ConvexPolygon(final List<Vector2> vertexList, final Vector2 vertexAverage, final BoundingBox boundingBox) {
-        this.vertexList = new ArrayList();
-        this.vertexList.addAll(vertexList);
-        this.segmentList = new ArrayList();
+    // Writes a transformed copy of this polygon to the destination, which may be this polygon itself.
+    private void writeTransformed(final ConvexPolygon destination, final float ox, final float oy, final float c, final float s, final float tx, final float ty) {
+        KERNEL.transform(coordinates, destination.coordinates, vertexCount, ox, oy, c, s, tx, ty);
 
-        for (int i = 0; i < vertexList.size(); i++) {
-            Vector2 a = vertexList.get(i);
-            Vector2 b = vertexList.get((i + 1) % vertexList.size());
+        final float u = averageX - ox;
+        final float v = averageY - oy;
+        
+        destination.averageX = (ox + c * u - s * v) + tx;
+        destination.averageY = (oy + s * u + c * v) + ty;
+    }
+    
+    // Returns the right normals of the edges, computing them if needed.
+    private float[] getEdgeNormals() {
+        final EdgeNormals normals = edgeNormals;
+        
+        if (normals != null && normalsValid) {
+            return normals.values;
+        }
+        
+        // Scratch polygons reuse their normals, as they are only used by a single thread.
+        final float[] values = normals != null ? normals.values : new float[2 * vertexCount];
+        
+        // Computed the same way as the normals of segments to give identical results.
+        for (int i = 0; i < vertexCount; i++) {
+            final int j = i + 1 < vertexCount ? i + 1 : 0;
             
-            segmentList.add(new Segment2(a, b));
+            final float dx = coordinates[2 * j] - coordinates[2 * i];
+            final float dy = coordinates[2 * j + 1] - coordinates[2 * i + 1];
+            final float length = (float) Math.sqrt((double) (dx * dx + dy * dy));
+            
+            if (length != 0.0f) {
+                values[2 * i] = dy / length;
+                values[2 * i + 1] = -(dx / length);
+            } else {
+                values[2 * i] = 0.0f;
+                values[2 * i + 1] = 0.0f;
+            }
         }
         
-        this.vertexAverage = vertexAverage;
-        this.boundingBox = boundingBox;
-    }    
+        if (normals == null) {
+            edgeNormals = new EdgeNormals(values);
+        }
+        
+        normalsValid = true;
+        
+        return values;
+    }
     
-    // Checks that the polygon is wound counter-clockwise. 
-    private boolean isWoundCounterClockwise() {
-        for (int i = 0; i < segmentList.size(); i++) {
-            Segment2 a = segmentList.get(i);
-            Segment2 b = segmentList.get((i + 1) % segmentList.size());
+    // Checks in linear time that the polygon is convex and wound counter-clockwise. Every
+    // corner must turn strictly left, and the edges must go around only once, which is the
+    // case when the sign of the x component of the edges changes exactly twice.
+    private boolean isConvexAndCounterClockwise() {
+        if (vertexCount < 3) {
+            return false;
+        }
+        
+        int signChangeCount = 0;
+        float previousSign = 0.0f;
+        float firstSign = 0.0f;
+        
+        for (int i = 0; i < vertexCount; i++) {
+            final int j = (i + 1) % vertexCount;
+            final int k = (i + 2) % vertexCount;
             
-            final float sinAngle = a.getRightNormal().dot(b.getNormal());
+            final float ax = coordinates[2 * j] - coordinates[2 * i];
+            final float ay = coordinates[2 * j + 1] - coordinates[2 * i + 1];
+            final float bx = coordinates[2 * k] - coordinates[2 * j];
+            final float by = coordinates[2 * k + 1] - coordinates[2 * j + 1];
             
-            if (sinAngle >= 0.0f) {
+            if (ax * by - ay * bx <= 0.0f) {
                 return false;
             }
+            
+            final float sign = Math.signum(ax);
+            
+            if (sign != 0.0f) {
+                if (firstSign == 0.0f) {
+                    firstSign = sign;
+                } else if (sign != previousSign) {
+                    signChangeCount++;
+                }
+                
+                previousSign = sign;
+            }
         }
         
-        return true;
+        // Account for the change between the last and the first edge.
+        if (previousSign != firstSign) {
+            signChangeCount++;
+        }
+        
+        return signChangeCount == 2;
     }
-
-    // Checks that the polygon doesn't self intersect in a bad manner.
-    private boolean doesNotSelfIntersect() {
-        for (int a = 1; a < segmentList.size(); a++) {
-            for (int b = 0; b < a; b++) {
-                if (a - b == 1 || b - a + segmentList.size() == 1) {
-                    continue;
+    
+    // Returns twice the signed area of triangle abc, positive if it turns left at b.
+    private static float cross(final float ax, final float ay, final float bx, final float by, final float cx, final float cy) {
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+    
+    // Returns the projection of a vertex on an axis.
+    private float project(final int index, final float nx, final float ny) {
+        return nx * coordinates[2 * index] + ny * coordinates[2 * index + 1];
+    }
+    
+    // Returns the index of the vertex with the largest projection on an axis by a linear scan.
+    private int findExtremeIndexLinear(final float nx, final float ny) {
+        return KERNEL.findExtremeIndex(coordinates, vertexCount, nx, ny);
+    }
+    
+    // Returns the index of the vertex with the largest projection on an axis. As the edges turn
+    // monotonically, the range [a, b] holding the extreme vertex can be halved on each step 
+    // by comparing whether the edges at both ends of it go up or down along the axis.
+    private int findExtremeIndex(final float nx, final float ny) {
+        if (vertexCount < LINEAR_SEARCH_LIMIT) {
+            return findExtremeIndexLinear(nx, ny);
+        }
+        
+        int a = 0;
+        int b = vertexCount;
+        float upA = project(1, nx, ny) - project(0, nx, ny);
+        
+        if (upA <= 0.0f && !(project(vertexCount - 1, nx, ny) > project(0, nx, ny))) {
+            return 0;
+        }
+        
+        while (b > a + 1) {
+            final int c = (a + b) / 2;
+            final float upC = project(c + 1 < vertexCount ? c + 1 : 0, nx, ny) - project(c, nx, ny);
+            
+            if (upC <= 0.0f && !(project(c - 1, nx, ny) > project(c, nx, ny))) {
+                return c;
+            }
+            
+            if (upA > 0.0f) {
+                if (upC <= 0.0f || project(a, nx, ny) > project(c, nx, ny)) {
+                    b = c;
+                } else {
+                    a = c;
+                    upA = upC;
                 }
-                
-                Segment2 segA = segmentList.get(a);
-                Segment2 segB = segmentList.get(b);
-                
-                final Segment2Intersection i = segA.intersect(segB);
-                if (i.didIntersect() || segA.sharesVertexWith(segB)) {
-                    return false;
+            } else {
+                if (upC > 0.0f || !(project(a, nx, ny) < project(c, nx, ny))) {
+                    a = c;
+                    upA = upC;
+                } else {
+                    b = c;
                 }
             }
         }
         
-        return true;
+        // Only reached if rounding made the edges look non-monotonic.
+        return findExtremeIndexLinear(nx, ny);
     }
     
-    // Projects the polygon to an axis defined by a normal.
-    private Vector2 projectOnNormal(final Vector2 n) {
-        float min = Float.MAX_VALUE;
-        float max = -Float.MAX_VALUE;
+    // Returns the smallest projection of the polygon on an axis.
+    private float projectMinimum(final float nx, final float ny) {
+        if (vertexCount >= LINEAR_SEARCH_LIMIT) {
+            return project(findExtremeIndex(-nx, -ny), nx, ny);
+        }
+        
+        return KERNEL.projectMinimum(coordinates, vertexCount, nx, ny);
+    }
+    
+    // Returns the largest projection of the polygon on an axis.
+    private float projectMaximum(final float nx, final float ny) {
+        if (vertexCount >= LINEAR_SEARCH_LIMIT) {
+            return project(findExtremeIndex(nx, ny), nx, ny);
+        }
 
-        for (Vector2 v : vertexList) {
-            final float p = n.dot(v);
-            min = Math.min(min, p);
-            max = Math.max(max, p);
-        }            
-        
-        return new Vector2(min, max);
-    }
-    // Intersects this against another polygon on a list axes defined by right segment normals. 
-    private boolean doesIntersectOnAllAxes(final ConvexPolygon polygon, final ArrayList<Segment2> list) {
-        for (Segment2 s : list) {
-            final Vector2 a = projectOnNormal(s.getRightNormal());
-            final Vector2 b = polygon.projectOnNormal(s.getRightNormal());
+        return KERNEL.projectMaximum(coordinates, vertexCount, nx, ny);
+    }
+    
+    // Finds where a chain of edges from one vertex to another, along which the projections on 
+    // an axis grow, reaches a level. Returns the parameter of that point along the ray.
+    private float intersectChain(final int from, final int to, final float nx, final float ny, final float level, final float ox, final float oy, final float dx, final float dy) {
+        int lo = 0;
+        int hi = (to - from + vertexCount) % vertexCount;
+        
+        while (hi > lo + 1) {
+            final int mid = (lo + hi) / 2;
             
-            if (b.getX() > a.getY() || b.getY() < a.getX()) {
+            if (project((from + mid) % vertexCount, nx, ny) <= level) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        
+        final int i = (from + lo) % vertexCount;
+        final int j = (from + hi) % vertexCount;
+        
+        final float pi = project(i, nx, ny);
+        final float pj = project(j, nx, ny);
+        final float s = pj != pi ? (level - pi) / (pj - pi) : 0.0f;
+        
+        final float px = coordinates[2 * i] + s * (coordinates[2 * j] - coordinates[2 * i]);
+        final float py = coordinates[2 * i + 1] + s * (coordinates[2 * j + 1] - coordinates[2 * i + 1]);
+        
+        return ((px - ox) * dx + (py - oy) * dy) / (dx * dx + dy * dy);
+    }
+    
+    // Intersects this against another polygon on the axes defined by the right edge normals of a polygon. 
+    private boolean doesIntersectOnAllAxes(final ConvexPolygon polygon, final ConvexPolygon axisSource) {
+        final float[] normals = axisSource.getEdgeNormals();
+        final boolean small = vertexCount < LINEAR_SEARCH_LIMIT && polygon.vertexCount < LINEAR_SEARCH_LIMIT;
+        
+        for (int i = 0; i < axisSource.vertexCount; i++) {
+            final float nx = normals[2 * i];
+            final float ny = normals[2 * i + 1];
+            
+            if (small) {
+                if (!KERNEL.doOverlapOnAxis(coordinates, vertexCount, polygon.coordinates, polygon.vertexCount, nx, ny)) {
+                    return false;
+                }
+            } else if (polygon.projectMinimum(nx, ny) > projectMaximum(nx, ny) || polygon.projectMaximum(nx, ny) < projectMinimum(nx, ny)) {
                 return false;
             }           
         }
@@ -163,61 +349,220 @@ public class ConvexPolygon {
      * @throws IllegalArgumentException
      */
     public static ConvexPolygon constructNew(List<Vector2> vertexList) throws IllegalArgumentException {
-        final Vector2 average = computeVertexAverage(vertexList);
-        final BoundingBox box = computeBoundingBox(vertexList);
-        
-        final ConvexPolygon poly = new ConvexPolygon(vertexList, average, box);
+        final float[] packed = packCoordinates(vertexList);
+        final ConvexPolygon poly = new ConvexPolygon(packed, computeVertexAverage(packed, vertexList.size()), false);
             
-        if (!poly.isWoundCounterClockwise()) {
-            throw new IllegalArgumentException("The polygon isn't wound counter-clockwise.");
-        } else if (!poly.doesNotSelfIntersect()) {
-            throw new IllegalArgumentException("The polygon self intersects.");
+        if (!poly.isConvexAndCounterClockwise()) {
+            throw new IllegalArgumentException("The polygon isn't convex or isn't wound counter-clockwise.");
         }
 
         return poly;
     }
     
+    // Constructs a new convex polygon from coordinates without copying them, takes ownership of the coordinates.
+    // Built coordinates are still checked, as rounding may leave corners that don't turn left.
+    static ConvexPolygon constructOwned(final float[] packed) throws IllegalArgumentException {
+        final ConvexPolygon poly = new ConvexPolygon(packed, computeVertexAverage(packed, packed.length / 2), false);
+            
+        if (!poly.isConvexAndCounterClockwise()) {
+            throw new IllegalArgumentException("The polygon isn't convex or isn't wound counter-clockwise.");
+        }
+        
+        return poly;
+    }
+    
+    /**
+     * Constructs a new scratch polygon, to be overwritten by transforming other polygons into it.
+     * Until then it has all of its vertices at origin.
+     * @param vertexCount number of vertices
+     * @return newly constructed scratch polygon
+     */
+    public static ConvexPolygon constructScratch(final int vertexCount) {
+        return new ConvexPolygon(new float[2 * vertexCount], new Vector2(0.0f, 0.0f), true);
+    }
+    
     /**
-     * Copy constructor.
+     * Copy constructor. The copy is never a scratch polygon.
      * @param poly convex polygon to copy.
      */
     public ConvexPolygon(final ConvexPolygon poly) {
-        this.vertexList = new ArrayList();
-        this.segmentList = new ArrayList();
-
-        this.vertexList.addAll(poly.vertexList);
-        this.segmentList.addAll(poly.segmentList);
+        this.coordinates = poly.coordinates.clone();
+        this.vertexCount = poly.vertexCount;
+        this.scratch = false;
+        
+        this.averageX = poly.averageX;
+        this.averageY = poly.averageY;
         
-        this.vertexAverage = new Vector2(poly.vertexAverage);
-        this.boundingBox = new BoundingBox(poly.boundingBox);
+        computeBounds();
     }   
     
     /**
+     * @return true if and only if this is a scratch polygon
+     */
+    public boolean isScratch() {
+        return scratch;
+    }
+    
+    /**
+     * @return number of vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+    
+    /**
+     * @param index index of the vertex
+     * @return x coordinate of the vertex
+     */
+    public float getVertexX(final int index) {
+        return coordinates[2 * index];
+    }
+    
+    /**
+     * @param index index of the vertex
+     * @return y coordinate of the vertex
+     */
+    public float getVertexY(final int index) {
+        return coordinates[2 * index + 1];
+    }
+    
+    /**
+     * Returns a component of the right normal of an edge, which points outwards of the polygon.
+     * The edge goes from the vertex at the index to the next one.
+     * @param index index of the edge
+     * @return x component of the right normal of the edge
+     */
+    public float getRightNormalX(final int index) {
+        return getEdgeNormals()[2 * index];
+    }
+    
+    /**
+     * Returns a component of the right normal of an edge, which points outwards of the polygon.
+     * The edge goes from the vertex at the index to the next one.
+     * @param index index of the edge
+     * @return y component of the right normal of the edge
+     */
+    public float getRightNormalY(final int index) {
+        return getEdgeNormals()[2 * index + 1];
+    }
+    
+    /**
+     * Returns a list view to the vertices, which is built when first asked for.
      * @return an unmodifiable view to the vertex list
      */
     public List<Vector2> getUnmodifiableViewToVertexList() {
-        return Collections.unmodifiableList(vertexList);
+        final List<Vector2> view = vertexView;
+        
+        if (view != null) {
+            return view;
+        }
+        
+        final ArrayList<Vector2> list = new ArrayList(vertexCount);
+        
+        for (int i = 0; i < vertexCount; i++) {
+            list.add(new Vector2(coordinates[2 * i], coordinates[2 * i + 1]));
+        }
+        
+        final List<Vector2> newView = Collections.unmodifiableList(list);
+        vertexView = newView;
+        
+        return newView;
     }
 
     /**
+     * Returns a list view to the segments, which is built when first asked for.
      * @return an unmodifiable view to the segment list
      */
     public List<Segment2> getUnmodifiableViewToSegmentList() {
-        return Collections.unmodifiableList(segmentList);
+        final List<Segment2> view = segmentView;
+        
+        if (view != null) {
+            return view;
+        }
+        
+        final List<Vector2> vertexList = getUnmodifiableViewToVertexList();
+        final ArrayList<Segment2> list = new ArrayList(vertexCount);
+
+        for (int i = 0; i < vertexCount; i++) {
+            list.add(new Segment2(vertexList.get(i), vertexList.get((i + 1) % vertexCount)));
+        }
+        
+        final List<Segment2> newView = Collections.unmodifiableList(list);
+        segmentView = newView;
+        
+        return newView;
     }
    
     /**
      * @return vertex average
      */
     public Vector2 getVertexAverage() {
-        return vertexAverage;
+        final Vector2 average = vertexAverage;
+        
+        if (average != null) {
+            return average;
+        }
+        
+        final Vector2 newAverage = new Vector2(averageX, averageY);
+        vertexAverage = newAverage;
+        
+        return newAverage;
+    }
+    
+    /**
+     * @return x coordinate of the vertex average
+     */
+    public float getVertexAverageX() {
+        return averageX;
+    }
+    
+    /**
+     * @return y coordinate of the vertex average
+     */
+    public float getVertexAverageY() {
+        return averageY;
     }
         
     /**
      * @return bounding box for the object
      */
     public BoundingBox getBoundingBox() {
-        return boundingBox;
+        final BoundingBox box = boundingBox;
+        
+        if (box != null) {
+            return box;
+        }
+        
+        final BoundingBox newBox = bounds.toBoundingBox();
+        boundingBox = newBox;
+        
+        return newBox;
+    }
+    
+    /**
+     * Writes the bounds of the polygon to a box without allocating anything.
+     * @param output box to write the bounds to
+     */
+    public void getBounds(final AABB output) {
+        output.set(bounds);
+    }
+    
+    /**
+     * Writes the bounds of the convex hull of this polygon and its copy first rotated 
+     * and then translated to a box, which is exactly the union of the bounds of the two. 
+     * The copy is computed the same way as by {@link #transformInto}, so the bounds are 
+     * exact, but it's never built.
+     * @param ox x coordinate of the point to rotate around
+     * @param oy y coordinate of the point to rotate around
+     * @param c cosine of the rotation
+     * @param s sine of the rotation
+     * @param tx x component of the translation after rotation
+     * @param ty y component of the translation after rotation
+     * @param output box to write the bounds to
+     */
+    public void getSweptBounds(final float ox, final float oy, final float c, final float s, final float tx, final float ty, final AABB output) {
+        output.set(bounds);
+        KERNEL.includeTransformed(coordinates, vertexCount, ox, oy, c, s, tx, ty, output);
     }
     
     /**
@@ -226,15 +571,115 @@ public class ConvexPolygon {
      * @return true if and only if the polygons intersect each other.
      */
     public boolean doesIntersect(final ConvexPolygon polygon) { 
-        if (!doesIntersectOnAllAxes(polygon, segmentList)) {
+        // The bounds are known already, which makes them the cheapest axes to try first.
+        if (!bounds.doesOverlap(polygon.bounds)) {
+            return false;
+        } else if (!doesIntersectOnAllAxes(polygon, this)) {
             return false;
-        } else if (!doesIntersectOnAllAxes(polygon, polygon.segmentList)) {
+        } else if (!doesIntersectOnAllAxes(polygon, polygon)) {
             return false; // I'm so sorry PIT but I'm way too lazy to conjure up a proper testcase right now.
         }
 
         return true;
     }
     
+    /**
+     * Finds the vertex furthest along a direction in logarithmic time.
+     * @param dx x component of the direction
+     * @param dy y component of the direction
+     * @return index of the vertex with the largest projection on the direction
+     */
+    public int findExtremeVertex(final float dx, final float dy) {
+        return findExtremeIndex(dx, dy);
+    }
+    
+    /**
+     * Checks whether a point lies within the polygon in logarithmic time, by finding 
+     * the wedge around the first vertex the point is in. 
+     * @param x x coordinate of the point
+     * @param y y coordinate of the point
+     * @return true if and only if the point is inside or on the boundary of the polygon
+     */
+    public boolean containsPoint(final float x, final float y) {
+        final float ox = coordinates[0];
+        final float oy = coordinates[1];
+        
+        if (cross(ox, oy, coordinates[2], coordinates[3], x, y) < 0.0f || cross(ox, oy, coordinates[2 * vertexCount - 2], coordinates[2 * vertexCount - 1], x, y) > 0.0f) {
+            return false;
+        }
+        
+        int lo = 1;
+        int hi = vertexCount - 1;
+        
+        while (hi > lo + 1) {
+            final int mid = (lo + hi) / 2;
+            
+            if (cross(ox, oy, coordinates[2 * mid], coordinates[2 * mid + 1], x, y) >= 0.0f) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        
+        return cross(coordinates[2 * lo], coordinates[2 * lo + 1], coordinates[2 * hi], coordinates[2 * hi + 1], x, y) >= 0.0f;
+    }
+
+    /**
+     * Checks whether a point lies within the polygon in logarithmic time.
+     * @param point point to test
+     * @return true if and only if the point is inside or on the boundary of the polygon
+     */
+    public boolean containsPoint(final Vector2 point) {
+        return containsPoint(point.getX(), point.getY());
+    }
+    
+    /**
+     * Casts a ray against the polygon in logarithmic time. The vertices furthest on either 
+     * side of the ray split the boundary into two chains, each crossed by the ray once.
+     * @param ox x coordinate of the origin of the ray
+     * @param oy y coordinate of the origin of the ray
+     * @param dx x component of the direction of the ray
+     * @param dy y component of the direction of the ray
+     * @return smallest t &gt;= 0 for which origin + t * direction is in the polygon, or positive infinity if there's none
+     */
+    public float castRay(final float ox, final float oy, final float dx, final float dy) {
+        if (dx == 0.0f && dy == 0.0f) {
+            return containsPoint(ox, oy) ? 0.0f : Float.POSITIVE_INFINITY;
+        }
+        
+        final float nx = -dy;
+        final float ny = dx;
+        final float level = nx * ox + ny * oy;
+        
+        final int low = findExtremeIndex(-nx, -ny);
+        final int high = findExtremeIndex(nx, ny);
+        
+        if (!(project(low, nx, ny) <= level && level <= project(high, nx, ny))) {
+            return Float.POSITIVE_INFINITY;
+        }
+        
+        final float t0 = intersectChain(low, high, nx, ny, level, ox, oy, dx, dy);
+        final float t1 = intersectChain(high, low, -nx, -ny, -level, ox, oy, dx, dy);
+
+        if (Math.max(t0, t1) < 0.0f) {
+            return Float.POSITIVE_INFINITY;
+        }
+        
+        return Math.max(Math.min(t0, t1), 0.0f);
+    }
+    
+    /**
+     * Checks whether a segment intersects the polygon in logarithmic time.
+     * @param segment segment to test
+     * @return true if and only if some point of the segment is in the polygon
+     */
+    public boolean doesIntersect(final Segment2 segment) {
+        final Vector2 a = segment.getA();
+        final Vector2 ab = segment.getAB();
+        
+        return castRay(a.getX(), a.getY(), ab.getX(), ab.getY()) <= 1.0f;
+    }
+    
     /**
      * Returns a copy of this polygon first rotated and then translated. 
      * The relative order of vertices and segments is guaranteed to not change.
@@ -244,15 +689,80 @@ public class ConvexPolygon {
      * @return new convex polygon
      */
     public ConvexPolygon rotateAndTranslate(final Vector2 origo, final float angle, final Vector2 translation) {
-        final ArrayList<Vector2> newVertexList = new ArrayList();
-
-        for (Vector2 v : vertexList) {
-            newVertexList.add(v.rotation(origo, angle).sum(translation));
+        return rotateAndTranslate(origo, new Rot2(angle), translation);
+    }
+    
+    /**
+     * Returns a copy of this polygon first rotated and then translated. 
+     * The relative order of vertices and segments is guaranteed to not change.
+     * @param origo point to rotate around
+     * @param rotation rotation to apply
+     * @param translation translation (ie. displacement) after rotation
+     * @return new convex polygon
+     */
+    public ConvexPolygon rotateAndTranslate(final Vector2 origo, final Rot2 rotation, final Vector2 translation) {
+        final ConvexPolygon result = new ConvexPolygon(new float[coordinates.length], new Vector2(0.0f, 0.0f), false);
+        writeTransformed(result, origo.getX(), origo.getY(), rotation.getCos(), rotation.getSin(), translation.getX(), translation.getY());
+        
+        result.vertexAverage = null;
+        result.computeBounds();
+        
+        return result;
+    }
+    
+    /**
+     * Overwrites a scratch polygon with a copy of this polygon first rotated and then translated. 
+     * The destination may be this polygon itself if it's a scratch polygon.
+     * @param destination scratch polygon with the same number of vertices
+     * @param origo point to rotate around
+     * @param angle angle of rotation in radians
+     * @param translation translation (ie. displacement) after rotation
+     * @throws IllegalArgumentException
+     */
+    public void transformInto(final ConvexPolygon destination, final Vector2 origo, final float angle, final Vector2 translation) throws IllegalArgumentException {
+        transformInto(destination, origo, new Rot2(angle), translation);
+    }
+    
+    /**
+     * Overwrites a scratch polygon with a copy of this polygon first rotated and then translated. 
+     * The destination may be this polygon itself if it's a scratch polygon.
+     * @param destination scratch polygon with the same number of vertices
+     * @param origo point to rotate around
+     * @param rotation rotation to apply
+     * @param translation translation (ie. displacement) after rotation
+     * @throws IllegalArgumentException
+     */
+    public void transformInto(final ConvexPolygon destination, final Vector2 origo, final Rot2 rotation, final Vector2 translation) throws IllegalArgumentException {
+        transformInto(destination, origo.getX(), origo.getY(), rotation.getCos(), rotation.getSin(), translation.getX(), translation.getY());
+    }
+    
+    /**
+     * Overwrites a scratch polygon with a copy of this polygon first rotated and then translated,
+     * without wrapping the transformation in objects. The destination may be this polygon itself 
+     * if it's a scratch polygon.
+     * @param destination scratch polygon with the same number of vertices
+     * @param ox x coordinate of the point to rotate around
+     * @param oy y coordinate of the point to rotate around
+     * @param c cosine of the rotation
+     * @param s sine of the rotation
+     * @param tx x component of the translation after rotation
+     * @param ty y component of the translation after rotation
+     * @throws IllegalArgumentException
+     */
+    public void transformInto(final ConvexPolygon destination, final float ox, final float oy, final float c, final float s, final float tx, final float ty) throws IllegalArgumentException {
+        if (!destination.scratch) {
+            throw new IllegalArgumentException("The destination isn't a scratch polygon.");
+        } else if (destination.vertexCount != vertexCount) {
+            throw new IllegalArgumentException("The destination has a different number of vertices.");
         }
-
-        final Vector2 average = vertexAverage.rotation(origo, angle).sum(translation);
-        final BoundingBox box = computeBoundingBox(newVertexList);
-
-        return new ConvexPolygon(newVertexList, average, box);
+        
+        writeTransformed(destination, ox, oy, c, s, tx, ty);
+        
+        destination.computeBounds();
+        destination.vertexAverage = null;
+        destination.boundingBox = null;
+        destination.vertexView = null;
+        destination.segmentView = null;
+        destination.normalsValid = false;
     }
 }
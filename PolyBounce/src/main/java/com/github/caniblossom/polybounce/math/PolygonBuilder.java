@@ -30,14 +30,220 @@
 package com.github.caniblossom.polybounce.math;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 
 /**
- * An utility class for building convex polygons.
+ * An utility class for building convex polygons. The shapes are built from packed
+ * coordinates that are checked in place rather than copied from vertex lists.
  * @author Jani Salo
  */
 public class PolygonBuilder {
+    // Orders points from left to right, then from bottom to top.
+    private static final Comparator<Vector2> LEFT_TO_RIGHT = new Comparator<Vector2>() {
+        @Override
+        public int compare(final Vector2 a, final Vector2 b) {
+            final int order = Float.compare(a.getX(), b.getX());
+            return order != 0 ? order : Float.compare(a.getY(), b.getY());
+        }
+    };
+    
     private final ArrayList<Vector2> vertexList; 
     
+    // Returns twice the signed area of triangle abc, positive if it turns left at b. Rounds 
+    // the same way as the convexity check of polygons, so the corners kept here pass it.
+    private static float cross(final float ax, final float ay, final float bx, final float by, final float cx, final float cy) {
+        return (bx - ax) * (cy - by) - (by - ay) * (cx - bx);
+    }
+    
+    // Drops the corners of a counter-clockwise loop that don't turn left, which rounding leaves 
+    // when vertices lie close together. Repeats until every corner turns left and returns the 
+    // number of vertices left at the start of the coordinates.
+    private static int dropStraightCorners(final float[] coordinates) {
+        int count = coordinates.length / 2;
+        boolean dropped = true;
+        
+        while (dropped && count >= 3) {
+            dropped = false;
+            
+            // The previous corner of the first one is the last, which hasn't been moved yet. 
+            int kept = 0;
+            float previousX = coordinates[2 * count - 2];
+            float previousY = coordinates[2 * count - 1];
+            
+            for (int i = 0; i < count; i++) {
+                final int next = (i + 1) % count;
+                final float x = coordinates[2 * i];
+                final float y = coordinates[2 * i + 1];
+                
+                if (cross(previousX, previousY, x, y, coordinates[2 * next], coordinates[2 * next + 1]) <= 0.0f) {
+                    dropped = true;
+                    continue;
+                }
+                
+                coordinates[2 * kept] = x;
+                coordinates[2 * kept + 1] = y;
+                kept++;
+                
+                previousX = x;
+                previousY = y;
+            }
+            
+            count = kept;
+        }
+        
+        return count;
+    }
+    
+    // Builds the hull of points sorted from left to right with the monotone chain algorithm.
+    private static float[] buildMonotoneChain(final float[] sorted, final int pointCount) throws IllegalArgumentException {
+        final float[] hull = new float[4 * pointCount + 2];
+        int hullCount = 0;
+        
+        // Build the lower chain from left to right and then the upper one back, 
+        // dropping every point where the chain doesn't turn left.
+        for (int pass = 0; pass < 2; pass++) {
+            final int chainStart = hullCount;
+
+            for (int n = 0; n < pointCount; n++) {
+                final int k = pass == 0 ? n : pointCount - 1 - n;
+                final float px = sorted[2 * k];
+                final float py = sorted[2 * k + 1];
+
+                while (hullCount >= chainStart + 2 && cross(hull[2 * hullCount - 4], hull[2 * hullCount - 3], hull[2 * hullCount - 2], hull[2 * hullCount - 1], px, py) <= 0.0f) {
+                    hullCount--;
+                }
+
+                hull[2 * hullCount] = px;
+                hull[2 * hullCount + 1] = py;
+                hullCount++;
+            }
+            
+            // The last point of a chain is the first one of the other.
+            hullCount--;
+        }
+        
+        if (hullCount < 3) {
+            throw new IllegalArgumentException("The points don't enclose any area.");
+        }
+        
+        return Arrays.copyOf(hull, 2 * hullCount);
+    }
+    
+    // Packs the vertices of the vertex list into coordinates.
+    private float[] packVertexList() {
+        final float[] packed = new float[2 * vertexList.size()];
+        
+        for (int i = 0; i < vertexList.size(); i++) {
+            packed[2 * i] = vertexList.get(i).getX();
+            packed[2 * i + 1] = vertexList.get(i).getY();
+        }
+        
+        return packed;
+    }
+    
+    // Returns true if no vertex left in the ring lies within or on the triangle avb.
+    private static boolean isEar(final float[] packed, final int[] prev, final int[] next, final int a, final int v, final int b) {
+        final float ax = packed[2 * a], ay = packed[2 * a + 1];
+        final float vx = packed[2 * v], vy = packed[2 * v + 1];
+        final float bx = packed[2 * b], by = packed[2 * b + 1];
+        
+        for (int i = next[b]; i != a; i = next[i]) {
+            final float px = packed[2 * i], py = packed[2 * i + 1];
+            
+            // Only reflex vertices can reach into the triangle.
+            if (cross(packed[2 * prev[i]], packed[2 * prev[i] + 1], px, py, packed[2 * next[i]], packed[2 * next[i] + 1]) > 0.0f) {
+                continue;
+            }
+
+            if (cross(ax, ay, vx, vy, px, py) >= 0.0f && cross(vx, vy, bx, by, px, py) >= 0.0f && cross(bx, by, ax, ay, px, py) >= 0.0f) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    // Returns the position of vertex in piece, or -1 if it's not there.
+    private static int indexOf(final int[] piece, final int vertex) {
+        for (int i = 0; i < piece.length; i++) {
+            if (piece[i] == vertex) {
+                return i;
+            }
+        }
+        
+        return -1;
+    }
+    
+    // Removes every diagonal whose removal keeps the two pieces sharing it convex.
+    // Merged pieces are left as null entries in the piece list.
+    private static void mergeConvexPieces(final float[] packed, final ArrayList<int[]> pieceList, final ArrayList<int[]> diagonalList) {
+        final int vertexCount = packed.length / 2;
+        final HashMap<Long, Integer> edgeMap = new HashMap();
+        
+        for (int n = 0; n < pieceList.size(); n++) {
+            final int[] piece = pieceList.get(n);
+            
+            for (int i = 0; i < piece.length; i++) {
+                edgeMap.put((long) piece[i] * vertexCount + piece[(i + 1) % piece.length], n);
+            }
+        }
+        
+        for (int[] diagonal : diagonalList) {
+            final int a = diagonal[0];
+            final int b = diagonal[1];
+            
+            // Piece p runs from a to b along the diagonal, piece q back from b to a.
+            final Integer p = edgeMap.get((long) a * vertexCount + b);
+            final Integer q = edgeMap.get((long) b * vertexCount + a);
+            
+            if (p == null || q == null) {
+                continue;
+            }
+            
+            final int[] pieceP = pieceList.get(p);
+            final int[] pieceQ = pieceList.get(q);
+            final int i = indexOf(pieceP, a);
+            final int j = indexOf(pieceQ, b);
+            final int lengthP = pieceP.length;
+            final int lengthQ = pieceQ.length;
+
+            final int beforeA = pieceP[(i + lengthP - 1) % lengthP];
+            final int afterA = pieceQ[(j + 2) % lengthQ];
+            final int beforeB = pieceQ[(j + lengthQ - 1) % lengthQ];
+            final int afterB = pieceP[(i + 2) % lengthP];
+            
+            if (cross(packed[2 * beforeA], packed[2 * beforeA + 1], packed[2 * a], packed[2 * a + 1], packed[2 * afterA], packed[2 * afterA + 1]) <= 0.0f ||
+                cross(packed[2 * beforeB], packed[2 * beforeB + 1], packed[2 * b], packed[2 * b + 1], packed[2 * afterB], packed[2 * afterB + 1]) <= 0.0f) {
+                continue;
+            }
+            
+            // Walk p from b around to a, then q from past a to before b.
+            final int[] merged = new int[lengthP + lengthQ - 2];
+            
+            for (int k = 0; k < lengthP; k++) {
+                merged[k] = pieceP[(i + 1 + k) % lengthP];
+            }
+            
+            for (int k = 0; k < lengthQ - 2; k++) {
+                merged[lengthP + k] = pieceQ[(j + 2 + k) % lengthQ];
+            }
+            
+            edgeMap.remove((long) a * vertexCount + b);
+            edgeMap.remove((long) b * vertexCount + a);
+
+            for (int k = 0; k < merged.length; k++) {
+                edgeMap.put((long) merged[k] * vertexCount + merged[(k + 1) % merged.length], p);
+            }
+            
+            pieceList.set(p, merged);
+            pieceList.set(q, null);
+        }
+    }
+    
     /**
      * Constructs a new polygon builder.
      */
@@ -53,13 +259,17 @@ public class PolygonBuilder {
      * @throws IllegalArgumentException
      */
     public ConvexPolygon createBox(final Vector2 lowerLeft, final Vector2 upperRight) throws IllegalArgumentException {
+        if (!(upperRight.getX() > lowerLeft.getX() && upperRight.getY() > lowerLeft.getY())) {
+            throw new IllegalArgumentException("The upper right corner isn't above and to the right of the lower left corner.");
+        }
+        
         vertexList.clear();
         vertexList.add(lowerLeft);
         vertexList.add(new Vector2(upperRight.getX(), lowerLeft.getY()));
         vertexList.add(upperRight);
         vertexList.add(new Vector2(lowerLeft.getX(), upperRight.getY()));
         
-        return ConvexPolygon.constructNew(vertexList);
+        return ConvexPolygon.constructOwned(packVertexList());
     }
     
     /**
@@ -71,13 +281,130 @@ public class PolygonBuilder {
      * @throws IllegalArgumentException
      */
     public ConvexPolygon createRegularPolygon(final Vector2 position, final float radius, final int vertexCount) throws IllegalArgumentException {
+        if (vertexCount < 3 || !(radius > 0.0f)) {
+            throw new IllegalArgumentException("A regular polygon needs at least three vertices and a positive radius.");
+        }
+        
         vertexList.clear();
          
         for (int i = 0; i < vertexCount; i++) {
             final float r = (float) i / (float) vertexCount * 2.0f * (float) Math.PI;
             vertexList.add(new Vector2(radius * (float) Math.cos(r) + position.getX(), radius * (float) Math.sin(r) + position.getY()));
         }
+        
+        final float[] packed = packVertexList();
+        return ConvexPolygon.constructOwned(Arrays.copyOf(packed, 2 * dropStraightCorners(packed)));
+    }
+    
+    /**
+     * Constructs the convex hull of a set of points using the monotone chain algorithm.
+     * Points lying on the edges of the hull aren't included in it.
+     * @param pointList points to enclose, in any order
+     * @return a new convex polygon enclosing all of the points
+     * @throws IllegalArgumentException if the points don't enclose any area
+     */
+    public ConvexPolygon createConvexHull(final List<Vector2> pointList) throws IllegalArgumentException {
+        vertexList.clear();
+        vertexList.addAll(pointList);
+        Collections.sort(vertexList, LEFT_TO_RIGHT);
+        
+        return ConvexPolygon.constructOwned(buildMonotoneChain(packVertexList(), vertexList.size()));
+    }
     
-        return ConvexPolygon.constructNew(vertexList);
+    /**
+     * Decomposes a simple polygon into convex pieces. The outline is first 
+     * triangulated by ear clipping, after which the Hertel-Mehlhorn algorithm
+     * removes every diagonal whose removal keeps the merged piece convex. This
+     * gives at most four times the minimal number of pieces.
+     * @param outline vertices of a simple polygon in either winding order
+     * @return list of convex polygons covering the outline
+     * @throws IllegalArgumentException if the outline isn't a simple polygon
+     */
+    public List<ConvexPolygon> createConvexDecomposition(final List<Vector2> outline) throws IllegalArgumentException {
+        vertexList.clear();
+        vertexList.addAll(outline);
+        
+        final int vertexCount = vertexList.size();
+        final float[] packed = packVertexList();
+        
+        float area = 0.0f;
+        for (int i = 0; i < vertexCount; i++) {
+            final int j = (i + 1) % vertexCount;
+            area += packed[2 * i] * packed[2 * j + 1] - packed[2 * j] * packed[2 * i + 1];
+        }
+        
+        if (vertexCount < 3 || area == 0.0f) {
+            throw new IllegalArgumentException("The outline doesn't enclose any area.");
+        }
+        
+        final int[] prev = new int[vertexCount];
+        final int[] next = new int[vertexCount];
+
+        // Link the vertices into a counter-clockwise ring.
+        for (int i = 0; i < vertexCount; i++) {
+            final int forward = (i + 1) % vertexCount;
+            final int backward = (i + vertexCount - 1) % vertexCount;
+            
+            next[i] = area > 0.0f ? forward : backward;
+            prev[i] = area > 0.0f ? backward : forward;
+        }
+
+        final ArrayList<int[]> pieceList = new ArrayList();
+        final ArrayList<int[]> diagonalList = new ArrayList();
+        
+        int remaining = vertexCount;
+        int v = 0;
+        int sinceLastEar = 0;
+        
+        while (remaining > 3) {
+            if (sinceLastEar > remaining) {
+                throw new IllegalArgumentException("The outline isn't a simple polygon.");
+            }
+            
+            final int a = prev[v];
+            final int b = next[v];
+            final float turn = cross(packed[2 * a], packed[2 * a + 1], packed[2 * v], packed[2 * v + 1], packed[2 * b], packed[2 * b + 1]);
+            
+            if (turn == 0.0f || (turn > 0.0f && isEar(packed, prev, next, a, v, b))) {
+                // Collinear vertices are dropped from the ring without a triangle.
+                if (turn > 0.0f) {
+                    pieceList.add(new int[] {a, v, b});
+                    diagonalList.add(new int[] {a, b});
+                }
+                
+                next[a] = b;
+                prev[b] = a;
+                remaining--;
+                sinceLastEar = 0;
+                v = a;
+            } else {
+                sinceLastEar++;
+                v = b;
+            }
+        }
+
+        if (cross(packed[2 * prev[v]], packed[2 * prev[v] + 1], packed[2 * v], packed[2 * v + 1], packed[2 * next[v]], packed[2 * next[v] + 1]) > 0.0f) {
+            pieceList.add(new int[] {prev[v], v, next[v]});
+        }
+        
+        mergeConvexPieces(packed, pieceList, diagonalList);
+        
+        final ArrayList<ConvexPolygon> polygonList = new ArrayList();
+        
+        for (int[] piece : pieceList) {
+            if (piece == null) {
+                continue;
+            }
+            
+            final float[] coordinates = new float[2 * piece.length];
+            for (int i = 0; i < piece.length; i++) {
+                coordinates[2 * i] = packed[2 * piece[i]];
+                coordinates[2 * i + 1] = packed[2 * piece[i] + 1];
+            }
+            
+            polygonList.add(ConvexPolygon.constructOwned(coordinates));
+        }
+        
+        return polygonList;
     }
 }
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+/**
+ * A reusable query for the contact points of two overlapping convex polygons. The edge 
+ * past which the other polygon reaches the least is taken as the reference face, and the 
+ * edge of the other polygon most directly facing it as the incident face. The incident 
+ * face is clipped to the sides of the reference face in the manner of Sutherland-Hodgman, 
+ * and what remains below the reference face gives at most two contact points. 
+ * A query keeps its results until the next one, so each thread needs its own.
+ * @author Jani Salo
+ */
+public class PolygonContact {
+    /**
+     * Largest number of contact points a query can find.
+     */
+    public static final int MAX_POINT_COUNT = 2;
+    
+    // The second polygon is only used for the reference face if it's clearly better, 
+    // so that the choice doesn't flip back and forth between nearly equal faces.
+    private static final float RELATIVE_TOLERANCE = 0.98f;
+    private static final float ABSOLUTE_TOLERANCE = 0.001f;
+    
+    // The incident face while it's being clipped.
+    private final float[] clipX;
+    private final float[] clipY;
+    
+    private int edge;
+    private int pointCount;
+    private float normalX, normalY;
+    private final float[] pointAX, pointAY;
+    private final float[] pointBX, pointBY;
+    private final float[] depth;
+    
+    // Finds the edge of polygon a past which polygon b reaches the least, and leaves it in edge. 
+    // Returns how far b stays outside the edge, which is negative if the polygons overlap. 
+    private float findMaxSeparation(final ConvexPolygon a, final ConvexPolygon b) {
+        float separation = -Float.MAX_VALUE;
+        edge = 0;
+        
+        for (int i = 0; i < a.getVertexCount(); i++) {
+            final float nx = a.getRightNormalX(i);
+            final float ny = a.getRightNormalY(i);
+            final int j = b.findExtremeVertex(-nx, -ny);
+            final float s = nx * (b.getVertexX(j) - a.getVertexX(i)) + ny * (b.getVertexY(j) - a.getVertexY(i));
+
+            if (s > separation) {
+                separation = s;
+                edge = i;
+            }
+            
+            // A single separating edge is enough.
+            if (separation > 0.0f) {
+                break;
+            }
+        }
+        
+        return separation;
+    }
+    
+    // Clips the segment in the clip arrays to the side of a line where the projection on the normal 
+    // is at most the offset. Returns false if nothing of the segment remains.
+    private boolean clip(final float nx, final float ny, final float offset) {
+        final float d0 = nx * clipX[0] + ny * clipY[0] - offset;
+        final float d1 = nx * clipX[1] + ny * clipY[1] - offset;
+        
+        if (d0 > 0.0f && d1 > 0.0f) {
+            return false;
+        } else if (d0 > 0.0f || d1 > 0.0f) {
+            // Either way the point outside is moved to where the segment crosses the line.
+            final float t = d0 / (d0 - d1);
+            final float x = clipX[0] + t * (clipX[1] - clipX[0]);
+            final float y = clipY[0] + t * (clipY[1] - clipY[0]);
+            final int outside = d0 > 0.0f ? 0 : 1;
+            
+            clipX[outside] = x;
+            clipY[outside] = y;
+        }
+        
+        return true;
+    }
+    
+    // Stores a contact point found on the incident polygon along with its projection on the reference face.
+    private void addPoint(final float x, final float y, final float nx, final float ny, final float separation, final boolean flip) {
+        final float px = x - separation * nx;
+        final float py = y - separation * ny;
+        
+        if (flip) {
+            pointAX[pointCount] = x;
+            pointAY[pointCount] = y;
+            pointBX[pointCount] = px;
+            pointBY[pointCount] = py;
+        } else {
+            pointAX[pointCount] = px;
+            pointAY[pointCount] = py;
+            pointBX[pointCount] = x;
+            pointBY[pointCount] = y;
+        }
+        
+        depth[pointCount] = -separation;
+        pointCount++;
+    }
+    
+    // Clips the incident face of a polygon against a reference edge and stores the contact points.
+    private void clipIncidentFace(final ConvexPolygon reference, final int referenceEdge, final ConvexPolygon incident, final boolean flip) {
+        final int n = reference.getVertexCount();
+        final float nx = reference.getRightNormalX(referenceEdge);
+        final float ny = reference.getRightNormalY(referenceEdge);
+        final float ax = reference.getVertexX(referenceEdge);
+        final float ay = reference.getVertexY(referenceEdge);
+        final float bx = reference.getVertexX(referenceEdge + 1 < n ? referenceEdge + 1 : 0);
+        final float by = reference.getVertexY(referenceEdge + 1 < n ? referenceEdge + 1 : 0);
+        
+        // The incident face is one of the two edges next to the deepest vertex, whichever faces the reference more.
+        final int m = incident.getVertexCount();
+        final int deepest = incident.findExtremeVertex(-nx, -ny);
+        final int previous = deepest > 0 ? deepest - 1 : m - 1;
+        final int first = nx * incident.getRightNormalX(previous) + ny * incident.getRightNormalY(previous) < nx * incident.getRightNormalX(deepest) + ny * incident.getRightNormalY(deepest) ? previous : deepest;
+        final int second = first + 1 < m ? first + 1 : 0;
+        
+        clipX[0] = incident.getVertexX(first);
+        clipY[0] = incident.getVertexY(first);
+        clipX[1] = incident.getVertexX(second);
+        clipY[1] = incident.getVertexY(second);
+        
+        pointCount = 0;
+        normalX = flip ? -nx : nx;
+        normalY = flip ? -ny : ny;
+        
+        // The edge runs along the tangent, which is the normal turned to the left.
+        final float tx = -ny;
+        final float ty = nx;
+        
+        if (clip(-tx, -ty, -(tx * ax + ty * ay)) && clip(tx, ty, tx * bx + ty * by)) {
+            for (int i = 0; i < 2; i++) {
+                final float separation = nx * (clipX[i] - ax) + ny * (clipY[i] - ay);
+                
+                if (separation <= 0.0f) {
+                    addPoint(clipX[i], clipY[i], nx, ny, separation, flip);
+                }
+            }
+        }
+        
+        // Grazing contacts can have everything clipped away, but the deepest vertex is always in contact.
+        if (pointCount == 0) {
+            final float x = incident.getVertexX(deepest);
+            final float y = incident.getVertexY(deepest);
+            
+            addPoint(x, y, nx, ny, nx * (x - ax) + ny * (y - ay), flip);
+        }
+    }
+    
+    /**
+     * Constructs a new contact query.
+     */
+    public PolygonContact() {
+        this.clipX = new float[2];
+        this.clipY = new float[2];
+        this.pointAX = new float[MAX_POINT_COUNT];
+        this.pointAY = new float[MAX_POINT_COUNT];
+        this.pointBX = new float[MAX_POINT_COUNT];
+        this.pointBY = new float[MAX_POINT_COUNT];
+        this.depth = new float[MAX_POINT_COUNT];
+    }
+    
+    /**
+     * Finds the contact points of two polygons. Separating axes are only searched among 
+     * the edges, with the extreme vertex along each found in logarithmic time, and the 
+     * clipping itself takes constant time.
+     * @param a first polygon
+     * @param b second polygon
+     * @return true if and only if the polygons touch or overlap
+     */
+    public boolean query(final ConvexPolygon a, final ConvexPolygon b) {
+        pointCount = 0;
+        
+        final float separationA = findMaxSeparation(a, b);
+        if (separationA > 0.0f) {
+            return false;
+        }
+        
+        final int edgeA = edge;
+        
+        final float separationB = findMaxSeparation(b, a);
+        if (separationB > 0.0f) {
+            return false;
+        }
+        
+        if (separationB > RELATIVE_TOLERANCE * separationA + ABSOLUTE_TOLERANCE) {
+            clipIncidentFace(b, edge, a, true);
+        } else {
+            clipIncidentFace(a, edgeA, b, false);
+        }
+        
+        return true;
+    }
+    
+    /**
+     * @return number of contact points found in the last query, zero if the polygons didn't touch
+     */
+    public int getPointCount() {
+        return pointCount;
+    }
+    
+    /**
+     * The normal points from the first polygon towards the second. Moving the second polygon 
+     * along it by the depth of a contact point separates the polygons at that point.
+     * @return x component of the normal
+     */
+    public float getNormalX() {
+        return normalX;
+    }
+
+    /**
+     * @return y component of the normal
+     */
+    public float getNormalY() {
+        return normalY;
+    }
+    
+    /**
+     * @param index index of the contact point
+     * @return depth of penetration at the contact point
+     */
+    public float getDepth(final int index) {
+        return depth[index];
+    }
+    
+    /**
+     * @param index index of the contact point
+     * @return x coordinate of the contact point on the first polygon
+     */
+    public float getPointAX(final int index) {
+        return pointAX[index];
+    }
+
+    /**
+     * @param index index of the contact point
+     * @return y coordinate of the contact point on the first polygon
+     */
+    public float getPointAY(final int index) {
+        return pointAY[index];
+    }
+
+    /**
+     * @param index index of the contact point
+     * @return x coordinate of the contact point on the second polygon
+     */
+    public float getPointBX(final int index) {
+        return pointBX[index];
+    }
+
+    /**
+     * @param index index of the contact point
+     * @return y coordinate of the contact point on the second polygon
+     */
+    public float getPointBY(final int index) {
+        return pointBY[index];
+    }
+}
@@ -0,0 +1,515 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+import java.util.Arrays;
+
+/**
+ * A reusable query for the distance between two convex polygons. The distance is
+ * found with the Gilbert-Johnson-Keerthi algorithm, which walks a simplex over the
+ * Minkowski difference of the polygons towards the origin. If the polygons overlap,
+ * the expanding polytope algorithm finds how deep they penetrate each other. 
+ * A query keeps its results until the next one, so each thread needs its own.
+ * @author Jani Salo
+ */
+public class PolygonDistance {
+    private static final int MAX_GJK_ITERATIONS = 32;
+    private static final int MAX_EPA_ITERATIONS = 32;
+    
+    // Distances below this are considered touching, and smaller improvements are considered converged.
+    private static final float TOLERANCE = 1.0e-5f;
+    
+    // Vertices of the simplex, and later of the polytope. Each is the difference of 
+    // a vertex of polygon a and a vertex of polygon b, with a weight in the simplex.
+    private int[] indexA;
+    private int[] indexB;
+    private float[] wx;
+    private float[] wy;
+    private final float[] weight;
+    private int count;
+    
+    private boolean overlapping;
+    private float distance;
+    private float normalX, normalY;
+    private float pointAX, pointAY;
+    private float pointBX, pointBY;
+
+    // Sets a vertex of the simplex from vertices of the polygons.
+    private void setVertex(final int slot, final ConvexPolygon a, final ConvexPolygon b, final int ia, final int ib) {
+        indexA[slot] = ia;
+        indexB[slot] = ib;
+        wx[slot] = a.getVertexX(ia) - b.getVertexX(ib);
+        wy[slot] = a.getVertexY(ia) - b.getVertexY(ib);
+    }
+    
+    // Copies a vertex of the simplex into another slot.
+    private void copyVertex(final int from, final int to) {
+        indexA[to] = indexA[from];
+        indexB[to] = indexB[from];
+        wx[to] = wx[from];
+        wy[to] = wy[from];
+        weight[to] = weight[from];
+    }
+    
+    // Reduces a two vertex simplex to the part closest to the origin and weights it.
+    private void solve2() {
+        final float ex = wx[1] - wx[0];
+        final float ey = wy[1] - wy[0];
+        
+        final float d2 = -(wx[0] * ex + wy[0] * ey);
+        if (d2 <= 0.0f) {
+            weight[0] = 1.0f;
+            count = 1;
+            return;
+        }
+        
+        final float d1 = wx[1] * ex + wy[1] * ey;
+        if (d1 <= 0.0f) {
+            copyVertex(1, 0);
+            weight[0] = 1.0f;
+            count = 1;
+            return;
+        }
+        
+        weight[0] = d1 / (d1 + d2);
+        weight[1] = d2 / (d1 + d2);
+    }
+    
+    // Reduces a three vertex simplex to the part closest to the origin and weights it,
+    // by checking which of the vertices, edges or the inside of the triangle is closest.
+    private void solve3() {
+        final float e12x = wx[1] - wx[0], e12y = wy[1] - wy[0];
+        final float e13x = wx[2] - wx[0], e13y = wy[2] - wy[0];
+        final float e23x = wx[2] - wx[1], e23y = wy[2] - wy[1];
+        
+        final float d12_1 = wx[1] * e12x + wy[1] * e12y;
+        final float d12_2 = -(wx[0] * e12x + wy[0] * e12y);
+        final float d13_1 = wx[2] * e13x + wy[2] * e13y;
+        final float d13_2 = -(wx[0] * e13x + wy[0] * e13y);
+        final float d23_1 = wx[2] * e23x + wy[2] * e23y;
+        final float d23_2 = -(wx[1] * e23x + wy[1] * e23y);
+        
+        final float n123 = e12x * e13y - e12y * e13x;
+        final float d123_1 = n123 * (wx[1] * wy[2] - wy[1] * wx[2]);
+        final float d123_2 = n123 * (wx[2] * wy[0] - wy[2] * wx[0]);
+        final float d123_3 = n123 * (wx[0] * wy[1] - wy[0] * wx[1]);
+        
+        if (d12_2 <= 0.0f && d13_2 <= 0.0f) {
+            weight[0] = 1.0f;
+            count = 1;
+        } else if (d12_1 > 0.0f && d12_2 > 0.0f && d123_3 <= 0.0f) {
+            weight[0] = d12_1 / (d12_1 + d12_2);
+            weight[1] = d12_2 / (d12_1 + d12_2);
+            count = 2;
+        } else if (d13_1 > 0.0f && d13_2 > 0.0f && d123_2 <= 0.0f) {
+            copyVertex(2, 1);
+            weight[0] = d13_1 / (d13_1 + d13_2);
+            weight[1] = d13_2 / (d13_1 + d13_2);
+            count = 2;
+        } else if (d12_1 <= 0.0f && d23_2 <= 0.0f) {
+            copyVertex(1, 0);
+            weight[0] = 1.0f;
+            count = 1;
+        } else if (d13_1 <= 0.0f && d23_1 <= 0.0f) {
+            copyVertex(2, 0);
+            weight[0] = 1.0f;
+            count = 1;
+        } else if (d23_1 > 0.0f && d23_2 > 0.0f && d123_1 <= 0.0f) {
+            copyVertex(2, 0);
+            weight[0] = d23_2 / (d23_1 + d23_2);
+            weight[1] = d23_1 / (d23_1 + d23_2);
+            count = 2;
+        } else {
+            final float sum = d123_1 + d123_2 + d123_3;
+            weight[0] = d123_1 / sum;
+            weight[1] = d123_2 / sum;
+            weight[2] = d123_3 / sum;
+        }
+    }
+    
+    // Runs GJK, returns true if the polygons overlap or touch. Otherwise the weighted simplex
+    // holds the closest points.
+    private boolean runGjk(final ConvexPolygon a, final ConvexPolygon b) {
+        setVertex(0, a, b, 0, 0);
+        weight[0] = 1.0f;
+        count = 1;
+        
+        for (int iteration = 0; iteration < MAX_GJK_ITERATIONS; iteration++) {
+            if (count == 2) {
+                solve2();
+            } else if (count == 3) {
+                solve3();
+            }
+            
+            if (count == 3) {
+                return true;
+            }
+
+            float vx = 0.0f;
+            float vy = 0.0f;
+            for (int i = 0; i < count; i++) {
+                vx += weight[i] * wx[i];
+                vy += weight[i] * wy[i];
+            }
+            
+            final float squared = vx * vx + vy * vy;
+            
+            if (squared <= TOLERANCE * TOLERANCE) {
+                return true;
+            }
+            
+            // The direction to the origin is taken perpendicular to an edge rather than from the 
+            // closest point, which loses too much precision when the edge is long.
+            float dx = -wx[0];
+            float dy = -wy[0];
+            
+            if (count == 2) {
+                final float ex = wx[1] - wx[0];
+                final float ey = wy[1] - wy[0];
+                final float side = ex * dy - ey * dx;
+                
+                dx = side > 0.0f ? -ey : ey;
+                dy = side > 0.0f ? ex : -ex;
+            }
+            
+            final int ia = a.findExtremeVertex(dx, dy);
+            final int ib = b.findExtremeVertex(-dx, -dy);
+            
+            for (int i = 0; i < count; i++) {
+                if (indexA[i] == ia && indexB[i] == ib) {
+                    return false;
+                }
+            }
+
+            setVertex(count, a, b, ia, ib);
+            
+            // Stop once the new vertex doesn't get any closer to the origin than the simplex.
+            final float length = (float) Math.sqrt((double) (dx * dx + dy * dy));
+            if ((wx[count] - wx[0]) * dx + (wy[count] - wy[0]) * dy <= TOLERANCE * length) {
+                return false;
+            }
+            
+            count++;
+        }
+        
+        return false;
+    }
+    
+    // Stores the closest points and the distance from the weighted simplex.
+    private void storeSeparation(final ConvexPolygon a, final ConvexPolygon b) {
+        pointAX = pointAY = pointBX = pointBY = 0.0f;
+        
+        for (int i = 0; i < count; i++) {
+            pointAX += weight[i] * a.getVertexX(indexA[i]);
+            pointAY += weight[i] * a.getVertexY(indexA[i]);
+            pointBX += weight[i] * b.getVertexX(indexB[i]);
+            pointBY += weight[i] * b.getVertexY(indexB[i]);
+        }
+        
+        final float dx = pointBX - pointAX;
+        final float dy = pointBY - pointAY;
+        
+        distance = (float) Math.sqrt((double) (dx * dx + dy * dy));
+        
+        if (distance > 0.0f) {
+            normalX = dx / distance;
+            normalY = dy / distance;
+        } else {
+            storeFallbackNormal(a, b);
+        }
+    }
+    
+    // Points the normal from the center of a to the center of b, for when there's nothing better.
+    private void storeFallbackNormal(final ConvexPolygon a, final ConvexPolygon b) {
+        final float dx = b.getVertexAverageX() - a.getVertexAverageX();
+        final float dy = b.getVertexAverageY() - a.getVertexAverageY();
+        final float length = (float) Math.sqrt((double) (dx * dx + dy * dy));
+
+        normalX = length > 0.0f ? dx / length : 0.0f;
+        normalY = length > 0.0f ? dy / length : 1.0f;
+    }
+    
+    // Adds the support vertex in a direction to the simplex if it's further along it than 
+    // all the vertices already there, returns true if the vertex was added.
+    private boolean addSupport(final ConvexPolygon a, final ConvexPolygon b, final float dx, final float dy) {
+        final int ia = a.findExtremeVertex(dx, dy);
+        final int ib = b.findExtremeVertex(-dx, -dy);
+        
+        final float sx = a.getVertexX(ia) - b.getVertexX(ib);
+        final float sy = a.getVertexY(ia) - b.getVertexY(ib);
+        final float length = (float) Math.sqrt((double) (dx * dx + dy * dy));
+        
+        for (int i = 0; i < count; i++) {
+            if ((sx - wx[i]) * dx + (sy - wy[i]) * dy <= TOLERANCE * length) {
+                return false;
+            }
+        }
+        
+        setVertex(count, a, b, ia, ib);
+        count++;
+        
+        return true;
+    }
+    
+    // Grows a simplex that only touches the origin into a triangle for EPA, 
+    // returns false if the Minkowski difference has no area to do it with.
+    private boolean completeSimplex(final ConvexPolygon a, final ConvexPolygon b) {
+        if (count == 1 && !addSupport(a, b, 1.0f, 0.0f) && !addSupport(a, b, -1.0f, 0.0f) && !addSupport(a, b, 0.0f, 1.0f) && !addSupport(a, b, 0.0f, -1.0f)) {
+            return false;
+        }
+        
+        final float nx = wy[0] - wy[1];
+        final float ny = wx[1] - wx[0];
+        
+        return addSupport(a, b, nx, ny) || addSupport(a, b, -nx, -ny);
+    }
+    
+    // Inserts a vertex into the polytope after a slot, growing the arrays if needed.
+    private void insertVertex(final int after, final ConvexPolygon a, final ConvexPolygon b, final int ia, final int ib) {
+        if (count == wx.length) {
+            indexA = Arrays.copyOf(indexA, 2 * count);
+            indexB = Arrays.copyOf(indexB, 2 * count);
+            wx = Arrays.copyOf(wx, 2 * count);
+            wy = Arrays.copyOf(wy, 2 * count);
+        }
+        
+        for (int i = count; i > after + 1; i--) {
+            indexA[i] = indexA[i - 1];
+            indexB[i] = indexB[i - 1];
+            wx[i] = wx[i - 1];
+            wy[i] = wy[i - 1];
+        }
+        
+        setVertex(after + 1, a, b, ia, ib);
+        count++;
+    }
+    
+    // Runs EPA on a simplex enclosing the origin, expanding the edge of the polytope closest 
+    // to the origin until the Minkowski difference doesn't extend past it.
+    private void runEpa(final ConvexPolygon a, final ConvexPolygon b) {
+        // The polytope has to be wound counter-clockwise.
+        if ((wx[1] - wx[0]) * (wy[2] - wy[0]) - (wy[1] - wy[0]) * (wx[2] - wx[0]) < 0.0f) {
+            final int ia = indexA[1];
+            final int ib = indexB[1];
+            final float x = wx[1];
+            final float y = wy[1];
+            
+            indexA[1] = indexA[2];
+            indexB[1] = indexB[2];
+            wx[1] = wx[2];
+            wy[1] = wy[2];
+            
+            indexA[2] = ia;
+            indexB[2] = ib;
+            wx[2] = x;
+            wy[2] = y;
+        }
+        
+        int edge = -1;
+        float depth = Float.MAX_VALUE;
+        float nx = 0.0f;
+        float ny = 0.0f;
+        
+        for (int iteration = 0; iteration < MAX_EPA_ITERATIONS; iteration++) {
+            edge = -1;
+            depth = Float.MAX_VALUE;
+            
+            for (int i = 0; i < count; i++) {
+                final int j = i + 1 < count ? i + 1 : 0;
+                final float ex = wx[j] - wx[i];
+                final float ey = wy[j] - wy[i];
+                final float length = (float) Math.sqrt((double) (ex * ex + ey * ey));
+                
+                if (length == 0.0f) {
+                    continue;
+                }
+                
+                final float d = (ey * wx[i] - ex * wy[i]) / length;
+                
+                if (d < depth) {
+                    edge = i;
+                    depth = d;
+                    nx = ey / length;
+                    ny = -ex / length;
+                }
+            }
+            
+            if (edge < 0) {
+                break;
+            }
+            
+            final int ia = a.findExtremeVertex(nx, ny);
+            final int ib = b.findExtremeVertex(-nx, -ny);
+            final float support = nx * (a.getVertexX(ia) - b.getVertexX(ib)) + ny * (a.getVertexY(ia) - b.getVertexY(ib));
+            
+            if (support - depth <= TOLERANCE * Math.max(1.0f, depth)) {
+                break;
+            }
+            
+            insertVertex(edge, a, b, ia, ib);
+        }
+        
+        if (edge < 0) {
+            distance = 0.0f;
+            storeFallbackNormal(a, b);
+            return;
+        }
+        
+        // The closest points are found where the origin projects onto the edge.
+        final int j = edge + 1 < count ? edge + 1 : 0;
+        final float ex = wx[j] - wx[edge];
+        final float ey = wy[j] - wy[edge];
+        final float t = Math.max(0.0f, Math.min(1.0f, -(wx[edge] * ex + wy[edge] * ey) / (ex * ex + ey * ey)));
+        
+        pointAX = a.getVertexX(indexA[edge]) + t * (a.getVertexX(indexA[j]) - a.getVertexX(indexA[edge]));
+        pointAY = a.getVertexY(indexA[edge]) + t * (a.getVertexY(indexA[j]) - a.getVertexY(indexA[edge]));
+        pointBX = b.getVertexX(indexB[edge]) + t * (b.getVertexX(indexB[j]) - b.getVertexX(indexB[edge]));
+        pointBY = b.getVertexY(indexB[edge]) + t * (b.getVertexY(indexB[j]) - b.getVertexY(indexB[edge]));
+        
+        distance = -depth;
+        normalX = nx;
+        normalY = ny;
+    }
+    
+    /**
+     * Constructs a new distance query.
+     */
+    public PolygonDistance() {
+        this.indexA = new int[8];
+        this.indexB = new int[8];
+        this.wx = new float[8];
+        this.wy = new float[8];
+        this.weight = new float[3];
+    }
+    
+    /**
+     * Finds the distance between two polygons, without computing how deep they are 
+     * if they overlap. This is cheaper than a full query and enough to rule out pairs.
+     * @param a first polygon
+     * @param b second polygon
+     * @return distance between the polygons, zero if they touch or overlap
+     */
+    public float findDistance(final ConvexPolygon a, final ConvexPolygon b) {
+        overlapping = runGjk(a, b);
+        
+        if (overlapping) {
+            distance = 0.0f;
+            storeFallbackNormal(a, b);
+        } else {
+            storeSeparation(a, b);
+        }
+        
+        return distance;
+    }
+    
+    /**
+     * Finds the distance between two polygons, or how deep they are in each other. 
+     * @param a first polygon
+     * @param b second polygon
+     * @return true if and only if the polygons touch or overlap
+     */
+    public boolean query(final ConvexPolygon a, final ConvexPolygon b) {
+        overlapping = runGjk(a, b);
+        
+        if (!overlapping) {
+            storeSeparation(a, b);
+        } else {
+            if (count < 3) {
+                storeSeparation(a, b);
+            }
+            
+            if (count == 3 || completeSimplex(a, b)) {
+                runEpa(a, b);
+            } else {
+                distance = 0.0f;
+            }
+        }
+        
+        return overlapping;
+    }
+    
+    /**
+     * @return true if and only if the polygons touched or overlapped in the last query
+     */
+    public boolean isOverlapping() {
+        return overlapping;
+    }
+
+    /**
+     * @return distance between the polygons, or the negated depth of penetration if they overlap
+     */
+    public float getDistance() {
+        return distance;
+    }
+    
+    /**
+     * The normal points from the first polygon towards the second. When the polygons overlap, 
+     * moving the second along it by the depth of penetration separates them.
+     * @return x component of the normal
+     */
+    public float getNormalX() {
+        return normalX;
+    }
+
+    /**
+     * @return y component of the normal
+     */
+    public float getNormalY() {
+        return normalY;
+    }
+    
+    /**
+     * @return x coordinate of the closest or deepest point on the first polygon
+     */
+    public float getPointAX() {
+        return pointAX;
+    }
+
+    /**
+     * @return y coordinate of the closest or deepest point on the first polygon
+     */
+    public float getPointAY() {
+        return pointAY;
+    }
+
+    /**
+     * @return x coordinate of the closest or deepest point on the second polygon
+     */
+    public float getPointBX() {
+        return pointBX;
+    }
+
+    /**
+     * @return y coordinate of the closest or deepest point on the second polygon
+     */
+    public float getPointBY() {
+        return pointBY;
+    }
+}
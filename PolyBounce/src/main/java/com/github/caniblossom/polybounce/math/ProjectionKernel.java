@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+/**
+ * Loops projecting packed polygon coordinates on an axis, which is what the 
+ * separating axis tests spend their time in, along with the loops transforming 
+ * the coordinates and finding their bounds. The implementation used is picked
+ * when the class is loaded, from the system property polybounce.kernel, which
+ * may be "scalar", "fused" or "unrolled", the default. All implementations give 
+ * identical results.
+ * @author Jani Salo
+ */
+public abstract class ProjectionKernel {
+    /**
+     * Name of the system property selecting the implementation.
+     */
+    public static final String PROPERTY = "polybounce.kernel";
+    
+    // Goes through the vertices one at a time.
+    private static class Scalar extends ProjectionKernel {
+        @Override
+        public float projectMinimum(final float[] coordinates, final int vertexCount, final float nx, final float ny) {
+            float min = Float.MAX_VALUE;
+
+            for (int i = 0; i < vertexCount; i++) {
+                min = Math.min(min, nx * coordinates[2 * i] + ny * coordinates[2 * i + 1]);
+            }            
+
+            return min;
+        }
+
+        @Override
+        public float projectMaximum(final float[] coordinates, final int vertexCount, final float nx, final float ny) {
+            float max = -Float.MAX_VALUE;
+
+            for (int i = 0; i < vertexCount; i++) {
+                max = Math.max(max, nx * coordinates[2 * i] + ny * coordinates[2 * i + 1]);
+            }            
+
+            return max;
+        }
+        
+        @Override
+        public boolean doOverlapOnAxis(final float[] a, final int vertexCountA, final float[] b, final int vertexCountB, final float nx, final float ny) {
+            return !(projectMinimum(b, vertexCountB, nx, ny) > projectMaximum(a, vertexCountA, nx, ny) || projectMaximum(b, vertexCountB, nx, ny) < projectMinimum(a, vertexCountA, nx, ny));
+        }
+        
+        @Override
+        public int findExtremeIndex(final float[] coordinates, final int vertexCount, final float nx, final float ny) {
+            int extreme = 0;
+            float max = nx * coordinates[0] + ny * coordinates[1];
+            
+            for (int i = 1; i < vertexCount; i++) {
+                final float p = nx * coordinates[2 * i] + ny * coordinates[2 * i + 1];
+                
+                if (p > max) {
+                    extreme = i;
+                    max = p;
+                }
+            }
+            
+            return extreme;
+        }
+        
+        @Override
+        public void transform(final float[] source, final float[] destination, final int vertexCount, final float ox, final float oy, final float c, final float s, final float tx, final float ty) {
+            for (int i = 0; i < vertexCount; i++) {
+                final float u = source[2 * i] - ox;
+                final float v = source[2 * i + 1] - oy;
+
+                destination[2 * i] = (ox + c * u - s * v) + tx;
+                destination[2 * i + 1] = (oy + s * u + c * v) + ty;
+            }
+        }
+        
+        @Override
+        public void findBounds(final float[] coordinates, final int vertexCount, final AABB output) {
+            output.setEmpty();
+            
+            for (int i = 0; i < vertexCount; i++) {
+                output.include(coordinates[2 * i], coordinates[2 * i + 1]);
+            }
+        }
+        
+        @Override
+        public void includeTransformed(final float[] coordinates, final int vertexCount, final float ox, final float oy, final float c, final float s, final float tx, final float ty, final AABB output) {
+            for (int i = 0; i < vertexCount; i++) {
+                final float u = coordinates[2 * i] - ox;
+                final float v = coordinates[2 * i + 1] - oy;
+
+                output.include((ox + c * u - s * v) + tx, (oy + s * u + c * v) + ty);
+            }
+        }
+    }
+    
+    // Finds the smallest and the largest projection of a polygon on the same pass,
+    // which halves the number of times the coordinates are read when testing overlap.
+    private static class Fused extends Scalar {
+        @Override
+        public boolean doOverlapOnAxis(final float[] a, final int vertexCountA, final float[] b, final int vertexCountB, final float nx, final float ny) {
+            float minA = Float.MAX_VALUE;
+            float maxA = -Float.MAX_VALUE;
+            
+            for (int i = 0; i < vertexCountA; i++) {
+                final float p = nx * a[2 * i] + ny * a[2 * i + 1];
+                minA = Math.min(minA, p);
+                maxA = Math.max(maxA, p);
+            }
+            
+            float minB = Float.MAX_VALUE;
+            float maxB = -Float.MAX_VALUE;
+            
+            for (int i = 0; i < vertexCountB; i++) {
+                final float p = nx * b[2 * i] + ny * b[2 * i + 1];
+                minB = Math.min(minB, p);
+                maxB = Math.max(maxB, p);
+            }
+
+            return !(minB > maxA || maxB < minA);
+        }
+    }
+    
+    // Handles triangles and quads, which make up nearly every hull in the game, 
+    // without loops. A triangle repeats its last vertex in place of the fourth one.
+    private static class Unrolled extends Fused {
+        // Returns true if the polygon has the vertex count of a triangle or a quad.
+        private static boolean isSmall(final int vertexCount) {
+            return vertexCount == 3 || vertexCount == 4;
+        }
+        
+        @Override
+        public float projectMinimum(final float[] coordinates, final int vertexCount, final float nx, final float ny) {
+            if (!isSmall(vertexCount)) {
+                return super.projectMinimum(coordinates, vertexCount, nx, ny);
+            }
+            
+            final float p0 = nx * coordinates[0] + ny * coordinates[1];
+            final float p1 = nx * coordinates[2] + ny * coordinates[3];
+            final float p2 = nx * coordinates[4] + ny * coordinates[5];
+            final float p3 = vertexCount == 4 ? nx * coordinates[6] + ny * coordinates[7] : p2;
+            
+            return Math.min(Math.min(p0, p1), Math.min(p2, p3));
+        }
+
+        @Override
+        public float projectMaximum(final float[] coordinates, final int vertexCount, final float nx, final float ny) {
+            if (!isSmall(vertexCount)) {
+                return super.projectMaximum(coordinates, vertexCount, nx, ny);
+            }
+            
+            final float p0 = nx * coordinates[0] + ny * coordinates[1];
+            final float p1 = nx * coordinates[2] + ny * coordinates[3];
+            final float p2 = nx * coordinates[4] + ny * coordinates[5];
+            final float p3 = vertexCount == 4 ? nx * coordinates[6] + ny * coordinates[7] : p2;
+            
+            return Math.max(Math.max(p0, p1), Math.max(p2, p3));
+        }
+        
+        @Override
+        public boolean doOverlapOnAxis(final float[] a, final int vertexCountA, final float[] b, final int vertexCountB, final float nx, final float ny) {
+            if (!isSmall(vertexCountA) || !isSmall(vertexCountB)) {
+                return super.doOverlapOnAxis(a, vertexCountA, b, vertexCountB, nx, ny);
+            }
+            
+            final float a0 = nx * a[0] + ny * a[1];
+            final float a1 = nx * a[2] + ny * a[3];
+            final float a2 = nx * a[4] + ny * a[5];
+            final float a3 = vertexCountA == 4 ? nx * a[6] + ny * a[7] : a2;
+            
+            final float b0 = nx * b[0] + ny * b[1];
+            final float b1 = nx * b[2] + ny * b[3];
+            final float b2 = nx * b[4] + ny * b[5];
+            final float b3 = vertexCountB == 4 ? nx * b[6] + ny * b[7] : b2;
+            
+            final float minA = Math.min(Math.min(a0, a1), Math.min(a2, a3));
+            final float maxA = Math.max(Math.max(a0, a1), Math.max(a2, a3));
+            final float minB = Math.min(Math.min(b0, b1), Math.min(b2, b3));
+            final float maxB = Math.max(Math.max(b0, b1), Math.max(b2, b3));
+            
+            return !(minB > maxA || maxB < minA);
+        }
+        
+        @Override
+        public int findExtremeIndex(final float[] coordinates, final int vertexCount, final float nx, final float ny) {
+            if (!isSmall(vertexCount)) {
+                return super.findExtremeIndex(coordinates, vertexCount, nx, ny);
+            }
+            
+            final float p0 = nx * coordinates[0] + ny * coordinates[1];
+            final float p1 = nx * coordinates[2] + ny * coordinates[3];
+            final float p2 = nx * coordinates[4] + ny * coordinates[5];
+            
+            // Ties go to the earlier vertex, like in the loop.
+            int extreme = p1 > p0 ? 1 : 0;
+            float max = extreme == 1 ? p1 : p0;
+            
+            if (p2 > max) {
+                extreme = 2;
+                max = p2;
+            }
+            
+            if (vertexCount == 4 && nx * coordinates[6] + ny * coordinates[7] > max) {
+                extreme = 3;
+            }
+            
+            return extreme;
+        }
+        
+        @Override
+        public void transform(final float[] source, final float[] destination, final int vertexCount, final float ox, final float oy, final float c, final float s, final float tx, final float ty) {
+            if (!isSmall(vertexCount)) {
+                super.transform(source, destination, vertexCount, ox, oy, c, s, tx, ty);
+                return;
+            }
+            
+            final float u0 = source[0] - ox;
+            final float v0 = source[1] - oy;
+            final float u1 = source[2] - ox;
+            final float v1 = source[3] - oy;
+            final float u2 = source[4] - ox;
+            final float v2 = source[5] - oy;
+            
+            destination[0] = (ox + c * u0 - s * v0) + tx;
+            destination[1] = (oy + s * u0 + c * v0) + ty;
+            destination[2] = (ox + c * u1 - s * v1) + tx;
+            destination[3] = (oy + s * u1 + c * v1) + ty;
+            destination[4] = (ox + c * u2 - s * v2) + tx;
+            destination[5] = (oy + s * u2 + c * v2) + ty;
+            
+            if (vertexCount == 4) {
+                final float u3 = source[6] - ox;
+                final float v3 = source[7] - oy;
+                
+                destination[6] = (ox + c * u3 - s * v3) + tx;
+                destination[7] = (oy + s * u3 + c * v3) + ty;
+            }
+        }
+        
+        @Override
+        public void findBounds(final float[] coordinates, final int vertexCount, final AABB output) {
+            if (!isSmall(vertexCount)) {
+                super.findBounds(coordinates, vertexCount, output);
+                return;
+            }
+            
+            final float x3 = vertexCount == 4 ? coordinates[6] : coordinates[4];
+            final float y3 = vertexCount == 4 ? coordinates[7] : coordinates[5];
+            
+            output.set(Math.min(Math.min(coordinates[0], coordinates[2]), Math.min(coordinates[4], x3)), 
+                       Math.min(Math.min(coordinates[1], coordinates[3]), Math.min(coordinates[5], y3)), 
+                       Math.max(Math.max(coordinates[0], coordinates[2]), Math.max(coordinates[4], x3)), 
+                       Math.max(Math.max(coordinates[1], coordinates[3]), Math.max(coordinates[5], y3)));
+        }
+        
+        @Override
+        public void includeTransformed(final float[] coordinates, final int vertexCount, final float ox, final float oy, final float c, final float s, final float tx, final float ty, final AABB output) {
+            if (!isSmall(vertexCount)) {
+                super.includeTransformed(coordinates, vertexCount, ox, oy, c, s, tx, ty, output);
+                return;
+            }
+            
+            final float u0 = coordinates[0] - ox;
+            final float v0 = coordinates[1] - oy;
+            final float u1 = coordinates[2] - ox;
+            final float v1 = coordinates[3] - oy;
+            final float u2 = coordinates[4] - ox;
+            final float v2 = coordinates[5] - oy;
+            final float u3 = vertexCount == 4 ? coordinates[6] - ox : u2;
+            final float v3 = vertexCount == 4 ? coordinates[7] - oy : v2;
+            
+            final float x0 = (ox + c * u0 - s * v0) + tx;
+            final float y0 = (oy + s * u0 + c * v0) + ty;
+            final float x1 = (ox + c * u1 - s * v1) + tx;
+            final float y1 = (oy + s * u1 + c * v1) + ty;
+            final float x2 = (ox + c * u2 - s * v2) + tx;
+            final float y2 = (oy + s * u2 + c * v2) + ty;
+            final float x3 = (ox + c * u3 - s * v3) + tx;
+            final float y3 = (oy + s * u3 + c * v3) + ty;
+            
+            output.set(Math.min(output.getXMin(), Math.min(Math.min(x0, x1), Math.min(x2, x3))), 
+                       Math.min(output.getYMin(), Math.min(Math.min(y0, y1), Math.min(y2, y3))), 
+                       Math.max(output.getXMax(), Math.max(Math.max(x0, x1), Math.max(x2, x3))), 
+                       Math.max(output.getYMax(), Math.max(Math.max(y0, y1), Math.max(y2, y3))));
+        }
+    }
+    
+    private static final ProjectionKernel SCALAR = new Scalar();
+    private static final ProjectionKernel FUSED = new Fused();
+    private static final ProjectionKernel UNROLLED = new Unrolled();
+    private static final ProjectionKernel SELECTED = select(System.getProperty(PROPERTY));
+    
+    // Picks an implementation by name, falling back to the default for unknown names.
+    private static ProjectionKernel select(final String name) {
+        if ("scalar".equals(name)) {
+            return SCALAR;
+        } else if ("fused".equals(name)) {
+            return FUSED;
+        }
+        
+        return UNROLLED;
+    }
+
+    /**
+     * @return the implementation selected at startup
+     */
+    public static ProjectionKernel getSelected() {
+        return SELECTED;
+    }
+    
+    /**
+     * @return the implementation going through the vertices one at a time
+     */
+    public static ProjectionKernel getScalar() {
+        return SCALAR;
+    }
+
+    /**
+     * @return the implementation finding both bounds of a polygon on one pass
+     */
+    public static ProjectionKernel getFused() {
+        return FUSED;
+    }
+    
+    /**
+     * @return the implementation without loops for triangles and quads
+     */
+    public static ProjectionKernel getUnrolled() {
+        return UNROLLED;
+    }
+    
+    /**
+     * @param coordinates packed coordinates of the vertices
+     * @param vertexCount number of vertices
+     * @param nx x component of the axis
+     * @param ny y component of the axis
+     * @return smallest projection of the vertices on the axis
+     */
+    public abstract float projectMinimum(final float[] coordinates, final int vertexCount, final float nx, final float ny);
+
+    /**
+     * @param coordinates packed coordinates of the vertices
+     * @param vertexCount number of vertices
+     * @param nx x component of the axis
+     * @param ny y component of the axis
+     * @return largest projection of the vertices on the axis
+     */
+    public abstract float projectMaximum(final float[] coordinates, final int vertexCount, final float nx, final float ny);
+    
+    /**
+     * @param a packed coordinates of the first polygon
+     * @param vertexCountA number of vertices in the first polygon
+     * @param b packed coordinates of the second polygon
+     * @param vertexCountB number of vertices in the second polygon
+     * @param nx x component of the axis
+     * @param ny y component of the axis
+     * @return true if and only if the projections of the polygons on the axis overlap
+     */
+    public abstract boolean doOverlapOnAxis(final float[] a, final int vertexCountA, final float[] b, final int vertexCountB, final float nx, final float ny);
+    
+    /**
+     * @param coordinates packed coordinates of the vertices
+     * @param vertexCount number of vertices
+     * @param nx x component of the axis
+     * @param ny y component of the axis
+     * @return index of the first vertex with the largest projection on the axis
+     */
+    public abstract int findExtremeIndex(final float[] coordinates, final int vertexCount, final float nx, final float ny);
+    
+    /**
+     * Rotates the vertices around a point and then translates them. 
+     * @param source packed coordinates of the vertices
+     * @param destination coordinates to write the transformed vertices to, which may be the source itself
+     * @param vertexCount number of vertices
+     * @param ox x coordinate of the point to rotate around
+     * @param oy y coordinate of the point to rotate around
+     * @param c cosine of the rotation
+     * @param s sine of the rotation
+     * @param tx x component of the translation after rotation
+     * @param ty y component of the translation after rotation
+     */
+    public abstract void transform(final float[] source, final float[] destination, final int vertexCount, final float ox, final float oy, final float c, final float s, final float tx, final float ty);
+    
+    /**
+     * @param coordinates packed coordinates of the vertices
+     * @param vertexCount number of vertices
+     * @param output box to write the bounds of the vertices to
+     */
+    public abstract void findBounds(final float[] coordinates, final int vertexCount, final AABB output);
+    
+    /**
+     * Grows a box to contain the vertices transformed as by {@link #transform}, without writing them anywhere.
+     * @param coordinates packed coordinates of the vertices
+     * @param vertexCount number of vertices
+     * @param ox x coordinate of the point to rotate around
+     * @param oy y coordinate of the point to rotate around
+     * @param c cosine of the rotation
+     * @param s sine of the rotation
+     * @param tx x component of the translation after rotation
+     * @param ty y component of the translation after rotation
+     * @param output box to grow
+     */
+    public abstract void includeTransformed(final float[] coordinates, final int vertexCount, final float ox, final float oy, final float c, final float s, final float tx, final float ty, final AABB output);
+}
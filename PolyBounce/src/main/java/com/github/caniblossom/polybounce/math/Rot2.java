@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+/**
+ * A class representing an immutable rotation as the cosine and sine of its angle.
+ * Rotating with it needs no trigonometry, and rotations can be combined by multiplying.
+ * @author Jani Salo
+ */
+public class Rot2 {
+    /**
+     * Rotation by zero radians.
+     */
+    public static final Rot2 IDENTITY = new Rot2(1.0f, 0.0f);
+    
+    private final float cos;
+    private final float sin;
+    
+    // Constructs a new rotation straight from the cosine and sine.
+    private Rot2(final float cos, final float sin) {
+        this.cos = cos;
+        this.sin = sin;
+    }
+    
+    /**
+     * Constructs a new rotation.
+     * @param angle angle in radians (counter-clockwise)
+     */
+    public Rot2(final float angle) {
+        this((float) Math.cos(angle), (float) Math.sin(angle));
+    }
+    
+    /**
+     * @return cosine of the angle
+     */
+    public float getCos() {
+        return cos;
+    }
+    
+    /**
+     * @return sine of the angle
+     */
+    public float getSin() {
+        return sin;
+    }
+    
+    /**
+     * @return angle in radians within [-pi, pi]
+     */
+    public float getAngle() {
+        return (float) Math.atan2(sin, cos);
+    }
+    
+    /**
+     * @param rhs rotation to apply after this one
+     * @return new rotation representing both rotations
+     */
+    public Rot2 multiply(final Rot2 rhs) {
+        return new Rot2(rhs.cos * cos - rhs.sin * sin, rhs.sin * cos + rhs.cos * sin);
+    }
+    
+    /**
+     * @return new rotation undoing this one
+     */
+    public Rot2 inverse() {
+        return new Rot2(cos, -sin);
+    }
+    
+    /**
+     * @param v vector to rotate around origin
+     * @return new rotated vector
+     */
+    public Vector2 rotate(final Vector2 v) {
+        return new Vector2(cos * v.getX() - sin * v.getY(), sin * v.getX() + cos * v.getY());
+    }
+    
+    /**
+     * @param o rotation to compare to
+     * @return true if and only if the cosines and sines are equal
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof Rot2) {
+            final Rot2 r = (Rot2) o;
+            return cos == r.cos && sin == r.sin;
+        }
+        
+        return false;
+    }
+
+    /**
+     * @return hash
+     */
+    @Override
+    public int hashCode() {
+        int hash = 17;
+        hash = 17 * hash + Float.floatToIntBits(this.cos);
+        hash = 17 * hash + Float.floatToIntBits(this.sin);
+        return hash;
+    }
+    
+    /**
+     * @return a string representing the rotation
+     */
+    @Override
+    public String toString() {
+        return "(cos " + cos + ", sin " + sin + ")";
+    }
+}
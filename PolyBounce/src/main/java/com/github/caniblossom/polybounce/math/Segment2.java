@@ -126,35 +126,68 @@ public class Segment2 {
     }
     
     /**
-     * Intersects another segment against this segment. Considers cases where 
-     * the segments lie on the same line always as non-intersecting.
-     * @param s segment to be intersected against this segment
-     * @return intersection result
+     * Intersects a ray against a wall given as primitive coordinates, without allocating anything.
+     * The normals of the segments are passed in so that they can be computed once for many tests.
+     * Gives exactly the same results as intersecting the equivalent segments as objects, and
+     * likewise considers segments on the same line as non-intersecting.
+     * @param wallAX x coordinate of the start-point of the wall
+     * @param wallAY y coordinate of the start-point of the wall
+     * @param wallRightNormalX x component of the right normal of the wall
+     * @param wallRightNormalY y component of the right normal of the wall
+     * @param wallLength length of the wall
+     * @param rayAX x coordinate of the start-point of the ray
+     * @param rayAY y coordinate of the start-point of the ray
+     * @param rayBX x coordinate of the end-point of the ray
+     * @param rayBY y coordinate of the end-point of the ray
+     * @param rayNormalX x component of the normal of the ray
+     * @param rayNormalY y component of the normal of the ray
+     * @param hit holder to write the distance along the ray and the position of the intersection into
+     * @return true if and only if the segments intersect
      */
-    public Segment2Intersection intersect(final Segment2 s) {
-        final float pa = projectPointOnRightNormal(s.getA());
-        final float pb = projectPointOnRightNormal(s.getB());
+    public static boolean intersect(final float wallAX, final float wallAY, final float wallRightNormalX, final float wallRightNormalY, final float wallLength, 
+                                    final float rayAX, final float rayAY, final float rayBX, final float rayBY, final float rayNormalX, final float rayNormalY, final Segment2Hit hit) {
+        final float pa = wallRightNormalX * (rayAX - wallAX) + wallRightNormalY * (rayAY - wallAY);
+        final float pb = wallRightNormalX * (rayBX - wallAX) + wallRightNormalY * (rayBY - wallAY);
         
         // Return if no intersection is possible or if the segments lie on the same line.
         if (pa * pb > 0.0f || pa == 0.0f && pb == 0.0f) {
-            return new Segment2Intersection();
+            return false;
         } 
 
-        final float shortestDistance = Math.abs(rightNormal.dot(s.getA().difference(getA())));
-        final float cosAngle = Math.abs(rightNormal.dot(s.getNormal())); 
+        final float shortestDistance = Math.abs(pa);
+        final float cosAngle = Math.abs(wallRightNormalX * rayNormalX + wallRightNormalY * rayNormalY); 
         
         // I'm fairly sure that division by zero is impossible here due to the initial test.
         final float distance = shortestDistance / cosAngle;
-        final Vector2 position = s.getA().sum(s.getNormal().scale(distance));
+        final float x = rayAX + distance * rayNormalX;
+        final float y = rayAY + distance * rayNormalY;
+        
+        // At this point we have the intersection on the line defined by the wall. 
+        // The last thing to do is to check whether the intersection lies on the wall itself.
+        final float projection = -wallRightNormalY * (x - wallAX) + wallRightNormalX * (y - wallAY);
+        if (projection < 0.0f || projection > wallLength) {
+            return false;
+        }
+        
+        hit.set(distance, x, y);
+        
+        return true;
+    }
+    
+    /**
+     * Intersects another segment against this segment. Considers cases where 
+     * the segments lie on the same line always as non-intersecting.
+     * @param s segment to be intersected against this segment
+     * @return intersection result
+     */
+    public Segment2Intersection intersect(final Segment2 s) {
+        final Segment2Hit hit = new Segment2Hit();
         
-        // At this point we have the intersection on the line defined by this segment. 
-        // The last thing to do is to check whether the intersection lies on the segment itself.
-        final float projection = projectPointOnNormal(position);
-        if (projection < 0.0f || projection > ab.length()) {
+        if (!intersect(a.getX(), a.getY(), rightNormal.getX(), rightNormal.getY(), ab.length(), s.a.getX(), s.a.getY(), s.b.getX(), s.b.getY(), s.normal.getX(), s.normal.getY(), hit)) {
             return new Segment2Intersection();
         }
         
-        return new Segment2Intersection(distance, position);
+        return new Segment2Intersection(hit.getDistance(), new Vector2(hit.getX(), hit.getY()));
     }
         
     /**
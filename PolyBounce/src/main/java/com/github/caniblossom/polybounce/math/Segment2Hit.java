@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+/**
+ * A reusable holder for the result of intersecting segments given as primitive 
+ * coordinates. It's overwritten by every intersection that hits.
+ * @author Jani Salo
+ */
+public class Segment2Hit {
+    private float distance;
+    private float x, y;
+    
+    // Stores a hit.
+    void set(final float distance, final float x, final float y) {
+        this.distance = distance;
+        this.x = x;
+        this.y = y;
+    }
+    
+    /**
+     * Constructs a new holder with no hit in it.
+     */
+    public Segment2Hit() {
+        this.distance = Float.MAX_VALUE;
+        this.x = 0.0f;
+        this.y = 0.0f;
+    }
+    
+    /**
+     * @return distance to the intersection along the ray
+     */
+    public float getDistance() {
+        return distance;
+    }
+    
+    /**
+     * @return x coordinate of the intersection
+     */
+    public float getX() {
+        return x;
+    }
+
+    /**
+     * @return y coordinate of the intersection
+     */
+    public float getY() {
+        return y;
+    }
+}
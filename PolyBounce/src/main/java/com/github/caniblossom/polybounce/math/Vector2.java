@@ -150,11 +150,21 @@ public class Vector2 {
      * @return new rotated vector
      */
     public Vector2 rotation(final Vector2 origo, final float angle) {
+        return rotation(origo, new Rot2(angle));
+    }
+    
+    /**
+     * Returns a copy of this vector rotated around arbitary point.
+     * @param origo point to rotate around
+     * @param rotation rotation to apply
+     * @return new rotated vector
+     */
+    public Vector2 rotation(final Vector2 origo, final Rot2 rotation) {
         final float u = x - origo.x;
         final float v = y - origo.y;
 
-        final float c = (float) Math.cos(angle);
-        final float s = (float) Math.sin(angle);
+        final float c = rotation.getCos();
+        final float s = rotation.getSin();
         
         // It rotates, but will it blend?
         return new Vector2(origo.x + c * u - s * v, origo.y + s * u + c * v);
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics;
+
+import com.github.caniblossom.polybounce.math.AABB;
+import com.github.caniblossom.polybounce.math.Rot2;
+import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.body.Body;
+import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.StaticBody;
+import java.util.List;
+
+/**
+ * Abstract base class for broad phase collision detection, ie. for finding the
+ * bodies that might possibly collide with a given body during a step.
+ * @author Jani Salo
+ */
+public abstract class BroadPhase {
+    /**
+     * Finds bounds for a body relative to time. The bounds are those of the area 
+     * swept by the hull of the body as the narrow phase predicts it, ie. the convex 
+     * hull of the current hull and the hull moved and rotated by the velocities
+     * of the body over dt.
+     * @param body body to find the bounds for
+     * @param dt change in time
+     * @param output box to write the bounds containing the body during the step to
+     */
+    protected static void computeBounds(final Body body, final float dt, final AABB output) {
+        final Vector2 center = body.getCenterOfMass();
+        final Rot2 motion = body.getMotion(dt);
+        
+        body.getHull().getSweptBounds(center.getX(), center.getY(), motion.getCos(), motion.getSin(), dt * body.getVelocity().getX(), dt * body.getVelocity().getY(), output);
+    }
+
+    /**
+     * Removes all bodies.
+     */
+    public abstract void clear();
+    
+    /**
+     * @param body rigid body to add
+     */
+    public abstract void addRigidBody(final RigidBody body);
+
+    /**
+     * @param body static body to add
+     */
+    public abstract void addStaticBody(final StaticBody body);
+    
+    /**
+     * Brings the internal state up to date with the current state of the bodies.
+     * Must be called after the bodies have moved and before any queries are made.
+     * @param dt change in time for the next step
+     */
+    public abstract void update(final float dt);
+
+    /**
+     * Finds possible intersections for a body. The candidates are symmetric, ie. if a body
+     * is a candidate for another one, the other one is a candidate for it too.
+     * @param output list to add the candidates to, each candidate is added once
+     * @param body body to test
+     * @param dt change in time
+     */
+    public abstract void findPossibleIntersections(final List<Body> output, final Body body, final float dt);
+
+    /**
+     * Finds the bodies whose bounds over the last update overlap a box.
+     * @param output list to add the bodies to, each body is added once
+     * @param bounds box to test
+     */
+    public abstract void findBodiesInBounds(final List<Body> output, final AABB bounds);
+
+    /**
+     * @param list list of rigid bodies to add
+     */
+    public void addRigidBodyList(final List<RigidBody> list) {
+        for (RigidBody body : list) {
+            addRigidBody(body);
+        }
+    }
+    
+    /**
+     * @param list list of static bodies to add
+     */
+    public void addStaticBodyList(final List<StaticBody> list) {
+        for (StaticBody body : list) {
+            addStaticBody(body);
+        }
+    }
+}
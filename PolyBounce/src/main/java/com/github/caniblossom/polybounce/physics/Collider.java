@@ -35,79 +35,186 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * A class for handling collisions between rigid bodies.
+ * A class for handling collisions between rigid bodies. The collisions are turned into 
+ * contact constraints, which are solved together with sequential impulses. Each pass over 
+ * the constraints brings them closer to satisfying all of them at once, and clamping the 
+ * impulses accumulated over the passes instead of each increment keeps them from pulling.
  * See: http://en.wikipedia.org/wiki/Collision_response
  * @author Jani Salo
  */
 public class Collider {        
-    private final static float MIN_IMPULSE = 0.0f;
+    /**
+     * Number of passes over the constraints used unless told otherwise.
+     */
+    public final static int DEFAULT_ITERATION_COUNT = 8;
+    
+    // Portion of the impulses from the previous step applied up front.
+    private final static float WARM_START_FACTOR = 0.8f;
+    
+    // Overlap left uncorrected, so that resting contacts don't keep getting pushed apart.
+    final static float SLOP = 0.005f;
+    
+    // Portion of the overlap beyond the slop corrected per step (Baumgarte stabilization).
+    private final static float BAUMGARTE_FACTOR = 0.2f;
+    
+    // Bodies are only held in place when moving would make them overlap deeper than this.
+    private final static float MAX_PENETRATION = 4.0f * SLOP;
+    
+    // Bodies approaching slower than this don't bounce, which lets resting contacts settle.
+    private final static float RESTITUTION_THRESHOLD = 0.1f;
+
+    // Helper class, a contact constraint between two bodies.
+    private static class Constraint {
+        public Body active;
+        public Body passive;
+        public ContactCache.Contact contact;
+        
+        // Offsets of the contact from the centers of mass, and the normal pointing towards the active body.
+        public float activeX, activeY;
+        public float passiveX, passiveY;
+        public float normalX, normalY;
+        
+        public float normalMass;
+        public float tangentMass;
+        public float friction;
+        
+        // Relative normal velocity the constraint aims for.
+        public float bias;
+    }
 
     private final Solver solver;
-    private final ArrayList<Collision> collisionList;
+    private final ContactCache contactCache;
+    
+    private final ArrayList<Constraint> constraintList;
+    private int constraintCount;
     
-    // Returns the collision impulse magnitude as experienced by the active body. 
-    private float computeImpulseMagnitude(final Body active, final Body passive, final Collision collision, final float restitution) {
-        final Vector2 r1 = collision.getActivePosition().difference(active.getCenterOfMass());
-        final Vector2 r2 = collision.getPassivePosition().difference(passive.getCenterOfMass());
+    // Applies an impulse to a body at an offset from its center of mass.
+    private static void applyImpulse(final Body body, final float rx, final float ry, final float px, final float py) {
+        final float inverseMass = body.getInverseMass();
         
-        final float a = 1.0f / active.getMass() + (float) Math.abs(r1.cross(collision.getNormal())) / active.getMomentOfInertiaAroundCenterOfMass();
-        final float b = 1.0f / passive.getMass() + (float) Math.abs(r2.cross(collision.getNormal())) / passive.getMomentOfInertiaAroundCenterOfMass();
-
-        final Vector2 delta = passive.getVelocityAtPosition(collision.getPassivePosition()).difference(active.getVelocityAtPosition(collision.getActivePosition()));
-        return (1.0f + restitution) * delta.dot(collision.getNormal()) / (a + b);
+        if (inverseMass == 0.0f) {
+            return;
+        }
+        
+        final Vector2 velocity = body.getVelocity();
+        body.setVelocity(new Vector2(velocity.getX() + inverseMass * px, velocity.getY() + inverseMass * py));
+        body.setAngularVelocity(body.getAngularVelocity() + body.getInverseMomentOfInertia() * (rx * py - ry * px));
     }
-
-    // Handles the normal part of the collision.
-    private void handleCollision(final Body active, final Body passive, final Collision collision) {
-        final float restitution = 0.5f * (active.getBounciness() + passive.getBounciness());
-        final float magnitude = computeImpulseMagnitude(active, passive, collision, restitution);
+    
+    // Returns the velocity of the active body relative to the passive one at the contact along a direction.
+    private static float getRelativeVelocity(final Constraint c, final float dx, final float dy) {
+        final Vector2 activeVelocity = c.active.getVelocity();
+        final Vector2 passiveVelocity = c.passive.getVelocity();
+        final float activeAngular = c.active.getAngularVelocity();
+        final float passiveAngular = c.passive.getAngularVelocity();
         
-        // Due to the simplicity of the collision algorithm, a minimum bump needs 
-        // to be added to each collision to avoid objects getting stuck to each other.
-        final float activeMagnitude = magnitude > active.getMass() * MIN_IMPULSE ? magnitude : active.getMass() * MIN_IMPULSE;
-        final float passiveMagnitude = magnitude > passive.getMass() * MIN_IMPULSE ? -magnitude : passive.getMass() * -MIN_IMPULSE;
+        final float vx = activeVelocity.getX() - activeAngular * c.activeY - passiveVelocity.getX() + passiveAngular * c.passiveY;
+        final float vy = activeVelocity.getY() + activeAngular * c.activeX - passiveVelocity.getY() - passiveAngular * c.passiveX;
         
-        active.applyImpulse(collision.getActivePosition(), collision.getNormal().scale(activeMagnitude));
-        passive.applyImpulse(collision.getPassivePosition(), collision.getNormal().scale(passiveMagnitude));  
-    } 
-
-    // Handles friction for a collision.
-    private void handleFriction(final Body active, final Body passive, final Collision collision) {
-        final Vector2 tangent = new Vector2(-collision.getNormal().getY(), collision.getNormal().getX());
-        Collision frictionCollision = new Collision(collision.getDistance(), collision.getActivePosition(), collision.getPassivePosition(), tangent);
-
-        float magnitude = computeImpulseMagnitude(active, passive, frictionCollision, 1.0f);
-
-        // This is very unlikely to be the "correct" way to compute this stuff.
-        final float staticFriction = 0.5f * (active.getStaticFriction() + passive.getStaticFriction());
-        final float dynamicFriction = 0.5f * (active.getDynamicFriction() + passive.getDynamicFriction());
+        return vx * dx + vy * dy;
+    }
+    
+    // Returns the inverse of the impulse needed to change the relative velocity at the contact by one along a direction.
+    private static float getInverseEffectiveMass(final Constraint c, final float dx, final float dy) {
+        final float activeArm = c.activeX * dy - c.activeY * dx;
+        final float passiveArm = c.passiveX * dy - c.passiveY * dx;
+        
+        return c.active.getInverseMass() + c.passive.getInverseMass() + c.active.getInverseMomentOfInertia() * activeArm * activeArm + c.passive.getInverseMomentOfInertia() * passiveArm * passiveArm;
+    }
+    
+    // Applies an impulse along the normal and the tangent of the contact, to the active body and against the passive one.
+    private static void applyContactImpulse(final Constraint c, final float normalImpulse, final float tangentImpulse) {
+        final float px = normalImpulse * c.normalX - tangentImpulse * c.normalY;
+        final float py = normalImpulse * c.normalY + tangentImpulse * c.normalX;
         
-        final Vector2 delta = passive.getVelocityAtPosition(collision.getPassivePosition()).difference(active.getVelocityAtPosition(collision.getActivePosition()));
-        if (Math.abs(collision.getNormal().dot(delta)) < (1.0f - staticFriction)) {
-            magnitude *= dynamicFriction;
+        applyImpulse(c.active, c.activeX, c.activeY, px, py);
+        applyImpulse(c.passive, c.passiveX, c.passiveY, -px, -py);
+    }
+    
+    // Takes a constraint from the pool.
+    private Constraint allocateConstraint() {
+        if (constraintCount == constraintList.size()) {
+            constraintList.add(new Constraint());
         }
         
-        active.applyImpulse(collision.getActivePosition(), tangent.scale(magnitude));
-        passive.applyImpulse(collision.getPassivePosition(), tangent.scale(-magnitude));  
-    } 
-
-    // Prevents the objects from getting stuck to each other.
-    private void fixBrokenPhysics(final Body active, final Body passive, final Collision collision, final float amountToFix) {
-        final float activeAgainstNormal = Math.max(0.0f, -active.getVelocityAtPosition(collision.getActivePosition()).dot(collision.getNormal()));
-        active.applyImpulse(collision.getActivePosition(), collision.getNormal().scale(amountToFix * active.getMass() * activeAgainstNormal));
-
-        final float passiveAgainstNormal = Math.max(0.0f, passive.getVelocityAtPosition(collision.getPassivePosition()).dot(collision.getNormal()));
-        passive.applyImpulse(collision.getPassivePosition(), collision.getNormal().scale(amountToFix * passive.getMass() * passiveAgainstNormal));
+        return constraintList.get(constraintCount++);
+    }
+    
+    // Sets up a constraint for a collision.
+    private void prepareConstraint(final Constraint c, final Body active, final Body passive, final Collision collision, final ContactCache.Contact contact, final float dt) {
+        final Vector2 activeCenter = active.getCenterOfMass();
+        final Vector2 passiveCenter = passive.getCenterOfMass();
+        
+        c.active = active;
+        c.passive = passive;
+        c.contact = contact;
+        c.activeX = collision.getActiveX() - activeCenter.getX();
+        c.activeY = collision.getActiveY() - activeCenter.getY();
+        c.passiveX = collision.getPassiveX() - passiveCenter.getX();
+        c.passiveY = collision.getPassiveY() - passiveCenter.getY();
+        c.normalX = collision.getNormalX();
+        c.normalY = collision.getNormalY();
+        
+        final float normalK = getInverseEffectiveMass(c, c.normalX, c.normalY);
+        final float tangentK = getInverseEffectiveMass(c, -c.normalY, c.normalX);
+        
+        c.normalMass = normalK > 0.0f ? 1.0f / normalK : 0.0f;
+        c.tangentMass = tangentK > 0.0f ? 1.0f / tangentK : 0.0f;
+        c.friction = 0.5f * Math.max(active.getStaticFriction() + passive.getStaticFriction(), active.getDynamicFriction() + passive.getDynamicFriction());
+        
+        // A gap may be closed during the step, while an overlap beyond the slop is pushed out gradually.
+        final float separation = (collision.getActiveX() - collision.getPassiveX()) * c.normalX + (collision.getActiveY() - collision.getPassiveY()) * c.normalY;
+        c.bias = separation > 0.0f ? -separation / dt : BAUMGARTE_FACTOR * Math.max(0.0f, -separation - SLOP) / dt;
+        
+        final float restitution = 0.5f * (active.getBounciness() + passive.getBounciness());
+        final float approach = getRelativeVelocity(c, c.normalX, c.normalY);
+        
+        if (approach < -RESTITUTION_THRESHOLD) {
+            c.bias = Math.max(c.bias, -restitution * approach);
+        }
+    }
+    
+    // Solves the normal impulse and then friction of a single constraint. Solving friction 
+    // last keeps the accumulated impulses within the friction cone after every pass.
+    private static void solveConstraint(final Constraint c) {
+        final ContactCache.Contact contact = c.contact;
+        
+        // The accumulated impulse is clamped instead of the increment, so that
+        // an impulse that turns out to be too large can be taken back.
+        final float oldNormalImpulse = contact.getNormalImpulse();
+        final float normalImpulse = Math.max(0.0f, oldNormalImpulse + c.normalMass * (c.bias - getRelativeVelocity(c, c.normalX, c.normalY)));
+        
+        contact.setNormalImpulse(normalImpulse);
+        applyContactImpulse(c, normalImpulse - oldNormalImpulse, 0.0f);
+        
+        // Friction is kept within the friction cone of the accumulated normal impulse.
+        final float maxTangentImpulse = c.friction * normalImpulse;
+        final float oldTangentImpulse = contact.getTangentImpulse();
+        final float tangentImpulse = Math.max(-maxTangentImpulse, Math.min(maxTangentImpulse, oldTangentImpulse - c.tangentMass * getRelativeVelocity(c, -c.normalY, c.normalX)));
+        
+        contact.setTangentImpulse(tangentImpulse);
+        applyContactImpulse(c, 0.0f, tangentImpulse - oldTangentImpulse);
     }
     
     /**
-     * Constructs a new collider.
+     * Constructs a new collider with a contact cache of its own.
      */
     public Collider() {
-        solver = new Solver();
-        collisionList = new ArrayList();
+        this(new ContactCache());
     }
-
+    
+    /**
+     * Constructs a new collider. Colliders sharing a cache may be used concurrently 
+     * on different threads as long as they never handle the same pair of bodies.
+     * @param contactCache cache to keep the contacts in
+     */
+    public Collider(final ContactCache contactCache) {
+        this.solver = new Solver();
+        this.contactCache = contactCache;
+        this.constraintList = new ArrayList();
+        this.constraintCount = 0;
+    }
+    
     /**
      * @param active body to be updated
      * @param passiveList list of passive bodies to test intersection against
@@ -130,13 +237,13 @@ public class Collider {
         return true;
     }
 
-    /** 
-     * Tests the motion of the active body against passive bodies and handles any collisions that might occur.
-     * @param active body to be collided
-     * @param passiveList list of passive bodies to collide against
+    /**
+     * @param active body to be updated
+     * @param passiveList list of passive bodies to test penetration against
      * @param dt change in time
+     * @return true if and only if updating the active body doesn't make it overlap any passive body deeper than the solver allows
      */
-    public void collide(final Body active, final List<Body> passiveList, final float dt) {
+    public boolean canUpdateWithoutPenetrating(final Body active, final List<Body> passiveList, final float dt) {
         assert dt != 0.0f;
 
         for (Body passive : passiveList) {
@@ -144,18 +251,70 @@ public class Collider {
                 continue;
             }
             
-            collisionList.clear();
-            solver.findCollisions(collisionList, active, passive, dt);
- 
-            // This seems to make no difference.
-            // Collections.sort(collisionList);
+            if (solver.wouldPenetrate(active, passive, dt, MAX_PENETRATION)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds the collisions already found between two bodies as constraints to be solved.
+     * Contacts that persist from the previous step are warm started with the impulses accumulated on them
+     * once the constraints are solved.
+     * Sleeping passive bodies that get hit are woken up, it's up to the caller to start updating them.
+     * @param active active or primary body
+     * @param passive passive or secondary body
+     * @param collisionList collisions found between the bodies
+     * @param dt change in time
+     */
+    public void addCollisions(final Body active, final Body passive, final CollisionList collisionList, final float dt) {
+        if (collisionList.isEmpty()) {
+            return;
+        }
+
+        // Getting hit by an awake body wakes a sleeping one.
+        if (passive.isSleeping()) {
+            passive.wake();
+        }
+
+        final List<ContactCache.Contact> contactList = contactCache.updateContacts(active, passive, collisionList);
+
+        for (int i = 0; i < collisionList.size(); i++) {
+            prepareConstraint(allocateConstraint(), active, passive, collisionList.get(i), contactList.get(i), dt);
+        }
+    }
+    
+    /**
+     * Solves the constraints added since the last time, and removes them. The constraints 
+     * are warm started only now, so that the bounce of each one is based on the velocities 
+     * the bodies had before any impulses were applied, regardless of the order they were added in.
+     * @param iterationCount number of passes over the constraints
+     */
+    public void solveCollisions(final int iterationCount) {
+        for (int i = 0; i < constraintCount; i++) {
+            final Constraint c = constraintList.get(i);
+            final ContactCache.Contact contact = c.contact;
             
-            for (Collision collision : collisionList) {
-                handleCollision(active, passive, collision);
-                handleFriction(active, passive, collision);
-                
-                fixBrokenPhysics(active, passive, collision, 0.999f);
+            contact.setNormalImpulse(WARM_START_FACTOR * contact.getNormalImpulse());
+            contact.setTangentImpulse(WARM_START_FACTOR * contact.getTangentImpulse());
+            applyContactImpulse(c, contact.getNormalImpulse(), contact.getTangentImpulse());
+        }
+        
+        for (int iteration = 0; iteration < iterationCount; iteration++) {
+            for (int i = 0; i < constraintCount; i++) {
+                solveConstraint(constraintList.get(i));
             }
         }
+        
+        for (int i = 0; i < constraintCount; i++) {
+            final Constraint c = constraintList.get(i);
+            c.active = null;
+            c.passive = null;
+            c.contact = null;
+        }
+        
+        constraintCount = 0;
     }
 }
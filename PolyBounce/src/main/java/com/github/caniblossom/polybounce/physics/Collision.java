@@ -32,14 +32,16 @@ package com.github.caniblossom.polybounce.physics;
 import com.github.caniblossom.polybounce.math.Vector2;
 
 /**
- * A class for representing an collision between two physics bodies.
+ * A class for representing an collision between two physics bodies. The positions and
+ * the normal are kept as floats, so that a collision can be reused for another one, and 
+ * are only wrapped in vectors when asked for.
  * @author Jani Salo
  */
 public class Collision implements Comparable<Collision> {
-    private final float distance;
-    private final Vector2 activePosition;
-    private final Vector2 passivePosition;
-    private final Vector2 normal;
+    private float distance;
+    private float activeX, activeY;
+    private float passiveX, passiveY;
+    private float normalX, normalY;
 
     /**
      * Constructs a new collision.
@@ -49,10 +51,41 @@ public class Collision implements Comparable<Collision> {
      * @param normal collision normal
      */
     public Collision(final float distance, final Vector2 activePosition, final Vector2 passivePosition, final Vector2 normal) {
-        this.distance        = distance;
-        this.activePosition  = activePosition;
-        this.passivePosition = passivePosition;
-        this.normal          = normal;
+        this(distance, activePosition.getX(), activePosition.getY(), passivePosition.getX(), passivePosition.getY(), normal.getX(), normal.getY());
+    }
+    
+    /**
+     * Constructs a new collision.
+     * @param distance collision distance
+     * @param activeX x coordinate of the collision position for active body
+     * @param activeY y coordinate of the collision position for active body
+     * @param passiveX x coordinate of the collision position for passive body
+     * @param passiveY y coordinate of the collision position for passive body
+     * @param normalX x component of the collision normal
+     * @param normalY y component of the collision normal
+     */
+    public Collision(final float distance, final float activeX, final float activeY, final float passiveX, final float passiveY, final float normalX, final float normalY) {
+        set(distance, activeX, activeY, passiveX, passiveY, normalX, normalY);
+    }
+    
+    /**
+     * Overwrites the collision with another one.
+     * @param distance collision distance
+     * @param activeX x coordinate of the collision position for active body
+     * @param activeY y coordinate of the collision position for active body
+     * @param passiveX x coordinate of the collision position for passive body
+     * @param passiveY y coordinate of the collision position for passive body
+     * @param normalX x component of the collision normal
+     * @param normalY y component of the collision normal
+     */
+    public void set(final float distance, final float activeX, final float activeY, final float passiveX, final float passiveY, final float normalX, final float normalY) {
+        this.distance = distance;
+        this.activeX  = activeX;
+        this.activeY  = activeY;
+        this.passiveX = passiveX;
+        this.passiveY = passiveY;
+        this.normalX  = normalX;
+        this.normalY  = normalY;
     }
     
     /**
@@ -66,21 +99,63 @@ public class Collision implements Comparable<Collision> {
      * @return intersection position for the active body
      */
     public Vector2 getActivePosition() {
-        return activePosition;
+        return new Vector2(activeX, activeY);
+    }
+
+    /**
+     * @return x coordinate of the intersection position for the active body
+     */
+    public float getActiveX() {
+        return activeX;
+    }
+
+    /**
+     * @return y coordinate of the intersection position for the active body
+     */
+    public float getActiveY() {
+        return activeY;
     }
 
     /**
      * @return intersection position for the passive body
      */
     public Vector2 getPassivePosition() {
-        return passivePosition;
+        return new Vector2(passiveX, passiveY);
+    }
+
+    /**
+     * @return x coordinate of the intersection position for the passive body
+     */
+    public float getPassiveX() {
+        return passiveX;
+    }
+
+    /**
+     * @return y coordinate of the intersection position for the passive body
+     */
+    public float getPassiveY() {
+        return passiveY;
     }
 
     /**
      * @return intersection normal
      */
     public Vector2 getNormal() {
-        return normal;
+        return new Vector2(normalX, normalY);
+    }
+
+    /**
+     * @return x component of the intersection normal
+     */
+    public float getNormalX() {
+        return normalX;
+    }
+
+    /**
+     * @return y component of the intersection normal
+     */
+    public float getNormalY() {
+        return normalY;
     }
     
     /**
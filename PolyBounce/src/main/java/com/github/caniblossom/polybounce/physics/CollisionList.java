@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics;
+
+import java.util.ArrayList;
+
+/**
+ * A list of collisions that keeps its collisions when cleared and overwrites them
+ * when new ones are added, so that the narrow phase allocates nothing once the 
+ * lists have grown to the number of collisions found per pair.
+ * @author Jani Salo
+ */
+public class CollisionList {
+    private final ArrayList<Collision> collisionList;
+    private int size;
+    
+    /**
+     * Constructs a new empty list.
+     */
+    public CollisionList() {
+        this.collisionList = new ArrayList();
+        this.size = 0;
+    }
+    
+    /**
+     * Removes all collisions, keeping them to be reused.
+     */
+    public void clear() {
+        size = 0;
+    }
+    
+    /**
+     * @return number of collisions in the list
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * @return true if and only if the list has no collisions
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * @param index index of the collision
+     * @return collision at the index, valid until the list is cleared
+     */
+    public Collision get(final int index) {
+        assert index >= 0 && index < size;
+        
+        return collisionList.get(index);
+    }
+    
+    /**
+     * Adds a collision to the end of the list.
+     * @param distance collision distance
+     * @param activeX x coordinate of the collision position for active body
+     * @param activeY y coordinate of the collision position for active body
+     * @param passiveX x coordinate of the collision position for passive body
+     * @param passiveY y coordinate of the collision position for passive body
+     * @param normalX x component of the collision normal
+     * @param normalY y component of the collision normal
+     */
+    public void add(final float distance, final float activeX, final float activeY, final float passiveX, final float passiveY, final float normalX, final float normalY) {
+        if (size == collisionList.size()) {
+            collisionList.add(new Collision(distance, activeX, activeY, passiveX, passiveY, normalX, normalY));
+        } else {
+            collisionList.get(size).set(distance, activeX, activeY, passiveX, passiveY, normalX, normalY);
+        }
+        
+        size++;
+    }
+}
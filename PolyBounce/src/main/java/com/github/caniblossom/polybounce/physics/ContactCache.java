@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics;
+
+import com.github.caniblossom.polybounce.physics.body.Body;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A class for keeping contacts between pairs of bodies, and the impulses
+ * accumulated on them, across steps. New contacts are matched against the
+ * contacts of the previous step so that their impulses can be warm started.
+ * Pairs that don't touch during a step are dropped at the end of it. A pair 
+ * is the same whichever of its bodies is active, as that depends on the order
+ * the bodies are woken in.
+ * <p>
+ * Contacts of different pairs may be updated concurrently, as long as
+ * each pair is only updated by one thread and beginning and ending 
+ * the steps is done while no updates are running.
+ * @author Jani Salo
+ */
+public class ContactCache {
+    /**
+     * A contact point with accumulated impulses.
+     */
+    public static class Contact {
+        private float x, y;
+        private float px, py;
+        private float nx, ny;
+        
+        private float normalImpulse;
+        private float tangentImpulse;
+        private boolean matched;
+        
+        // Sets the geometry of the contact and clears the impulses.
+        private void set(final Collision collision) {
+            x = collision.getActiveX();
+            y = collision.getActiveY();
+            px = collision.getPassiveX();
+            py = collision.getPassiveY();
+            nx = collision.getNormalX();
+            ny = collision.getNormalY();
+            
+            normalImpulse = 0.0f;
+            tangentImpulse = 0.0f;
+            matched = false;
+        }
+        
+        // Swaps the roles of the bodies. The impulses on the new active body are the opposites 
+        // of those on the old one, so with the normal and tangent flipped they keep their signs.
+        private void flip() {
+            final float tx = x;
+            final float ty = y;
+            
+            x = px;
+            y = py;
+            px = tx;
+            py = ty;
+            nx = -nx;
+            ny = -ny;
+        }
+        
+        /**
+         * @return impulse accumulated along the contact normal
+         */
+        public float getNormalImpulse() {
+            return normalImpulse;
+        }
+
+        /**
+         * @return impulse accumulated along the contact tangent
+         */
+        public float getTangentImpulse() {
+            return tangentImpulse;
+        }
+
+        /**
+         * @param impulse new accumulated normal impulse
+         */
+        public void setNormalImpulse(final float impulse) {
+            normalImpulse = impulse;
+        }
+
+        /**
+         * @param impulse new accumulated tangent impulse
+         */
+        public void setTangentImpulse(final float impulse) {
+            tangentImpulse = impulse;
+        }
+    }
+    
+    // Helper class, equal for both orders of the same bodies.
+    private static class PairKey {
+        public Body active;
+        public Body passive;
+        
+        public PairKey(final Body active, final Body passive) {
+            this.active = active;
+            this.passive = passive;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof PairKey) {
+                final PairKey key = (PairKey) o;
+                return (active == key.active && passive == key.passive) || (active == key.passive && passive == key.active);
+            }
+            
+            return false;
+        }
+        
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(active) + System.identityHashCode(passive);
+        }
+    }
+    
+    // Helper class.
+    private static class Manifold {
+        public ArrayList<Contact> contactList = new ArrayList();
+        public ArrayList<Contact> previousList = new ArrayList();
+        public final ArrayList<Contact> spareList = new ArrayList();
+        public int lastStep = 0;
+        
+        // Body the contacts are oriented from.
+        public Body active;
+        
+        public Manifold(final Body active) {
+            this.active = active;
+        }
+        
+        // Orients the contacts from given body, flipping them if the pair comes in reversed.
+        public void orient(final Body body) {
+            if (active == body) {
+                return;
+            }
+            
+            for (Contact contact : contactList) {
+                contact.flip();
+            }
+            
+            active = body;
+        }
+        
+        // Takes a contact from the spares of this pair.
+        public Contact allocateContact() {
+            if (spareList.isEmpty()) {
+                return new Contact();
+            }
+
+            return spareList.remove(spareList.size() - 1);
+        }
+    }
+    
+    // Contacts closer than this with similar normals are considered the same.
+    private static final float MATCH_DISTANCE = 0.05f;
+    private static final float MATCH_NORMAL_COSINE = 0.95f;
+    
+    private final ConcurrentHashMap<PairKey, Manifold> manifoldMap;
+    
+    // Key for looking pairs up, one per thread so that lookups don't allocate. 
+    private final ThreadLocal<PairKey> probeKey = new ThreadLocal<PairKey>() {
+        @Override
+        protected PairKey initialValue() {
+            return new PairKey(null, null);
+        }
+    };
+    
+    private int step;
+    
+    // Finds an unmatched contact from the previous step corresponding to the new one.
+    private static Contact findMatch(final List<Contact> previousList, final Contact contact) {
+        Contact best = null;
+        float bestDistance = MATCH_DISTANCE * MATCH_DISTANCE;
+        
+        for (Contact candidate : previousList) {
+            if (candidate.matched || candidate.nx * contact.nx + candidate.ny * contact.ny < MATCH_NORMAL_COSINE) {
+                continue;
+            }
+            
+            final float dx = candidate.x - contact.x;
+            final float dy = candidate.y - contact.y;
+            final float distance = dx * dx + dy * dy;
+            
+            if (distance <= bestDistance) {
+                best = candidate;
+                bestDistance = distance;
+            }
+        }
+        
+        return best;
+    }
+    
+    // Looks up the manifold of a pair, clearing the probe afterwards so that it doesn't keep the bodies alive.
+    private Manifold findManifold(final Body active, final Body passive) {
+        final PairKey key = probeKey.get();
+        key.active = active;
+        key.passive = passive;
+        
+        final Manifold manifold = manifoldMap.get(key);
+        key.active = null;
+        key.passive = null;
+        
+        return manifold;
+    }
+    
+    /**
+     * Constructs a new empty cache.
+     */
+    public ContactCache() {
+        this.manifoldMap = new ConcurrentHashMap();
+        this.step = 0;
+    }
+    
+    /**
+     * Starts a new step.
+     */
+    public void beginStep() {
+        step++;
+    }
+
+    /**
+     * Ends the current step, dropping all pairs that weren't in contact during it.
+     */
+    public void endStep() {
+        final Iterator<Map.Entry<PairKey, Manifold>> iterator = manifoldMap.entrySet().iterator();
+        
+        while (iterator.hasNext()) {
+            final Manifold manifold = iterator.next().getValue();
+            
+            if (manifold.lastStep != step) {
+                iterator.remove();
+            }
+        }
+    }
+    
+    /**
+     * Removes all pairs.
+     */
+    public void clear() {
+        manifoldMap.clear();
+    }
+    
+    /**
+     * @param active active or primary body
+     * @param passive passive or secondary body
+     * @return contacts of the pair from the latest step it was updated on oriented from the active body, empty if the pair isn't cached
+     */
+    public List<Contact> getContacts(final Body active, final Body passive) {
+        final Manifold manifold = findManifold(active, passive);
+        
+        if (manifold == null) {
+            return Collections.emptyList();
+        }
+        
+        manifold.orient(active);
+        return Collections.unmodifiableList(manifold.contactList);
+    }
+    
+    /**
+     * Replaces the contacts of a pair with new ones. Every new contact that matches 
+     * a contact from the previous step of the pair inherits its accumulated impulses.
+     * @param active active or primary body
+     * @param passive passive or secondary body
+     * @param collisionList new collisions between the bodies
+     * @return contacts in the same order as the collisions, valid until the pair is updated again
+     */
+    public List<Contact> updateContacts(final Body active, final Body passive, final CollisionList collisionList) {
+        Manifold manifold = findManifold(active, passive);
+        
+        // Only a new pair allocates its key and manifold.
+        if (manifold == null) {
+            manifold = new Manifold(active);
+            manifoldMap.put(new PairKey(active, passive), manifold);
+        }
+        
+        manifold.orient(active);
+
+        // Pairs that were not in contact during the previous step have nothing to inherit.
+        if (manifold.lastStep != step - 1) {
+            manifold.spareList.addAll(manifold.contactList);
+            manifold.contactList.clear();
+        }
+        
+        final ArrayList<Contact> previousList = manifold.contactList;
+        manifold.contactList = manifold.previousList;
+        manifold.previousList = previousList;
+        manifold.lastStep = step;
+        
+        for (int i = 0; i < collisionList.size(); i++) {
+            final Contact contact = manifold.allocateContact();
+            contact.set(collisionList.get(i));
+
+            final Contact match = findMatch(previousList, contact);
+            
+            if (match != null) {
+                match.matched = true;
+                contact.normalImpulse = match.normalImpulse;
+                contact.tangentImpulse = match.tangentImpulse;
+            }
+            
+            manifold.contactList.add(contact);
+        }
+        
+        manifold.spareList.addAll(previousList);
+        previousList.clear();
+        
+        return manifold.contactList;
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics;
+
+import com.github.caniblossom.polybounce.math.AABB;
+import com.github.caniblossom.polybounce.physics.body.Body;
+import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.StaticBody;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A broad phase based on a dynamic bounding volume hierarchy of axis aligned boxes.
+ * Every body is a leaf with a fattened box, and a moving body is only reinserted 
+ * once its bounds over a step leave the fattened box. The tree is kept balanced 
+ * with rotations, so queries take logarithmic time regardless of the body sizes
+ * or the extent of the world.
+ * See: http://en.wikipedia.org/wiki/Bounding_volume_hierarchy
+ * @author Jani Salo
+ */
+public class DynamicAABBTree extends BroadPhase {
+    // Helper class.
+    private static class Node {
+        public Node parent = null;
+        public Node left = null;
+        public Node right = null;
+        public int height = 0;
+
+        // Fattened bounds for leaves, bounds of the children for branches.
+        public final AABB bounds = new AABB();
+        
+        // Only used by leaves, bounds swept over the step.
+        public Body body = null;
+        public boolean isStatic = false;
+        public boolean asleep = false;
+        public AABB stepBounds = null;
+        
+        public boolean isLeaf() {
+            return left == null;
+        }
+        
+        public float getPerimeter() {
+            return 2.0f * (bounds.getXMax() - bounds.getXMin() + bounds.getYMax() - bounds.getYMin());
+        }
+        
+        public void setToUnion(final Node a, final Node b) {
+            bounds.setToUnion(a.bounds, b.bounds);
+        }
+    }
+    
+    // Margin added to the bounds of moving bodies when they are inserted.
+    private static final float FAT_MARGIN = 0.25f;
+    
+    private Node root;
+    
+    private final ArrayList<Node> leafList;
+    private final IdentityHashMap<Body, Node> leafMap;
+    
+    private final ArrayList<Node> freeBranchList;
+    private final ArrayList<Node> queryStack;
+    
+    // Returns the perimeter of the union of two nodes.
+    private static float getUnionPerimeter(final Node a, final Node b) {
+        final float width = Math.max(a.bounds.getXMax(), b.bounds.getXMax()) - Math.min(a.bounds.getXMin(), b.bounds.getXMin());
+        final float height = Math.max(a.bounds.getYMax(), b.bounds.getYMax()) - Math.min(a.bounds.getYMin(), b.bounds.getYMin());
+        return 2.0f * (width + height);
+    }
+
+    // Returns a recycled branch node if there is one.
+    private Node allocateBranch() {
+        if (freeBranchList.isEmpty()) {
+            return new Node();
+        }
+        
+        return freeBranchList.remove(freeBranchList.size() - 1);
+    }
+    
+    // Returns a branch node to the pool.
+    private void freeBranch(final Node node) {
+        node.parent = null;
+        node.left = null;
+        node.right = null;
+        node.height = 0;
+        
+        freeBranchList.add(node);
+    }
+    
+    // Replaces a child of the parent or the root if there is no parent.
+    private void replaceChild(final Node parent, final Node oldChild, final Node newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else {
+            parent.right = newChild;
+        }
+    }
+    
+    // Rotates the subtree rooted at given node if it's imbalanced, returns the new root of the subtree.
+    private Node balance(final Node a) {
+        if (a.isLeaf() || a.height < 2) {
+            return a;
+        }
+        
+        final Node b = a.left;
+        final Node c = a.right;
+        final int balance = c.height - b.height;
+        
+        if (balance > 1) {
+            // Rotate c up.
+            final Node f = c.left;
+            final Node g = c.right;
+            
+            c.left = a;
+            c.parent = a.parent;
+            a.parent = c;
+            replaceChild(c.parent, a, c);
+            
+            final Node up = f.height > g.height ? f : g;
+            final Node down = f.height > g.height ? g : f;
+            
+            c.right = up;
+            a.right = down;
+            down.parent = a;
+            
+            a.setToUnion(b, down);
+            c.setToUnion(a, up);
+            a.height = 1 + Math.max(b.height, down.height);
+            c.height = 1 + Math.max(a.height, up.height);
+            
+            return c;
+        } else if (balance < -1) {
+            // Rotate b up.
+            final Node d = b.left;
+            final Node e = b.right;
+            
+            b.left = a;
+            b.parent = a.parent;
+            a.parent = b;
+            replaceChild(b.parent, a, b);
+            
+            final Node up = d.height > e.height ? d : e;
+            final Node down = d.height > e.height ? e : d;
+            
+            b.right = up;
+            a.left = down;
+            down.parent = a;
+            
+            a.setToUnion(c, down);
+            b.setToUnion(a, up);
+            a.height = 1 + Math.max(c.height, down.height);
+            b.height = 1 + Math.max(a.height, up.height);
+            
+            return b;
+        }
+        
+        return a;
+    }
+    
+    // Walks from a node to the root, balancing and refitting every node on the way.
+    private void refitUpwards(Node node) {
+        while (node != null) {
+            node = balance(node);
+            
+            node.height = 1 + Math.max(node.left.height, node.right.height);
+            node.setToUnion(node.left, node.right);
+            
+            node = node.parent;
+        }
+    }
+    
+    // Finds the best sibling for a new leaf using the surface area heuristic.
+    private Node findBestSibling(final Node leaf) {
+        Node node = root;
+        
+        while (!node.isLeaf()) {
+            final float combinedPerimeter = getUnionPerimeter(node, leaf);
+            
+            // Cost of creating a new parent for this node and the new leaf, and
+            // the minimum cost of pushing the leaf further down the tree.
+            final float cost = 2.0f * combinedPerimeter;
+            final float inheritanceCost = 2.0f * (combinedPerimeter - node.getPerimeter());
+            
+            final float leftCost = getUnionPerimeter(leaf, node.left) - (node.left.isLeaf() ? 0.0f : node.left.getPerimeter()) + inheritanceCost;
+            final float rightCost = getUnionPerimeter(leaf, node.right) - (node.right.isLeaf() ? 0.0f : node.right.getPerimeter()) + inheritanceCost;
+            
+            if (cost < leftCost && cost < rightCost) {
+                break;
+            }
+            
+            node = leftCost < rightCost ? node.left : node.right;
+        }
+        
+        return node;
+    }
+    
+    // Inserts a leaf into the tree.
+    private void insertLeaf(final Node leaf) {
+        if (root == null) {
+            root = leaf;
+            leaf.parent = null;
+            return;
+        }
+        
+        final Node sibling = findBestSibling(leaf);
+        final Node oldParent = sibling.parent;
+        final Node newParent = allocateBranch();
+        
+        newParent.parent = oldParent;
+        newParent.setToUnion(leaf, sibling);
+        newParent.height = sibling.height + 1;
+        replaceChild(oldParent, sibling, newParent);
+        
+        newParent.left = sibling;
+        newParent.right = leaf;
+        sibling.parent = newParent;
+        leaf.parent = newParent;
+        
+        refitUpwards(leaf.parent);
+    }
+    
+    // Removes a leaf from the tree.
+    private void removeLeaf(final Node leaf) {
+        if (leaf == root) {
+            root = null;
+            return;
+        }
+        
+        final Node parent = leaf.parent;
+        final Node grandParent = parent.parent;
+        final Node sibling = parent.left == leaf ? parent.right : parent.left;
+        
+        replaceChild(grandParent, parent, sibling);
+        sibling.parent = grandParent;
+        leaf.parent = null;
+        freeBranch(parent);
+        
+        refitUpwards(grandParent);
+    }
+    
+    // Refreshes the bounds of a moving leaf, returns true if the leaf no longer fits inside its fattened box.
+    private static boolean refreshLeafBounds(final Node leaf, final float dt) {
+        computeBounds(leaf.body, dt, leaf.stepBounds);
+        
+        return !leaf.bounds.contains(leaf.stepBounds);
+    }
+    
+    // Fattens the box of a leaf around its bounds over a step.
+    private static void fattenLeaf(final Node leaf, final float margin) {
+        leaf.bounds.set(leaf.stepBounds);
+        leaf.bounds.expand(margin);
+    }
+    
+    // Adds a new leaf for a body.
+    private void addLeaf(final Body body, final boolean isStatic) {
+        final Node leaf = new Node();
+        
+        leaf.body = body;
+        leaf.isStatic = isStatic;
+        leaf.stepBounds = new AABB();
+        body.getBounds(leaf.stepBounds);
+        fattenLeaf(leaf, isStatic ? 0.0f : FAT_MARGIN);
+        
+        leafList.add(leaf);
+        leafMap.put(body, leaf);
+        insertLeaf(leaf);
+    }
+
+    /**
+     * Constructs a new empty tree.
+     */
+    public DynamicAABBTree() {
+        this.root = null;
+        
+        this.leafList = new ArrayList();
+        this.leafMap = new IdentityHashMap();
+        
+        this.freeBranchList = new ArrayList();
+        this.queryStack = new ArrayList();
+    }
+    
+    /**
+     * Removes all bodies.
+     */
+    @Override
+    public void clear() {
+        root = null;
+        leafList.clear();
+        leafMap.clear();
+    }
+    
+    /**
+     * @param body rigid body to add
+     */
+    @Override
+    public void addRigidBody(final RigidBody body) {
+        addLeaf(body, false);
+    }
+
+    /**
+     * @param body static body to add
+     */
+    @Override
+    public void addStaticBody(final StaticBody body) {
+        addLeaf(body, true);
+    }
+    
+    /**
+     * Updates the bounds of the moving bodies and reinserts the ones that have left their fattened boxes.
+     * @param dt change in time for the next step
+     */
+    @Override
+    public void update(final float dt) {
+        for (Node leaf : leafList) {
+            // Sleeping bodies don't move, so their bounds only need to be refreshed once.
+            if (leaf.isStatic || (leaf.asleep && leaf.body.isSleeping())) {
+                continue;
+            }
+            
+            leaf.asleep = leaf.body.isSleeping();
+            
+            if (refreshLeafBounds(leaf, dt)) {
+                removeLeaf(leaf);
+                fattenLeaf(leaf, FAT_MARGIN);
+                insertLeaf(leaf);
+            }
+        }
+    }
+    
+    /**
+     * Finds possible intersections for a body by testing its bounds over the last 
+     * updated step against those of the other bodies, as they may already have moved.
+     * Bodies that haven't been added have no intersections.
+     * @param output list to add the candidates to, each candidate is added once
+     * @param body body to test
+     * @param dt ignored, the value given to the last update is used instead
+     */
+    @Override
+    public void findPossibleIntersections(final List<Body> output, final Body body, final float dt) {
+        final Node query = leafMap.get(body);
+        
+        if (query == null || root == null) {
+            return;
+        }
+        
+        queryStack.clear();
+        queryStack.add(root);
+        
+        while (!queryStack.isEmpty()) {
+            final Node node = queryStack.remove(queryStack.size() - 1);
+            
+            if (!node.bounds.doesOverlap(query.stepBounds)) {
+                continue;
+            }
+            
+            if (node.isLeaf()) {
+                if (node != query && node.stepBounds.doesOverlap(query.stepBounds)) {
+                    output.add(node.body);
+                }
+            } else {
+                queryStack.add(node.left);
+                queryStack.add(node.right);
+            }
+        }
+    }
+    
+    /**
+     * @param output list to add the bodies to, each body is added once
+     * @param bounds box to test
+     */
+    @Override
+    public void findBodiesInBounds(final List<Body> output, final AABB bounds) {
+        if (root == null) {
+            return;
+        }
+        
+        queryStack.clear();
+        queryStack.add(root);
+        
+        while (!queryStack.isEmpty()) {
+            final Node node = queryStack.remove(queryStack.size() - 1);
+            
+            if (!node.bounds.doesOverlap(bounds)) {
+                continue;
+            }
+            
+            if (node.isLeaf()) {
+                if (node.stepBounds.doesOverlap(bounds)) {
+                    output.add(node.body);
+                }
+            } else {
+                queryStack.add(node.left);
+                queryStack.add(node.right);
+            }
+        }
+    }
+}
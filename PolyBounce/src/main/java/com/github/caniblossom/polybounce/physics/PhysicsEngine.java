@@ -32,21 +32,124 @@ package com.github.caniblossom.polybounce.physics;
 import com.github.caniblossom.polybounce.physics.body.StaticBody;
 import com.github.caniblossom.polybounce.physics.body.RigidBody;
 import com.github.caniblossom.polybounce.physics.body.Body;
+import com.github.caniblossom.polybounce.math.AABB;
 import com.github.caniblossom.polybounce.math.BoundingBox;
 import com.github.caniblossom.polybounce.math.Vector2;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
- * A physics engine.
+ * A physics engine. Islands of rigid bodies that have all been resting for a while are put to
+ * sleep and skipped until they are touched by an awake body or woken explicitly.
+ * <p>
+ * Collisions are first found for all pairs of bodies concurrently, as the bodies
+ * aren't changed while doing so. The impulses are then applied in islands of bodies
+ * that might touch each other during the step. Islands can't affect each other, so 
+ * they are solved concurrently too. Within an island the pairs are always handled
+ * in the same order, so the results don't depend on the number of threads.
  * @author Jani Salo
  */
 public class PhysicsEngine {    
+    /**
+     * Available broad phase implementations.
+     */
+    public static enum BroadPhaseType {
+        SPATIAL_TABLE,
+        SWEEP_AND_PRUNE,
+        DYNAMIC_AABB_TREE
+    }
+    
+    /**
+     * Available narrow phase implementations.
+     */
+    public static enum NarrowPhaseType {
+        RAY_CASTING,
+        GJK_EPA,
+        CLIPPING
+    }
+    
     // Values of 1.0f or 2.0f seem to give best measured speed.
     private final static float SPATIAL_BUCKET_WIDTH = 2.0f; 
     private final static float SPATIAL_BUCKET_HEIGHT = 2.0f; 
     
+    // A body that stays below both velocities for long enough is put to sleep.
+    private final static float SLEEP_LINEAR_VELOCITY = 0.1f;
+    private final static float SLEEP_ANGULAR_VELOCITY = 0.1f;
+    final static float TIME_TO_SLEEP = 2.0f;
+    
+    // Distance within which sleeping bodies are considered to be touching a woken body.
+    final static float WAKE_MARGIN = 0.05f;
+    
+    // Steps with fewer awake bodies than this aren't worth splitting between threads.
+    private final static int MIN_PARALLEL_BODY_COUNT = 32;
+    
+    // Number of pairs handled by a single narrow phase task.
+    private final static int PAIR_CHUNK_SIZE = 16;
+    
+    // Helper class.
+    private static class ContactPair {
+        public Body active;
+        public Body passive;
+        public final CollisionList collisionList = new CollisionList();
+    }
+    
+    // Task for finding the collisions of a range of pair chunks.
+    private class NarrowPhaseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int from;
+        private final int to;
+        private final float dt;
+        
+        public NarrowPhaseTask(final int from, final int to, final float dt) {
+            this.from = from;
+            this.to = to;
+            this.dt = dt;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                findChunkCollisions(from, dt);
+                return;
+            }
+
+            final int middle = (from + to) >>> 1;
+            invokeAll(new NarrowPhaseTask(from, middle, dt), new NarrowPhaseTask(middle, to, dt));
+        }
+    }
+    
+    // Task for solving a range of islands.
+    private class IslandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int from;
+        private final int to;
+        private final float dt;
+        
+        public IslandTask(final int from, final int to, final float dt) {
+            this.from = from;
+            this.to = to;
+            this.dt = dt;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                solveIsland(from, dt);
+                return;
+            }
+
+            final int middle = (from + to) >>> 1;
+            invokeAll(new IslandTask(from, middle, dt), new IslandTask(middle, to, dt));
+        }
+    }
+    
     private final float timeStep;
     private final float inertia;
     private final Vector2 gravity;
@@ -54,23 +157,134 @@ public class PhysicsEngine {
     private final ArrayList<Body> bodyList;
     private final ArrayList<RigidBody> rigidBodyList;
     private final ArrayList<StaticBody> staticBodyList;        
+    private final ArrayList<Body> awakeBodyList;
 
+    private final ContactCache contactCache;
     private final Collider collider;
     private final ArrayList<Body> collisionList;
+    private final ArrayList<Body> wakeQueue;
+    private final ArrayList<Body> wokenList;
+    private final AABB wakeBounds;
+    private final AABB neighborBounds;
+    
+    // Island state, rebuilt every step. Indices below the awake body count refer to awake 
+    // bodies, the rest to sleeping bodies found as candidates.
+    private final ForkJoinPool pool;
+    private final IdentityHashMap<Body, Integer> islandIndexMap;
+    private final ArrayList<Body> islandBodyList;
+    private final ArrayList<ArrayList<Body>> candidateListPool;
+    private final ArrayList<Collider> islandColliderList;
+    private int[] islandParent;
+    private int[] islandOfRoot;
+    private int[] islandStart;
+    private int[] islandMember;
+    private int islandCount;
+    
+    // Pairs of the step in the order of the awake bodies, with a solver for each chunk of them.
+    private final ArrayList<ContactPair> pairList;
+    private final ArrayList<Solver> chunkSolverList;
+    private int[] pairStart;
+    private int pairCount;
 
-    private SpatialTable spatialTable = null;
+    private BroadPhaseType broadPhaseType = BroadPhaseType.SWEEP_AND_PRUNE;
+    private BroadPhase broadPhase = null;
+    private NarrowPhaseType narrowPhaseType = NarrowPhaseType.CLIPPING;
+    private int solverIterationCount = Collider.DEFAULT_ITERATION_COUNT;
+    
+    // Creates a broad phase of the selected type.
+    private BroadPhase createBroadPhase() {
+        switch (broadPhaseType) {
+            case SPATIAL_TABLE:
+                return new SpatialTable(SPATIAL_BUCKET_WIDTH, SPATIAL_BUCKET_HEIGHT);
+            case DYNAMIC_AABB_TREE:
+                return new DynamicAABBTree();
+            default:
+                return new SweepAndPrune();
+        }
+    }
     
-    // Computes correct spatial table size.
-    private SpatialTable createSpatialTable(final BoundingBox box) {
-        final int hBuckets = (int) Math.ceil(box.getWidth() / SPATIAL_BUCKET_WIDTH);
-        final int vBuckets = (int) Math.ceil(box.getHeight() / SPATIAL_BUCKET_HEIGHT);
-        return new SpatialTable(box, hBuckets, vBuckets);
+    // Adds an already woken body to the awake bodies along with any sleeping bodies touching it.
+    private void activate(final Body body) {
+        wakeQueue.clear();
+        wakeQueue.add(body);
+        
+        while (!wakeQueue.isEmpty()) {
+            final Body woken = wakeQueue.remove(wakeQueue.size() - 1);
+            awakeBodyList.add(woken);
+            
+            // Whatever was resting on the body may have lost its support.
+            woken.getBounds(wakeBounds);
+            wakeBounds.expand(WAKE_MARGIN);
+            
+            // The candidates of the body would only reach as far as its own bounds.
+            collisionList.clear();
+            broadPhase.findBodiesInBounds(collisionList, wakeBounds);
+            
+            for (Body neighbor : collisionList) {
+                if (!neighbor.isSleeping()) {
+                    continue;
+                }
+                
+                neighbor.getBounds(neighborBounds);
+                
+                if (wakeBounds.doesOverlap(neighborBounds)) {
+                    neighbor.wake();
+                    wakeQueue.add(neighbor);
+                }
+            }
+        }
+    }
+    
+    // Puts the islands whose bodies have all been resting for long enough to sleep. An island 
+    // sleeps as a whole, as a body put to sleep alone would just be woken up by its neighbors.
+    private void updateSleep(final float dt) {
+        for (Body body : awakeBodyList) {
+            final boolean resting = body.getVelocity().dot(body.getVelocity()) < SLEEP_LINEAR_VELOCITY * SLEEP_LINEAR_VELOCITY && Math.abs(body.getAngularVelocity()) < SLEEP_ANGULAR_VELOCITY;
+            body.setSleepTime(resting ? body.getSleepTime() + dt : 0.0f);
+        }
+        
+        for (int island = 0; island < islandCount; island++) {
+            float minSleepTime = Float.MAX_VALUE;
+            
+            for (int i = islandStart[island]; i < islandStart[island + 1]; i++) {
+                minSleepTime = Math.min(minSleepTime, awakeBodyList.get(islandMember[i]).getSleepTime());
+            }
+            
+            if (minSleepTime >= TIME_TO_SLEEP) {
+                for (int i = islandStart[island]; i < islandStart[island + 1]; i++) {
+                    awakeBodyList.get(islandMember[i]).sleep();
+                }
+            }
+        }
+        
+        // Bodies woken during the step aren't part of any island yet.
+        for (int i = islandStart[islandCount]; i < awakeBodyList.size(); i++) {
+            final Body body = awakeBodyList.get(i);
+            
+            if (body.getSleepTime() >= TIME_TO_SLEEP) {
+                body.sleep();
+            }
+        }
+        
+        int count = 0;
+        
+        for (int i = 0; i < awakeBodyList.size(); i++) {
+            final Body body = awakeBodyList.get(i);
+            
+            if (!body.isSleeping()) {
+                awakeBodyList.set(count++, body);
+            }
+        }
+        
+        while (awakeBodyList.size() > count) {
+            awakeBodyList.remove(awakeBodyList.size() - 1);
+        }
     }
     
     // Applies inertial multiplier to the bodies.
     private void applyExternalForces(final float dt) {
         // I'm too lazy to integrate.
-        for (RigidBody body : rigidBodyList) {
+        for (Body body : awakeBodyList) {
             body.applyImpulse(body.getCenterOfMass(), gravity.scale(dt * body.getMass()));
 
             body.setVelocity(body.getVelocity().scale(inertia));
@@ -78,31 +292,234 @@ public class PhysicsEngine {
         }
     }
     
+    // Finds the root of an island index, halving the path on the way.
+    private int findIslandRoot(int index) {
+        while (islandParent[index] != index) {
+            islandParent[index] = islandParent[islandParent[index]];
+            index = islandParent[index];
+        }
+        
+        return index;
+    }
+    
+    // Returns the island index of a body, adding it if it hasn't been seen during this step.
+    private int getIslandIndex(final Body body) {
+        final Integer index = islandIndexMap.get(body);
+        
+        if (index != null) {
+            return index;
+        }
+        
+        final int newIndex = islandBodyList.size();
+        islandIndexMap.put(body, newIndex);
+        islandBodyList.add(body);
+        
+        if (newIndex >= islandParent.length) {
+            islandParent = Arrays.copyOf(islandParent, 2 * islandParent.length);
+        }
+        
+        islandParent[newIndex] = newIndex;
+        return newIndex;
+    }
+    
+    // Finds the candidates of the awake bodies and groups the awake bodies into islands.
+    private void buildIslands(final float dt) {
+        final int awakeCount = awakeBodyList.size();
+        
+        islandIndexMap.clear();
+        islandBodyList.clear();
+        
+        for (Body body : awakeBodyList) {
+            getIslandIndex(body);
+        }
+        
+        while (candidateListPool.size() < awakeCount) {
+            candidateListPool.add(new ArrayList());
+        }
+        
+        // Static bodies never move, so they can be shared between islands.
+        for (int i = 0; i < awakeCount; i++) {
+            final ArrayList<Body> candidateList = candidateListPool.get(i);
+            
+            candidateList.clear();
+            broadPhase.findPossibleIntersections(candidateList, awakeBodyList.get(i), dt);
+            
+            for (Body candidate : candidateList) {
+                // Finding the index may grow the parent array, so it must be done before writing to it.
+                if (candidate instanceof RigidBody) {
+                    final int candidateRoot = findIslandRoot(getIslandIndex(candidate));
+                    islandParent[findIslandRoot(i)] = candidateRoot;
+                }
+            }
+        }
+        
+        // Number the islands and sort the awake bodies by island, keeping their order within islands.
+        if (islandOfRoot.length < islandBodyList.size()) {
+            islandOfRoot = new int[islandParent.length];
+        }
+        
+        if (islandMember.length < awakeCount) {
+            islandMember = new int[2 * awakeCount];
+            islandStart = new int[2 * awakeCount + 1];
+        }
+        
+        Arrays.fill(islandOfRoot, 0, islandBodyList.size(), -1);
+        islandCount = 0;
+        
+        for (int i = 0; i < awakeCount; i++) {
+            final int root = findIslandRoot(i);
+            
+            if (islandOfRoot[root] < 0) {
+                islandStart[islandCount] = 0;
+                islandOfRoot[root] = islandCount++;
+            }
+            
+            islandStart[islandOfRoot[root]]++;
+        }
+        
+        for (int i = 1; i < islandCount; i++) {
+            islandStart[i] += islandStart[i - 1];
+        }
+        
+        // Filling in backwards leaves each island start pointing at its first member.
+        for (int i = awakeCount - 1; i >= 0; i--) {
+            islandMember[--islandStart[islandOfRoot[findIslandRoot(i)]]] = i;
+        }
+        
+        islandStart[islandCount] = awakeCount;
+
+        while (islandColliderList.size() < islandCount) {
+            islandColliderList.add(new Collider(contactCache));
+        }
+    }
+    
+    // Lists the pairs for the candidates of the awake bodies. Candidates are symmetric, so a pair
+    // of awake bodies is only listed for the first one of them, with both motions accounted for.
+    private void buildPairs() {
+        final int awakeCount = awakeBodyList.size();
+        
+        if (pairStart.length < awakeCount + 1) {
+            pairStart = new int[2 * awakeCount + 1];
+        }
+        
+        pairCount = 0;
+        
+        for (int i = 0; i < awakeCount; i++) {
+            final Body active = awakeBodyList.get(i);
+            pairStart[i] = pairCount;
+            
+            for (Body passive : candidateListPool.get(i)) {
+                // Static bodies have no island index, sleeping ones come after the awake ones.
+                final Integer passiveIndex = islandIndexMap.get(passive);
+                
+                if (passive == active || (passiveIndex != null && passiveIndex < i)) {
+                    continue;
+                }
+                
+                if (pairCount == pairList.size()) {
+                    pairList.add(new ContactPair());
+                }
+                
+                final ContactPair pair = pairList.get(pairCount++);
+                pair.active = active;
+                pair.passive = passive;
+                pair.collisionList.clear();
+            }
+        }
+        
+        pairStart[awakeCount] = pairCount;
+        
+        while (chunkSolverList.size() * PAIR_CHUNK_SIZE < pairCount) {
+            chunkSolverList.add(new Solver(narrowPhaseType));
+        }
+    }
+    
+    // Finds the collisions for a single chunk of pairs.
+    private void findChunkCollisions(final int chunk, final float dt) {
+        final Solver chunkSolver = chunkSolverList.get(chunk);
+        final int end = Math.min(pairCount, (chunk + 1) * PAIR_CHUNK_SIZE);
+        
+        for (int i = chunk * PAIR_CHUNK_SIZE; i < end; i++) {
+            final ContactPair pair = pairList.get(i);
+            chunkSolver.findCollisions(pair.collisionList, pair.active, pair.passive, dt);
+        }
+    }
+    
+    // Solves the collisions of a single island.
+    private void solveIsland(final int island, final float dt) {
+        final Collider islandCollider = islandColliderList.get(island);
+        
+        for (int i = islandStart[island]; i < islandStart[island + 1]; i++) {
+            final int member = islandMember[i];
+            
+            for (int j = pairStart[member]; j < pairStart[member + 1]; j++) {
+                final ContactPair pair = pairList.get(j);
+                islandCollider.addCollisions(pair.active, pair.passive, pair.collisionList, dt);
+            }
+        }
+        
+        islandCollider.solveCollisions(solverIterationCount);
+    }
+    
     // Collides the bodies.
     private void collide(final float dt) {
-        spatialTable.clear();
-        spatialTable.addRigidBodyList(rigidBodyList);
-        spatialTable.addStaticBodyList(staticBodyList);
+        broadPhase.update(dt);
+        buildIslands(dt);
+        buildPairs();
         
-        for (Body body : rigidBodyList) {
-            collisionList.clear();
-            spatialTable.findPossibleIntersections(collisionList, body, dt);
-            
-            collider.collide(body, collisionList, dt);
+        final boolean parallel = awakeBodyList.size() >= MIN_PARALLEL_BODY_COUNT;
+        final int chunkCount = (pairCount + PAIR_CHUNK_SIZE - 1) / PAIR_CHUNK_SIZE;
+        
+        // The bodies are only read while finding the collisions, once the motions
+        // of the awake bodies have been cached for the step.
+        for (Body body : awakeBodyList) {
+            body.getMotion(dt);
+        }
+        
+        if (parallel && chunkCount > 1) {
+            pool.invoke(new NarrowPhaseTask(0, chunkCount, dt));
+        } else {
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                findChunkCollisions(chunk, dt);
+            }
+        }
+        
+        contactCache.beginStep();
+        
+        if (parallel && islandCount > 1) {
+            pool.invoke(new IslandTask(0, islandCount, dt));
+        } else {
+            for (int island = 0; island < islandCount; island++) {
+                solveIsland(island, dt);
+            }
+        }
+        
+        contactCache.endStep();
+        
+        // Waking up touches other islands, so it's done only after all of them have been solved.
+        wokenList.clear();
+        
+        for (int i = awakeBodyList.size(); i < islandBodyList.size(); i++) {
+            if (!islandBodyList.get(i).isSleeping()) {
+                wokenList.add(islandBodyList.get(i));
+            }
+        }
+        
+        for (Body body : wokenList) {
+            activate(body);
         }
     }
 
     // Steps the bodies.
     private void step(final float dt) {
-        spatialTable.clear();
-        spatialTable.addRigidBodyList(rigidBodyList);
-        spatialTable.addStaticBodyList(staticBodyList);
+        // Velocities have changed since the last update, which affects the bounds.
+        broadPhase.update(dt);
  
-        for (Body body : rigidBodyList) {
+        for (Body body : awakeBodyList) {
             collisionList.clear();
-            spatialTable.findPossibleIntersections(collisionList, body, dt);
+            broadPhase.findPossibleIntersections(collisionList, body, dt);
 
-            if (collider.canUpdateCollisionFree(body, collisionList, dt)) {
+            if (collider.canUpdateWithoutPenetrating(body, collisionList, dt)) {
                 body.update(dt);
             }
         }
@@ -113,10 +530,24 @@ public class PhysicsEngine {
      * @param timeStep stepping constant used for physics
      * @param inertia multiplier applied to all velocities per update
      * @param gravity vector representing external forces
-     * @param worldBox a bounding box encompassing the game world
+     * @param worldBox a bounding box encompassing the game world, none of the broad phases are limited to it
      */
     public PhysicsEngine(final float timeStep, final float inertia, Vector2 gravity, final BoundingBox worldBox) {
+        this(timeStep, inertia, gravity, worldBox, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Constructs a new physics engine with a given number of worker threads. The results 
+     * are the same for any number of threads.
+     * @param timeStep stepping constant used for physics
+     * @param inertia multiplier applied to all velocities per update
+     * @param gravity vector representing external forces
+     * @param worldBox a bounding box encompassing the game world, none of the broad phases are limited to it
+     * @param threadCount number of worker threads, at least one
+     */
+    public PhysicsEngine(final float timeStep, final float inertia, Vector2 gravity, final BoundingBox worldBox, final int threadCount) {
         assert timeStep > 0.0f;
+        assert threadCount > 0;
 
         this.timeStep = timeStep;
         this.inertia = inertia;
@@ -125,11 +556,33 @@ public class PhysicsEngine {
         this.bodyList = new ArrayList();
         this.rigidBodyList = new ArrayList();
         this.staticBodyList = new ArrayList();
+        this.awakeBodyList = new ArrayList();
         
-        this.collider = new Collider(); 
+        this.contactCache = new ContactCache();
+        this.collider = new Collider(contactCache); 
         this.collisionList = new ArrayList();
+        this.wakeQueue = new ArrayList();
+        this.wokenList = new ArrayList();
+        this.wakeBounds = new AABB();
+        this.neighborBounds = new AABB();
+        
+        this.pool = new ForkJoinPool(threadCount);
+        this.islandIndexMap = new IdentityHashMap();
+        this.islandBodyList = new ArrayList();
+        this.candidateListPool = new ArrayList();
+        this.islandColliderList = new ArrayList();
+        this.islandParent = new int[64];
+        this.islandOfRoot = new int[64];
+        this.islandStart = new int[65];
+        this.islandMember = new int[64];
+        this.islandCount = 0;
         
-        this.spatialTable = createSpatialTable(worldBox);
+        this.pairList = new ArrayList();
+        this.chunkSolverList = new ArrayList();
+        this.pairStart = new int[65];
+        this.pairCount = 0;
+        
+        this.broadPhase = createBroadPhase();
     }    
 
     /**
@@ -138,6 +591,10 @@ public class PhysicsEngine {
     public void add(final RigidBody body) {
         bodyList.add(body);
         rigidBodyList.add(body);
+        broadPhase.addRigidBody(body);
+        
+        body.wake();
+        awakeBodyList.add(body);
     }
 
     /**
@@ -146,6 +603,7 @@ public class PhysicsEngine {
     public void add(final StaticBody body) {
         bodyList.add(body);
         staticBodyList.add(body);
+        broadPhase.addStaticBody(body);
     }
 
     /**
@@ -168,14 +626,97 @@ public class PhysicsEngine {
 
     /**
      * Removes all objects from the engine and resets the world box
-     * @param worldBox a bounding box encompassing the game world
+     * @param worldBox a bounding box encompassing the game world, none of the broad phases are limited to it
      */
     public void reset(final BoundingBox worldBox) {
         bodyList.clear();
         rigidBodyList.clear();
         staticBodyList.clear();       
+        awakeBodyList.clear();
+        islandIndexMap.clear();
+        islandBodyList.clear();
+        contactCache.clear();
+        chunkSolverList.clear();
+        
+        // The pooled lists are kept, but must not hold on to the bodies of the previous world.
+        for (ArrayList<Body> candidateList : candidateListPool) {
+            candidateList.clear();
+        }
+        
+        for (ContactPair pair : pairList) {
+            pair.active = null;
+            pair.passive = null;
+        }
+        
+        pairCount = 0;
+        collisionList.clear();
+        wokenList.clear();
 
-        this.spatialTable = createSpatialTable(worldBox);
+        this.broadPhase = createBroadPhase();
+    }
+    
+    /**
+     * Selects the broad phase implementation, takes effect on next reset.
+     * @param type broad phase type to use
+     */
+    public void setBroadPhaseType(final BroadPhaseType type) {
+        broadPhaseType = type;
+    }
+    
+    /**
+     * Selects the narrow phase implementation, takes effect on next reset.
+     * @param type narrow phase type to use
+     */
+    public void setNarrowPhaseType(final NarrowPhaseType type) {
+        narrowPhaseType = type;
+    }
+    
+    /**
+     * Sets the number of passes the solver makes over the contacts of each island per step.
+     * More passes make stacks stiffer at the cost of time.
+     * @param count number of passes, at least one
+     */
+    public void setSolverIterationCount(final int count) {
+        assert count > 0;
+        
+        solverIterationCount = count;
+    }
+    
+    /**
+     * Stops the worker threads of the engine. The engine mustn't be updated afterwards.
+     */
+    public void dispose() {
+        pool.shutdown();
+    }
+    
+    /**
+     * Wakes up a sleeping body along with any sleeping bodies touching it.
+     * Must be called before changing the state of a body that might be sleeping.
+     * @param body body to wake up
+     */
+    public void wake(final Body body) {
+        if (body.isSleeping()) {
+            body.wake();
+            activate(body);
+        } else {
+            body.setSleepTime(0.0f);
+        }
+    }
+    
+    /**
+     * Returns the island a body was solved in during the last step. Bodies in different
+     * islands can't touch each other during the step. Static bodies never join islands.
+     * @param body body to look up
+     * @return index of the island, or -1 if the body wasn't in any island during the last step
+     */
+    int getIsland(final Body body) {
+        final Integer index = islandIndexMap.get(body);
+        
+        if (index == null) {
+            return -1;
+        }
+        
+        return islandOfRoot[findIslandRoot(index)];
     }
     
     /**
@@ -207,6 +748,7 @@ public class PhysicsEngine {
         for (int step = 0; step < stepCount; step++) {
             collide(stepLength);
             step(stepLength);
+            updateSleep(stepLength);
         }
         
         // Doing this just once per update seems to make things less glitchy.
@@ -31,112 +31,216 @@ package com.github.caniblossom.polybounce.physics;
 
 import com.github.caniblossom.polybounce.physics.body.Body;
 import com.github.caniblossom.polybounce.math.ConvexPolygon;
+import com.github.caniblossom.polybounce.math.PolygonContact;
+import com.github.caniblossom.polybounce.math.PolygonDistance;
+import com.github.caniblossom.polybounce.math.Rot2;
 import com.github.caniblossom.polybounce.math.Segment2;
-import com.github.caniblossom.polybounce.math.Segment2Intersection;
+import com.github.caniblossom.polybounce.math.Segment2Hit;
 import com.github.caniblossom.polybounce.math.Vector2;
 import java.util.ArrayList;
-import java.util.List;
 
 /**
  * A class used for solving collisions between bodies.
  * @author Jani Salo
  */
 public class Solver {
-       // Helper class.
-    private static class IntersectionResult {
-        public final Segment2 ray;
-        public final Segment2 wall;
+    private final PhysicsEngine.NarrowPhaseType type;
+    private final PolygonDistance distanceQuery;
+    private final PolygonContact contactQuery;
+    
+    private final Segment2Hit hit;
+    private float[] wallLengths;
+    
+    // Scratch polygons for predicted hulls indexed by vertex count, two of each.
+    private final ArrayList<ConvexPolygon> activeScratchList;
+    private final ArrayList<ConvexPolygon> passiveScratchList;
+    
+    // Returns a scratch polygon from a list, creating it if needed.
+    private static ConvexPolygon getScratch(final ArrayList<ConvexPolygon> list, final int vertexCount) {
+        while (list.size() <= vertexCount) {
+            list.add(null);
+        }
         
-        public final Segment2Intersection intersection; 
-
-        public IntersectionResult(final Segment2 ray, final Segment2 wall, final Segment2Intersection intersection) {
-            this.ray = ray; 
-            this.wall = wall;
-            this.intersection = intersection;
+        if (list.get(vertexCount) == null) {
+            list.set(vertexCount, ConvexPolygon.constructScratch(vertexCount));
         }
-    }
         
-    private final ArrayList<Segment2> collisionRayList;    
-    private final ArrayList<IntersectionResult> intersectionResultList;
+        return list.get(vertexCount);
+    }
     
-    // Generates collision rays from samples of the polygon at different points in time.
-    private  void computeCollisionRays(final ArrayList<Segment2> list, final ConvexPolygon polyT0, final ConvexPolygon polyT1) {
-        final List<Vector2> listT0 = polyT0.getUnmodifiableViewToVertexList();
-        final List<Vector2> listT1 = polyT1.getUnmodifiableViewToVertexList();
-        
-        int vertex = 0;
-        for (Vector2 v : listT0) {
-            list.add(new Segment2(v, listT1.get(vertex++)));
+    // Casts a ray from every vertex of a polygon at two points in time against the walls of another polygon, 
+    // and lists a collision for the nearest hit of each ray. Rays cast from the passive body are reversed.
+    private void listRayCollisions(final CollisionList resultList, final ConvexPolygon rayT0, final ConvexPolygon rayT1, final ConvexPolygon wallPolygon, final boolean fromActive) {
+        final int wallCount = wallPolygon.getVertexCount();
+        
+        if (wallLengths.length < wallCount) {
+            wallLengths = new float[wallCount];
         }
-    }
+        
+        for (int j = 0; j < wallCount; j++) {
+            final int k = j + 1 < wallCount ? j + 1 : 0;
+            final float dx = wallPolygon.getVertexX(k) - wallPolygon.getVertexX(j);
+            final float dy = wallPolygon.getVertexY(k) - wallPolygon.getVertexY(j);
+            
+            wallLengths[j] = (float) Math.sqrt((double) (dx * dx + dy * dy));
+        }
+        
+        for (int i = 0; i < rayT0.getVertexCount(); i++) {
+            final float ax = rayT0.getVertexX(i);
+            final float ay = rayT0.getVertexY(i);
+            final float bx = rayT1.getVertexX(i);
+            final float by = rayT1.getVertexY(i);
+            
+            // Normalized the same way as Vector2.normal.
+            final float dx = bx - ax;
+            final float dy = by - ay;
+            final float length = (float) Math.sqrt((double) (dx * dx + dy * dy));
+            final float nx = length != 0.0f ? dx / length : 0.0f;
+            final float ny = length != 0.0f ? dy / length : 0.0f;
 
-    // Finds and lists all intersections found through ray casting.
-    private void listIntersections(ArrayList<IntersectionResult> resultList, List<Segment2> rayList, List<Segment2> wallList) {        
-        for (Segment2 currentRay : rayList) {
-            IntersectionResult candidate = null;
+            int nearest = -1;
+            float distance = 0.0f;
+            float x = 0.0f;
+            float y = 0.0f;
 
-            for (Segment2 currentWall : wallList) {
-                final Segment2Intersection intersection = currentWall.intersect(currentRay);
-                
-                if (intersection.didIntersect()) {
-                    if (candidate == null || intersection.getDistance() < candidate.intersection.getDistance()) {
-                        candidate = new IntersectionResult(currentRay, currentWall, intersection);
+            for (int j = 0; j < wallCount; j++) {
+                if (Segment2.intersect(wallPolygon.getVertexX(j), wallPolygon.getVertexY(j), wallPolygon.getRightNormalX(j), wallPolygon.getRightNormalY(j), wallLengths[j], ax, ay, bx, by, nx, ny, hit)) {
+                    if (nearest < 0 || hit.getDistance() < distance) {
+                        nearest = j;
+                        distance = hit.getDistance();
+                        x = hit.getX();
+                        y = hit.getY();
                     }
                 }
             }
 
-            if (candidate != null) {
-                resultList.add(candidate);
+            if (nearest < 0) {
+                continue;
+            }
+            
+            final float normalX = wallPolygon.getRightNormalX(nearest);
+            final float normalY = wallPolygon.getRightNormalY(nearest);
+            
+            if (fromActive) {
+                resultList.add(distance, ax, ay, x, y, normalX, normalY);
+            } else {
+                resultList.add(distance, x, y, ax, ay, -normalX, -normalY);
             }
-        }
-    }
-
-    // Lists collisions generated by shooting rays from active body to passive body.
-    private void listActiveToPassiveCollisions(final List<Collision> resultList, final ConvexPolygon activeT0, final ConvexPolygon activeT1, final ConvexPolygon passiveT0) {
-        collisionRayList.clear();
-        computeCollisionRays(collisionRayList, activeT0, activeT1);
-
-        intersectionResultList.clear();
-        listIntersections(intersectionResultList, collisionRayList, passiveT0.getUnmodifiableViewToSegmentList());
-
-        for (IntersectionResult result : intersectionResultList) {
-            resultList.add(new Collision(result.intersection.getDistance(), result.ray.getA(), result.intersection.getPosition(), result.wall.getRightNormal()));
-        }        
-    }
-
-    // Lists collisions generated by shooting rays from passive body to active body.
-    private void listPassiveToActiveCollisions(final List<Collision> resultList, final ConvexPolygon passiveT0, final ConvexPolygon passiveT1, final ConvexPolygon activeT0) {
-        collisionRayList.clear();
-        computeCollisionRays(collisionRayList, passiveT0, passiveT1);
-
-        intersectionResultList.clear();
-        listIntersections(intersectionResultList, collisionRayList, activeT0.getUnmodifiableViewToSegmentList());
-
-        for (IntersectionResult result : intersectionResultList) {
-            resultList.add(new Collision(result.intersection.getDistance(), result.intersection.getPosition(), result.ray.getA(), result.wall.getRightNormal().scale(-1.0f)));
         }
     }
     
     // Finds and lists collisions from supplied parameters
-    private void listCollisions(final List<Collision> resultList, final Body active, final Body passive, final ConvexPolygon activeT0, final ConvexPolygon activeT1, final ConvexPolygon passiveT0, final ConvexPolygon passiveT1) {
+    private void listCollisions(final CollisionList resultList, final Body active, final Body passive, final ConvexPolygon activeT0, final ConvexPolygon activeT1, final ConvexPolygon passiveT0, final ConvexPolygon passiveT1) {
         if (activeT1.doesIntersect(passiveT0)) {
-            listActiveToPassiveCollisions(resultList, activeT0, activeT1, passiveT0);
-            listPassiveToActiveCollisions(resultList, passiveT0, passiveT1, activeT0); 
+            listRayCollisions(resultList, activeT0, activeT1, passiveT0, true);
+            listRayCollisions(resultList, passiveT0, passiveT1, activeT0, false);
 
             // Invent a collision if for some reason we couldn't find one even though the polygons intersect.
+            // This is rare enough that the vectors allocated here don't matter.
             if (resultList.isEmpty()) {
                 final Vector2 average = active.getPosition().sum(passive.getPosition()).scale(0.5f);
-                resultList.add(new Collision(0.0f, average, average, active.getPosition().difference(passive.getPosition()).normal()));                
+                final Vector2 normal = active.getPosition().difference(passive.getPosition()).normal();
+                resultList.add(0.0f, average.getX(), average.getY(), average.getX(), average.getY(), normal.getX(), normal.getY());
             }
         }
     }
     
+    // Returns true if and only if the body moves or rotates during a step.
+    private static boolean isMoving(final Body body) {
+        final Vector2 velocity = body.getVelocity();
+        return velocity.getX() != 0.0f || velocity.getY() != 0.0f || body.getAngularVelocity() != 0.0f;
+    }
+    
+    // Moves a point on the predicted active hull back to where the body is now, and 
+    // lists a collision there against a point on the passive hull. If the hull was
+    // made relative to a moving passive body, the motion of that body is redone first.
+    private static void addMovedBack(final CollisionList resultList, final Body active, final Rot2 motion, final Body passive, final Rot2 passiveMotion, final float x, final float y, final float passiveX, final float passiveY, final float normalX, final float normalY, final float dt) {
+        final Vector2 center = active.getCenterOfMass();
+        final Vector2 velocity = active.getVelocity();
+        
+        float wx = x;
+        float wy = y;
+        
+        if (passiveMotion != null) {
+            final Vector2 passiveCenter = passive.getCenterOfMass();
+            final Vector2 passiveVelocity = passive.getVelocity();
+            final float pu = x - passiveCenter.getX();
+            final float pv = y - passiveCenter.getY();
+            
+            wx = (passiveMotion.getCos() * pu - passiveMotion.getSin() * pv) + passiveCenter.getX() + passiveVelocity.getX() * dt;
+            wy = (passiveMotion.getSin() * pu + passiveMotion.getCos() * pv) + passiveCenter.getY() + passiveVelocity.getY() * dt;
+        }
+        
+        // Undo the translation and then the rotation around the center.
+        final float u = (wx - center.getX()) - velocity.getX() * dt;
+        final float v = (wy - center.getY()) - velocity.getY() * dt;
+        final float c = motion.getCos();
+        final float s = motion.getSin();
+        
+        resultList.add(0.0f, (c * u + s * v) + center.getX(), (-s * u + c * v) + center.getY(), passiveX, passiveY, normalX, normalY);
+    }
+    
+    // Lists the collision found from the penetration of the predicted active hull into the passive one.
+    private void listPenetrationCollisions(final CollisionList resultList, final Body active, final Rot2 motion, final Body passive, final Rot2 passiveMotion, final ConvexPolygon activeT1, final ConvexPolygon passiveT0, final float dt) {
+        if (!distanceQuery.query(activeT1, passiveT0)) {
+            return;
+        }
+        
+        // The query normal points from the active body, collision normals point towards it.
+        addMovedBack(resultList, active, motion, passive, passiveMotion, distanceQuery.getPointAX(), distanceQuery.getPointAY(), distanceQuery.getPointBX(), distanceQuery.getPointBY(), -distanceQuery.getNormalX(), -distanceQuery.getNormalY(), dt);
+    }
+    
+    // Lists a collision for each point of the contact manifold between the predicted active hull and the passive one.
+    private void listClippedCollisions(final CollisionList resultList, final Body active, final Rot2 motion, final Body passive, final Rot2 passiveMotion, final ConvexPolygon activeT1, final ConvexPolygon passiveT0, final float dt) {
+        if (!contactQuery.query(activeT1, passiveT0)) {
+            return;
+        }
+        
+        // The manifold normal points from the active body, collision normals point towards it.
+        for (int i = 0; i < contactQuery.getPointCount(); i++) {
+            addMovedBack(resultList, active, motion, passive, passiveMotion, contactQuery.getPointAX(i), contactQuery.getPointAY(i), contactQuery.getPointBX(i), contactQuery.getPointBY(i), -contactQuery.getNormalX(), -contactQuery.getNormalY(), dt);
+        }
+    }
+    
+    // Writes the hull of the active body moved and rotated by its velocities over dt to a scratch polygon.
+    private ConvexPolygon predictActiveHull(final Body active, final Rot2 motion, final float dt) {
+        final ConvexPolygon activeT0 = active.getHull();
+        final ConvexPolygon activeT1 = getScratch(activeScratchList, activeT0.getVertexCount());
+        final Vector2 center = active.getCenterOfMass();
+        final Vector2 velocity = active.getVelocity();
+        
+        activeT0.transformInto(activeT1, center.getX(), center.getY(), motion.getCos(), motion.getSin(), velocity.getX() * dt, velocity.getY() * dt);
+        return activeT1;
+    }
+    
+    // Undoes the motion of a body over dt on a scratch polygon, which is done in two steps.
+    private static void moveBack(final ConvexPolygon polygon, final Body body, final Rot2 motion, final float dt) {
+        final Vector2 center = body.getCenterOfMass();
+        final Vector2 velocity = body.getVelocity();
+        
+        polygon.transformInto(polygon, 0.0f, 0.0f, 1.0f, 0.0f, -velocity.getX() * dt, -velocity.getY() * dt);
+        polygon.transformInto(polygon, center.getX(), center.getY(), motion.getCos(), -motion.getSin(), 0.0f, 0.0f);
+    }
+    
     /**
-     * Constructs a new solver.
+     * Constructs a new solver using ray casting.
      */
     public Solver() {
-        this.collisionRayList = new ArrayList();    
-        this.intersectionResultList = new ArrayList();
+        this(PhysicsEngine.NarrowPhaseType.RAY_CASTING);
+    }
+    
+    /**
+     * Constructs a new solver.
+     * @param type narrow phase implementation to find collisions with
+     */
+    public Solver(final PhysicsEngine.NarrowPhaseType type) {
+        this.type = type;
+        this.distanceQuery = new PolygonDistance();
+        this.contactQuery = new PolygonContact();
+        this.hit = new Segment2Hit();
+        this.wallLengths = new float[8];
+        this.activeScratchList = new ArrayList();
+        this.passiveScratchList = new ArrayList();
     }
     
     /**
@@ -146,26 +250,81 @@ public class Solver {
      * @return true if an only if the bodies would intersect after accounting for the motion of the active body
      */
     public boolean wouldIntersect(final Body active, final Body passive, final float dt) {
-        final ConvexPolygon activeT0 = active.getHull();
-        final ConvexPolygon activeT1 = activeT0.rotateAndTranslate(active.getCenterOfMass(), active.getAngularVelocity() * dt, active.getVelocity().scale(dt));
+        final ConvexPolygon activeT1 = predictActiveHull(active, active.getMotion(dt), dt);
         final ConvexPolygon passiveT0 = passive.getHull();
 
         return activeT1.doesIntersect(passiveT0);
     }
+    
+    /**
+     * @param active active or primary body
+     * @param passive passive or secondary body
+     * @param dt change in time
+     * @param tolerance depth of overlap allowed
+     * @return true if and only if the bodies would overlap deeper than allowed after accounting for the motion of the active body
+     */
+    public boolean wouldPenetrate(final Body active, final Body passive, final float dt, final float tolerance) {
+        final ConvexPolygon activeT1 = predictActiveHull(active, active.getMotion(dt), dt);
+        final ConvexPolygon passiveT0 = passive.getHull();
+        
+        if (!activeT1.doesIntersect(passiveT0) || !contactQuery.query(activeT1, passiveT0)) {
+            return false;
+        }
+        
+        for (int i = 0; i < contactQuery.getPointCount(); i++) {
+            if (contactQuery.getDepth(i) > tolerance) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
 
     /**
-     * Lists collisions caused by the motion of an active body.
+     * Lists collisions caused by the motion of the bodies relative to each other. Both 
+     * bodies may be moving, so each pair of bodies needs to be handled only once per step.
+     * The motion of a moving passive body must already be cached, see {@link Body#getMotion}.
      * @param resultList list to append the collisions to
      * @param active active or primary body
      * @param passive passive or secondary body
      * @param dt change in time
      */    
-    public void findCollisions(final List<Collision> resultList, final Body active, final Body passive, final float dt) {
+    public void findCollisions(final CollisionList resultList, final Body active, final Body passive, final float dt) {
+        // The rotation is cached on the body, so the trigonometry is only done once per body rather than per pair.
+        final Rot2 motion = active.getMotion(dt);
+        
+        // Static and sleeping bodies don't move, which leaves their cached motion alone.
+        final Rot2 passiveMotion = isMoving(passive) ? passive.getMotion(dt) : null;
+        
         final ConvexPolygon activeT0 = active.getHull();
-        final ConvexPolygon activeT1 = activeT0.rotateAndTranslate(active.getCenterOfMass(), active.getAngularVelocity() * dt, active.getVelocity().scale(dt));
+        final ConvexPolygon activeT1 = predictActiveHull(active, motion, dt);
+        
+        // The predicted active hull is made relative to the passive body as it is now.
+        if (passiveMotion != null) {
+            moveBack(activeT1, passive, passiveMotion, dt);
+        }
 
+        if (type == PhysicsEngine.NarrowPhaseType.GJK_EPA) {
+            listPenetrationCollisions(resultList, active, motion, passive, passiveMotion, activeT1, passive.getHull(), dt);
+            return;
+        } else if (type == PhysicsEngine.NarrowPhaseType.CLIPPING) {
+            listClippedCollisions(resultList, active, motion, passive, passiveMotion, activeT1, passive.getHull(), dt);
+            return;
+        }
+        
+        // The passive body is moved by its own motion and then relative to the active one.
         final ConvexPolygon passiveT0 = passive.getHull();
-        final ConvexPolygon passiveT1 = passiveT0.rotateAndTranslate(passive.getCenterOfMass(), 0.0f, active.getVelocity().scale(-dt)).rotateAndTranslate(active.getCenterOfMass(), -active.getAngularVelocity() * dt, new Vector2(0.0f, 0.0f));
+        final ConvexPolygon passiveT1 = getScratch(passiveScratchList, passiveT0.getVertexCount());
+        
+        if (passiveMotion != null) {
+            final Vector2 passiveCenter = passive.getCenterOfMass();
+            final Vector2 passiveVelocity = passive.getVelocity();
+            passiveT0.transformInto(passiveT1, passiveCenter.getX(), passiveCenter.getY(), passiveMotion.getCos(), passiveMotion.getSin(), passiveVelocity.getX() * dt, passiveVelocity.getY() * dt);
+        } else {
+            passiveT0.transformInto(passiveT1, 0.0f, 0.0f, 1.0f, 0.0f, 0.0f, 0.0f);
+        }
+        
+        moveBack(passiveT1, active, motion, dt);
         
         listCollisions(resultList, active, passive, activeT0, activeT1, passiveT0, passiveT1);
     }
@@ -29,207 +29,497 @@
  */
 package com.github.caniblossom.polybounce.physics;
 
-import com.github.caniblossom.polybounce.physics.body.Body;
-import com.github.caniblossom.polybounce.math.BoundingBox;
-import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.math.AABB;
 import com.github.caniblossom.polybounce.physics.body.Body;
 import com.github.caniblossom.polybounce.physics.body.RigidBody;
 import com.github.caniblossom.polybounce.physics.body.StaticBody;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * A class for sorting objects spatially.
+ * A class for sorting objects spatially. The space is divided into an unbounded
+ * grid of cells and only the occupied cells are stored, in an open addressing 
+ * hash table keyed by the cell coordinates. Cell lists are pooled and reused.
+ * Static bodies are kept in a separate layer that is built as they are added,
+ * while rigid bodies are only moved between cells when the range of cells they
+ * touch changes. Bodies touching too many cells are kept in a list of large 
+ * bodies instead, which is tested by brute force.
  * @author Jani Salo
  */
-public class SpatialTable {
+public class SpatialTable extends BroadPhase {
     // Helper class.
-    private static class Intersection {
-        public final int x0, y0, x1, y1;
-        public final boolean isValid;
-        
-        public Intersection(final int x0, final int y0, final int x1, final int y1) {
-            this.x0 = x0;
-            this.y0 = y0;
-            this.x1 = x1;
-            this.y1 = y1;
-            
-            this.isValid = true;
-        }
+    private static class CellRange {
+        public int x0, y0, x1, y1;
         
-        public Intersection() {
-            this.x0 = 0;
-            this.y0 = 0;
-            this.x1 = 0;
-            this.y1 = 0;
-            
-            this.isValid = false;
+        public long getCellCount() {
+            return (long) (x1 - x0 + 1) * (long) (y1 - y0 + 1);
+        }
+
+        public boolean overlaps(final CellRange r) {
+            return x0 <= r.x1 && r.x0 <= x1 && y0 <= r.y1 && r.y0 <= y1;
+        }
+
+        public boolean equals(final CellRange r) {
+            return x0 == r.x0 && y0 == r.y0 && x1 == r.x1 && y1 == r.y1;
+        }
+
+        public void set(final CellRange r) {
+            x0 = r.x0;
+            y0 = r.y0;
+            x1 = r.x1;
+            y1 = r.y1;
         }
     }
     
-    private final ArrayList<ArrayList<Body>> bucketTable;
-    private final BoundingBox area;
-    
-    private final int hBuckets;
-    private final int vBuckets;
-    private final int buckets;
-    
-    private final float bucketWidth;
-    private final float bucketHeight;
+    // Helper class.
+    private static class Entry {
+        public final Body body;
+        public final CellRange range;
+        
+        // Query during which the entry was last listed.
+        public int stamp;
+        
+        // True if the range has been refreshed since the body was put to sleep.
+        public boolean asleep = false;
+        
+        // True if the entry is in the list of large bodies rather than in the cells.
+        public boolean large = false;
+        
+        public Entry(final Body body) {
+            this.body = body;
+            this.range = new CellRange();
+            this.stamp = 0;
+        }
+    }
     
-    // Intersects the bounding box against the table.
-    private Intersection computeTableIntersection(final BoundingBox box) {
-        if (!box.doesIntersect(area)) {
-            return new Intersection();
+    // Helper class for a single layer of cells.
+    private static class Layer {
+        private static final long EMPTY_KEY = Long.MIN_VALUE;
+        private static final int INITIAL_CAPACITY = 256;
+
+        // Hash table from cell key to an index in the cell pool.
+        private long[] keyTable;
+        private int[] indexTable;
+        private int mask;
+
+        // Pooled cells, the first cellCount of them are in use.
+        private final ArrayList<ArrayList<Entry>> cellPool;
+        private int[] cellX;
+        private int[] cellY;
+        private int cellCount;
+        
+        // Packs cell coordinates to a key.
+        private static long createKey(final int x, final int y) {
+            return ((long) x << 32) | ((long) y & 0xffffffffL);
+        }
+
+        // Mixes the bits of a key, see: http://en.wikipedia.org/wiki/MurmurHash
+        private static int hash(final long key) {
+            long h = key;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return (int) h;
         }
-       
-        // Clamp the input box to area.
-        final float xMin = Math.max(area.getPosition().getX(), box.getPosition().getX());
-        final float yMin = Math.max(area.getPosition().getY(), box.getPosition().getY());
-        final float xMax = Math.min(area.getMaximum().getX(), box.getMaximum().getX());
-        final float yMax = Math.min(area.getMaximum().getY(), box.getMaximum().getY());
         
-        // Compute coordinates relative to area origo.
-        final float xRelMin = xMin - area.getPosition().getX();
-        final float yRelMin = yMin - area.getPosition().getY();
-        final float xRelMax = xMax - area.getPosition().getX();
-        final float yRelMax = yMax - area.getPosition().getY();
+        // Allocates the hash table.
+        private void allocateTable(final int capacity) {
+            keyTable = new long[capacity];
+            indexTable = new int[capacity];
+            mask = capacity - 1;
+
+            Arrays.fill(keyTable, EMPTY_KEY);
+        }
+
+        // Finds the slot for a key, which is either the slot holding the key or an empty one.
+        private int findSlot(final long key) {
+            int slot = hash(key) & mask;
+
+            while (keyTable[slot] != key && keyTable[slot] != EMPTY_KEY) {
+                slot = (slot + 1) & mask;
+            }
+
+            return slot;
+        }
+
+        // Doubles the size of the hash table and reinserts all the cells in use.
+        private void growTable() {
+            allocateTable(2 * keyTable.length);
+
+            for (int i = 0; i < cellCount; i++) {
+                final long key = createKey(cellX[i], cellY[i]);
+                final int slot = findSlot(key);
+
+                keyTable[slot] = key;
+                indexTable[slot] = i;
+            }
+        }
         
-        // Convert to integer coordinates.
-        final int x0 = (int) Math.floor(xRelMin / bucketWidth);
-        final int y0 = (int) Math.floor(yRelMin / bucketHeight);
-        final int x1 = (int) Math.floor(xRelMax / bucketWidth);
-        final int y1 = (int) Math.floor(yRelMax / bucketHeight);
+        // Empties a slot by shifting any following entries of the same probe sequence back.
+        private void removeSlot(int slot) {
+            int next = slot;
+            
+            while (true) {
+                next = (next + 1) & mask;
+                
+                if (keyTable[next] == EMPTY_KEY) {
+                    break;
+                }
+                
+                // Move the entry back unless its ideal slot lies cyclically between the hole and itself.
+                final int ideal = hash(keyTable[next]) & mask;
+                final boolean stays = slot <= next ? (slot < ideal && ideal <= next) : (slot < ideal || ideal <= next);
+                
+                if (!stays) {
+                    keyTable[slot] = keyTable[next];
+                    indexTable[slot] = indexTable[next];
+                    slot = next;
+                }
+            }
+            
+            keyTable[slot] = EMPTY_KEY;
+        }
+        
+        // Returns an emptied cell to the pool, keeping the cells in use packed.
+        private void freeCell(final int slot) {
+            final int index = indexTable[slot];
+            final int last = cellCount - 1;
+            
+            removeSlot(slot);
+            
+            if (index != last) {
+                Collections.swap(cellPool, index, last);
+                cellX[index] = cellX[last];
+                cellY[index] = cellY[last];
+                indexTable[findSlot(createKey(cellX[index], cellY[index]))] = index;
+            }
+            
+            cellCount--;
+        }
+        
+        public Layer() {
+            this.cellPool = new ArrayList();
+            this.cellX = new int[INITIAL_CAPACITY];
+            this.cellY = new int[INITIAL_CAPACITY];
+            this.cellCount = 0;
 
-        return new Intersection(
-            Math.max(0, Math.min(hBuckets - 1, x0)),
-            Math.max(0, Math.min(vBuckets - 1, y0)),
-            Math.max(0, Math.min(hBuckets - 1, x1)),
-            Math.max(0, Math.min(vBuckets - 1, y1))
-        );
-    }
-    
-    // Finds bounds for a body relative to time.
-    private BoundingBox computeBounds(final Body body, final float dt) {
-        final BoundingBox box = body.getHull().getBoundingBox();
+            allocateTable(INITIAL_CAPACITY);
+        }
         
-        final Vector2 center = box.getPosition().sum(new Vector2(0.5f * box.getWidth(), 0.5f * box.getHeight()));
+        // Returns the cell at given coordinates or null if it's not occupied. 
+        public ArrayList<Entry> getCell(final int x, final int y) {
+            final int slot = findSlot(createKey(x, y));
+
+            if (keyTable[slot] == EMPTY_KEY) {
+                return null;
+            }
 
-        // Account for possible rotation.
-        final float inverseRoot = 0.70710678118654752440084436210485f;
-        final float maxRadius = inverseRoot * Math.max(box.getWidth(), box.getHeight());
+            return cellPool.get(indexTable[slot]);
+        }
+
+        // Returns the cell at given coordinates, taking a new one from the pool if necessary. 
+        public ArrayList<Entry> getOrCreateCell(final int x, final int y) {
+            final long key = createKey(x, y);
+            final int slot = findSlot(key);
+
+            if (keyTable[slot] != EMPTY_KEY) {
+                return cellPool.get(indexTable[slot]);
+            }
+
+            if (cellCount == cellPool.size()) {
+                cellPool.add(new ArrayList());
+                cellX = Arrays.copyOf(cellX, Math.max(cellX.length, cellPool.size()));
+                cellY = Arrays.copyOf(cellY, Math.max(cellY.length, cellPool.size()));
+            }
+
+            keyTable[slot] = key;
+            indexTable[slot] = cellCount;
+            cellX[cellCount] = x;
+            cellY[cellCount] = y;
+
+            final ArrayList<Entry> cell = cellPool.get(cellCount++);
+
+            // Keep the load factor at or below one half.
+            if (2 * cellCount > keyTable.length) {
+                growTable();
+            }
+
+            return cell;
+        }
+        
+        // Adds an entry to every cell in its range.
+        public void insert(final Entry entry) {
+            for (int y = entry.range.y0; y <= entry.range.y1; y++) {
+                for (int x = entry.range.x0; x <= entry.range.x1; x++) {
+                    getOrCreateCell(x, y).add(entry);
+                }
+            }
+        }
         
-        final float x0 = center.getX() - maxRadius;
-        final float y0 = center.getY() - maxRadius;
-        final float x1 = center.getX() + maxRadius;
-        final float y1 = center.getY() + maxRadius;
+        // Removes an entry from every cell in its range, freeing any cells left empty.
+        public void remove(final Entry entry) {
+            for (int y = entry.range.y0; y <= entry.range.y1; y++) {
+                for (int x = entry.range.x0; x <= entry.range.x1; x++) {
+                    final int slot = findSlot(createKey(x, y));
+                    
+                    if (keyTable[slot] == EMPTY_KEY) {
+                        continue;
+                    }
+                    
+                    final ArrayList<Entry> cell = cellPool.get(indexTable[slot]);
+                    cell.remove(entry);
+                    
+                    if (cell.isEmpty()) {
+                        freeCell(slot);
+                    }
+                }
+            }
+        }
+
+        // Returns all cells to the pool.
+        public void clear() {
+            for (int i = 0; i < cellCount; i++) {
+                cellPool.get(i).clear();
+            }
+
+            cellCount = 0;
+            Arrays.fill(keyTable, EMPTY_KEY);
+        }
+        
+        // Lists the entries in range that haven't been stamped during this query yet.
+        public void collect(final List<Body> output, final CellRange range, final int stamp) {
+            // Visit the occupied cells directly if there are fewer of them than there are cells in the range.
+            if (range.getCellCount() > cellCount) {
+                for (int i = 0; i < cellCount; i++) {
+                    if (cellX[i] >= range.x0 && cellX[i] <= range.x1 && cellY[i] >= range.y0 && cellY[i] <= range.y1) {
+                        collectCell(output, cellPool.get(i), stamp);
+                    }
+                }
 
-        final float vx = body.getVelocity().getX() * dt;
-        final float vy = body.getVelocity().getY() * dt;
+                return;
+            }
 
-        float xMin = Math.min(x0, x0 + vx);
-        float yMin = Math.min(y0, y0 + vy);
-        float xMax = Math.max(x1, x1 + vx);
-        float yMax = Math.max(y1, y1 + vy);
+            for (int y = range.y0; y <= range.y1; y++) {
+                for (int x = range.x0; x <= range.x1; x++) {
+                    final ArrayList<Entry> cell = getCell(x, y);
+
+                    if (cell != null) {
+                        collectCell(output, cell, stamp);
+                    }
+                }
+            }
+        }
+        
+        // Lists the entries of a cell that haven't been stamped yet.
+        private static void collectCell(final List<Body> output, final ArrayList<Entry> cell, final int stamp) {
+            for (Entry entry : cell) {
+                if (entry.stamp != stamp) {
+                    entry.stamp = stamp;
+                    output.add(entry.body);
+                }
+            }
+        }
+    }
+    
+    // Cell coordinates are clamped so that the keys never collide with the empty key.
+    private static final int MAX_CELL_COORDINATE = 1 << 30;
+    
+    // Bodies touching more cells than this are tested by brute force instead.
+    private static final int MAX_CELLS_PER_BODY = 64;
+    
+    private final float cellWidth;
+    private final float cellHeight;
+
+    private final Layer staticLayer;
+    private final Layer dynamicLayer;
+    
+    private final ArrayList<Entry> staticEntryList;
+    private final ArrayList<Entry> rigidEntryList;
+    private final ArrayList<Entry> largeEntryList;
+    
+    private final CellRange range;
+    private final AABB box;
+    private int stamp;
+    
+    // Converts a coordinate to a cell coordinate.
+    private static int toCell(final float value, final float cellSize) {
+        final float cell = (float) Math.floor(value / cellSize);
+        return (int) Math.max(-MAX_CELL_COORDINATE, Math.min(MAX_CELL_COORDINATE, cell));
+    }
+    
+    // Computes the cells touched by a box.
+    private void computeCellRange(final CellRange output, final AABB box) {
+        output.x0 = toCell(box.getXMin(), cellWidth);
+        output.y0 = toCell(box.getYMin(), cellHeight);
+        output.x1 = toCell(box.getXMax(), cellWidth);
+        output.y1 = toCell(box.getYMax(), cellHeight);
+    }
+    
+    // Starts a new query, resetting the stamps once the counter runs out.
+    private int nextStamp() {
+        if (stamp == Integer.MAX_VALUE) {
+            for (Entry entry : staticEntryList) {
+                entry.stamp = 0;
+            }
+            
+            for (Entry entry : rigidEntryList) {
+                entry.stamp = 0;
+            }
+            
+            stamp = 0;
+        }
         
-        return new BoundingBox(new Vector2(xMin, yMin), Math.max(0.0f, xMax - xMin), Math.max(0.0f, yMax - yMin));
+        return ++stamp;
+    }
+    
+    // Adds an entry to the cells of a layer, or to the large bodies if its range is too wide.
+    private void insert(final Layer layer, final Entry entry) {
+        entry.large = entry.range.getCellCount() > MAX_CELLS_PER_BODY;
+        
+        if (entry.large) {
+            largeEntryList.add(entry);
+        } else {
+            layer.insert(entry);
+        }
+    }
+    
+    // Removes an entry from where it was inserted.
+    private void remove(final Layer layer, final Entry entry) {
+        if (entry.large) {
+            largeEntryList.remove(entry);
+        } else {
+            layer.remove(entry);
+        }
     }
     
-    // Non checked version.
-    private ArrayList<Body> getBucketAt(int x, int y) {
-        return bucketTable.get(x + y * hBuckets);        
+    // Lists the bodies in every layer, including the large bodies, whose cells overlap the range.
+    private void collect(final List<Body> output, final CellRange range) {
+        final int currentStamp = nextStamp();
+        
+        dynamicLayer.collect(output, range, currentStamp);
+        staticLayer.collect(output, range, currentStamp);
+        
+        // Large bodies are held to the same rule as the cells, so that the candidates stay symmetric.
+        for (Entry entry : largeEntryList) {
+            if (entry.stamp != currentStamp && entry.range.overlaps(range)) {
+                entry.stamp = currentStamp;
+                output.add(entry.body);
+            }
+        }
     }
     
     /**
      * Constructs a new spatial table for sorting bodies.
-     * @param area
-     * @param hBuckets
-     * @param vBuckets 
+     * @param cellWidth width of a single cell
+     * @param cellHeight height of a single cell
      */
-    public SpatialTable(final BoundingBox area, final int hBuckets, final int vBuckets) {
-        assert hBuckets > 0 && vBuckets > 0;
+    public SpatialTable(final float cellWidth, final float cellHeight) {
+        assert cellWidth > 0.0f && cellHeight > 0.0f;
         
-        this.bucketTable = new ArrayList();
-        this.area = area;
-        
-        this.hBuckets = hBuckets;
-        this.vBuckets = vBuckets;
-        this.buckets = hBuckets * vBuckets;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
 
-        for (int i = 0; i < buckets; i++) {
-            this.bucketTable.add(new ArrayList());
-        }
+        this.staticLayer = new Layer();
+        this.dynamicLayer = new Layer();
         
-        this.bucketWidth = area.getWidth() / (float) hBuckets;
-        this.bucketHeight = area.getHeight() / (float) vBuckets;
+        this.staticEntryList = new ArrayList();
+        this.rigidEntryList = new ArrayList();
+        this.largeEntryList = new ArrayList();
+        
+        this.range = new CellRange();
+        this.box = new AABB();
+        this.stamp = 0;
     }
     
     /**
      * Removes all bodies from the table.
      */
+    @Override
     public void clear() {
-        for (ArrayList<Body> list : bucketTable) {
-            list.clear();
-        }
+        staticLayer.clear();
+        dynamicLayer.clear();
+        
+        staticEntryList.clear();
+        rigidEntryList.clear();
+        largeEntryList.clear();
     }
     
     /**
-     * @param body body to add to the table.
+     * @param body rigid body to add
      */
-    public void addBody(final Body body) {
-        final Intersection i = computeTableIntersection(body.getHull().getBoundingBox());
+    @Override
+    public void addRigidBody(final RigidBody body) {
+        final Entry entry = new Entry(body);
+        body.getBounds(box);
+        computeCellRange(entry.range, box);
         
-        if (i.isValid) {
-            for (int y = i.y0; y <= i.y1; y++) {
-                for (int x = i.x0; x <= i.x1; x++) {
-                    getBucketAt(x, y).add(body);
-                }
-            }
-        }
+        rigidEntryList.add(entry);
+        insert(dynamicLayer, entry);
     }
 
     /**
-     * @param list list of rigid bodies to add
+     * Adds a static body to the static layer, where it stays until the table is cleared.
+     * @param body static body to add
      */
-    public void addRigidBodyList(final List<RigidBody> list) {
-        for (RigidBody body : list) {
-            addBody(body);
-        }
+    @Override
+    public void addStaticBody(final StaticBody body) {
+        final Entry entry = new Entry(body);
+        body.getBounds(box);
+        computeCellRange(entry.range, box);
+        
+        staticEntryList.add(entry);
+        insert(staticLayer, entry);
     }
     
     /**
-     * @param list list of static bodies to add
+     * Moves the rigid bodies whose range of cells over the next step has changed.
+     * @param dt change in time for the next step
      */
-    public void addStaticBodyList(final List<StaticBody> list) {
-        for (StaticBody body : list) {
-            addBody(body);
+    @Override
+    public void update(final float dt) {
+        for (Entry entry : rigidEntryList) {
+            if (entry.asleep && entry.body.isSleeping()) {
+                continue;
+            }
+            
+            entry.asleep = entry.body.isSleeping();
+            computeBounds(entry.body, dt, box);
+            computeCellRange(range, box);
+            
+            if (!range.equals(entry.range)) {
+                remove(dynamicLayer, entry);
+                entry.range.set(range);
+                insert(dynamicLayer, entry);
+            }
         }
     }
 
     /**
      * Finds possible intersections for a body from the table.
-     * @param output list to add the candidates to
+     * @param output list to add the candidates to, each candidate is added once
      * @param body body to test
      * @param dt change in time
      */
+    @Override
     public void findPossibleIntersections(final List<Body> output, final Body body, final float dt) {
-        final BoundingBox box = computeBounds(body, dt);
-        final Intersection i = computeTableIntersection(box);
-        
-        if (i.isValid) {
-            for (int y = i.y0; y <= i.y1; y++) {
-                for (int x = i.x0; x <= i.x1; x++) {
-                    final ArrayList<Body> currentBucket = getBucketAt(x, y);           
-
-                    // Add any bodies that are not yet listed - the default implementation of equals 
-                    // is just fine here. Obviosly very slow if the list is big (which shouldn't be the case).
-                    for (Body currentBody : currentBucket) {
-                        if (!output.contains(currentBody)) {
-                            output.add(currentBody);
-                        }
-                    }
-                }
-            }
-        }        
+        computeBounds(body, dt, box);
+        computeCellRange(range, box);
+        collect(output, range);
+    }
+    
+    /**
+     * Finds the bodies in the cells overlapped by a box, which may include bodies
+     * that don't overlap the box themselves.
+     * @param output list to add the bodies to, each body is added once
+     * @param bounds box to test
+     */
+    @Override
+    public void findBodiesInBounds(final List<Body> output, final AABB bounds) {
+        computeCellRange(range, bounds);
+        collect(output, range);
     }
 }
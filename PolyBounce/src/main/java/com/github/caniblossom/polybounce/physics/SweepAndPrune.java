@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics;
+
+import com.github.caniblossom.polybounce.math.AABB;
+import com.github.caniblossom.polybounce.math.AABBArray;
+import com.github.caniblossom.polybounce.physics.body.Body;
+import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.StaticBody;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * A sweep and prune broad phase working along the x-axis. The endpoints of the 
+ * body bounds are kept sorted across updates with an insertion sort, which is 
+ * close to linear as long as the bodies move only a little between updates. 
+ * Every swap of endpoints updates a persistent set of pairs overlapping on x.
+ * See: http://en.wikipedia.org/wiki/Sweep_and_prune
+ * @author Jani Salo
+ */
+public class SweepAndPrune extends BroadPhase {
+    // Helper class.
+    private static class Proxy {
+        public final Body body;
+        public final int index;
+        public final boolean isStatic;
+        public final ArrayList<Proxy> overlapList;
+        
+        // True if the bounds have been refreshed since the body was put to sleep.
+        public boolean asleep = false;
+        
+        public Proxy(final Body body, final int index, final boolean isStatic) {
+            this.body = body;
+            this.index = index;
+            this.isStatic = isStatic;
+            this.overlapList = new ArrayList();
+        }
+    }
+    
+    private static final int INITIAL_CAPACITY = 64;
+    
+    private final ArrayList<Proxy> proxyList;
+    private final IdentityHashMap<Body, Proxy> proxyMap;
+    
+    // Bounds swept over the whole step, indexed like the proxies.
+    private final AABBArray stepBoundsArray;
+    private final AABB box;
+    private int[] foundIndices;
+    
+    // Endpoints are stored as proxy index shifted left by one, with the lowest bit set for maximums.
+    private float[] endpointValue;
+    private int[] endpointData;
+    private int endpointCount;
+    
+    private boolean needsRebuild;
+    
+    // Returns true if the endpoint is a maximum.
+    private static boolean isMaximum(final int data) {
+        return (data & 1) == 1;
+    }
+    
+    // Returns the proxy related to the endpoint.
+    private Proxy getProxy(final int data) {
+        return proxyList.get(data >>> 1);
+    }
+    
+    // Orders endpoints by value and puts minimums first on ties so that touching bounds overlap.
+    private boolean isLess(final int a, final int b) {
+        if (endpointValue[a] != endpointValue[b]) {
+            return endpointValue[a] < endpointValue[b];
+        }
+        
+        return !isMaximum(endpointData[a]) && isMaximum(endpointData[b]);
+    }
+    
+    // Swaps two endpoints.
+    private void swap(final int a, final int b) {
+        final float value = endpointValue[a];
+        endpointValue[a] = endpointValue[b];
+        endpointValue[b] = value;
+        
+        final int data = endpointData[a];
+        endpointData[a] = endpointData[b];
+        endpointData[b] = data;
+    }
+    
+    // Makes sure the endpoint arrays can hold given number of endpoints.
+    private void reserve(final int count) {
+        if (count > endpointValue.length) {
+            final int capacity = Math.max(count, 2 * endpointValue.length);
+            
+            final float[] newValue = new float[capacity];
+            final int[] newData = new int[capacity];
+            
+            System.arraycopy(endpointValue, 0, newValue, 0, endpointCount);
+            System.arraycopy(endpointData, 0, newData, 0, endpointCount);
+            
+            endpointValue = newValue;
+            endpointData = newData;
+        }
+    }
+    
+    // Adds a pair, static pairs are never queried and hence not stored.
+    private static void addPair(final Proxy a, final Proxy b) {
+        if (a.isStatic && b.isStatic) {
+            return;
+        }
+        
+        a.overlapList.add(b);
+        b.overlapList.add(a);
+    }
+    
+    // Removes a proxy from a list if it's there by moving the last proxy into its place, as the order doesn't matter.
+    private static void removeUnordered(final ArrayList<Proxy> list, final Proxy proxy) {
+        final int last = list.size() - 1;
+        
+        for (int i = last; i >= 0; i--) {
+            if (list.get(i) == proxy) {
+                list.set(i, list.get(last));
+                list.remove(last);
+                return;
+            }
+        }
+    }
+    
+    // Removes a pair if it exists.
+    private static void removePair(final Proxy a, final Proxy b) {
+        removeUnordered(a.overlapList, b);
+        removeUnordered(b.overlapList, a);
+    }
+    
+    // Adds a new proxy and its endpoints to the end of the arrays.
+    private void addProxy(final Body body, final boolean isStatic) {
+        final int index = proxyList.size();
+        final Proxy proxy = new Proxy(body, index, isStatic);
+        
+        body.getBounds(box);
+        stepBoundsArray.add(box);
+
+        proxyList.add(proxy);
+        proxyMap.put(body, proxy);
+        
+        reserve(endpointCount + 2);
+        
+        endpointValue[endpointCount] = box.getXMin();
+        endpointData[endpointCount++] = index << 1;
+        endpointValue[endpointCount] = box.getXMax();
+        endpointData[endpointCount++] = (index << 1) | 1;
+
+        needsRebuild = true;
+    }
+    
+    // Refreshes the bounds of all moving bodies and copies them to the endpoints.
+    private void refreshEndpoints(final float dt) {
+        for (Proxy proxy : proxyList) {
+            if (proxy.isStatic || (proxy.asleep && proxy.body.isSleeping())) {
+                continue;
+            }
+            
+            computeBounds(proxy.body, dt, box);
+            stepBoundsArray.set(proxy.index, box);
+            
+            proxy.asleep = proxy.body.isSleeping();
+        }
+        
+        for (int i = 0; i < endpointCount; i++) {
+            final int index = endpointData[i] >>> 1;
+            endpointValue[i] = isMaximum(endpointData[i]) ? stepBoundsArray.getXMax(index) : stepBoundsArray.getXMin(index);
+        }
+    }
+    
+    // Sorts the endpoints and updates the pairs for every swap.
+    private void sortIncrementally() {
+        for (int i = 1; i < endpointCount; i++) {
+            for (int j = i; j > 0 && isLess(j, j - 1); j--) {
+                final int moving = endpointData[j];
+                final int passed = endpointData[j - 1];
+                
+                // A minimum moving past a maximum starts an overlap and 
+                // a maximum moving past a minimum ends one.
+                if (!isMaximum(moving) && isMaximum(passed)) {
+                    addPair(getProxy(moving), getProxy(passed));
+                } else if (isMaximum(moving) && !isMaximum(passed)) {
+                    removePair(getProxy(moving), getProxy(passed));
+                }
+                
+                swap(j, j - 1);
+            }
+        }
+    }
+    
+    // Sorts the endpoints without tracking swaps and rebuilds all pairs with a single sweep.
+    private void sortAndSweep() {
+        for (int i = 1; i < endpointCount; i++) {
+            for (int j = i; j > 0 && isLess(j, j - 1); j--) {
+                swap(j, j - 1);
+            }
+        }
+        
+        final ArrayList<Proxy> activeList = new ArrayList();
+        
+        for (Proxy proxy : proxyList) {
+            proxy.overlapList.clear();
+        }
+        
+        for (int i = 0; i < endpointCount; i++) {
+            final Proxy proxy = getProxy(endpointData[i]);
+            
+            if (isMaximum(endpointData[i])) {
+                removeUnordered(activeList, proxy);
+            } else {
+                for (Proxy active : activeList) {
+                    addPair(proxy, active);
+                }
+
+                activeList.add(proxy);
+            }
+        }
+        
+        needsRebuild = false;
+    }
+    
+    /**
+     * Constructs a new empty sweep and prune broad phase.
+     */
+    public SweepAndPrune() {
+        this.proxyList = new ArrayList();
+        this.proxyMap = new IdentityHashMap();
+        
+        this.stepBoundsArray = new AABBArray();
+        this.box = new AABB();
+        this.foundIndices = new int[INITIAL_CAPACITY];
+        
+        this.endpointValue = new float[INITIAL_CAPACITY];
+        this.endpointData = new int[INITIAL_CAPACITY];
+        this.endpointCount = 0;
+        
+        this.needsRebuild = false;
+    }
+    
+    /**
+     * Removes all bodies.
+     */
+    @Override
+    public void clear() {
+        proxyList.clear();
+        proxyMap.clear();
+        stepBoundsArray.clear();
+        endpointCount = 0;
+        needsRebuild = false;
+    }
+    
+    /**
+     * @param body rigid body to add
+     */
+    @Override
+    public void addRigidBody(final RigidBody body) {
+        addProxy(body, false);
+    }
+
+    /**
+     * @param body static body to add
+     */
+    @Override
+    public void addStaticBody(final StaticBody body) {
+        addProxy(body, true);
+    }
+    
+    /**
+     * Updates the bounds of the moving bodies and the overlapping pairs. 
+     * Rebuilds the pairs from scratch if bodies have been added since last update.
+     * @param dt change in time for the next step
+     */
+    @Override
+    public void update(final float dt) {
+        refreshEndpoints(dt);
+        
+        if (needsRebuild) {
+            sortAndSweep();
+        } else {
+            sortIncrementally();
+        }
+    }
+    
+    /**
+     * Finds possible intersections for a body from the pairs found during last update.
+     * The pairs are filtered by testing the bounds of both bodies over the step against
+     * each other, as the other body may already have moved. Bodies that haven't been 
+     * added have no pairs.
+     * @param output list to add the candidates to, each candidate is added once
+     * @param body body to test
+     * @param dt ignored, the value given to the last update is used instead
+     */
+    @Override
+    public void findPossibleIntersections(final List<Body> output, final Body body, final float dt) {
+        final Proxy proxy = proxyMap.get(body);
+        
+        if (proxy == null) {
+            return;
+        }
+        
+        stepBoundsArray.get(proxy.index, box);
+        
+        for (Proxy other : proxy.overlapList) {
+            if (stepBoundsArray.doesOverlap(other.index, box)) {
+                output.add(other.body);
+            }
+        }
+    }
+    
+    /**
+     * Tests the box against the bounds of every body, which is fine for the rare queries 
+     * that aren't about a pair of bodies.
+     * @param output list to add the bodies to, each body is added once
+     * @param bounds box to test
+     */
+    @Override
+    public void findBodiesInBounds(final List<Body> output, final AABB bounds) {
+        if (foundIndices.length < proxyList.size()) {
+            foundIndices = new int[2 * proxyList.size()];
+        }
+        
+        final int count = stepBoundsArray.findOverlaps(bounds, foundIndices);
+        
+        for (int i = 0; i < count; i++) {
+            output.add(proxyList.get(foundIndices[i]).body);
+        }
+    }
+}
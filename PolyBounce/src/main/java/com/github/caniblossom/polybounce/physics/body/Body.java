@@ -29,7 +29,10 @@
  */
 package com.github.caniblossom.polybounce.physics.body;
 
+import com.github.caniblossom.polybounce.math.AABB;
+import com.github.caniblossom.polybounce.math.BoundingBox;
 import com.github.caniblossom.polybounce.math.ConvexPolygon;
+import com.github.caniblossom.polybounce.math.Rot2;
 import com.github.caniblossom.polybounce.math.Vector2;
 
 /**
@@ -44,9 +47,20 @@ public abstract class Body {
     
     private Vector2 position;
     private float rotation;
+    private Rot2 rot;
     private Vector2 velocity;
     private float angularVelocity;
     
+    // Rotation by the angular velocity over the step last asked for, as it's needed for every pair of the body.
+    private float motionAngle = 0.0f;
+    private Rot2 motion = Rot2.IDENTITY;
+    
+    private boolean sleeping = false;
+    private float sleepTime = 0.0f;
+    
+    // Changed whenever the position or the rotation changes.
+    private int version = 0;
+    
     /**
      * Construct a new rigid body.
      * @param mass total mass of the body
@@ -66,6 +80,7 @@ public abstract class Body {
         
         this.position = position;
         this.rotation = rotation;
+        this.rot = new Rot2(rotation);
         this.velocity = velocity;
         this.angularVelocity = angularVelocity;
     }
@@ -76,6 +91,13 @@ public abstract class Body {
     public float getMass() {
         return mass;
     }
+    
+    /**
+     * @return inverse of the mass, zero if impulses don't move the body
+     */
+    public float getInverseMass() {
+        return 1.0f / mass;
+    }
      
     /**
      * @return bounciness of the body
@@ -114,6 +136,32 @@ public abstract class Body {
         return rotation;
     }
     
+    /**
+     * @return current rotation as cosine and sine, which are only computed when the rotation is set
+     */
+    public Rot2 getRot() {
+        return rot;
+    }
+    
+    /**
+     * Returns the rotation of the body over a step at its current angular velocity. The cosine
+     * and sine are only computed again when the angle of the rotation changes, so asking for 
+     * it for every pair the body is in costs no trigonometry. A call that computes them changes 
+     * the body, so it mustn't race with calls from other threads.
+     * @param dt change in time
+     * @return rotation by the angular velocity over the step
+     */
+    public Rot2 getMotion(final float dt) {
+        final float angle = angularVelocity * dt;
+        
+        if (angle != motionAngle) {
+            motion = new Rot2(angle);
+            motionAngle = angle;
+        }
+        
+        return motion;
+    }
+    
     /**
      * @return current velocity
      */
@@ -133,6 +181,7 @@ public abstract class Body {
      */
     public void setPosition(final Vector2 position) {
         this.position = position;
+        version++;
     }
 
     /**
@@ -140,6 +189,8 @@ public abstract class Body {
      */
     public void setRotation(final float rotation) {
         this.rotation = rotation;
+        this.rot = new Rot2(rotation);
+        version++;
     }    
 
     /**
@@ -155,12 +206,67 @@ public abstract class Body {
     public void setAngularVelocity(final float velocity) {
         angularVelocity = velocity;
     }    
+    
+    /**
+     * Returns a counter that changes whenever the body is moved or rotated,
+     * so that anything computed from the placement of the body can be cached.
+     * @return current version of the placement of the body
+     */
+    public int getVersion() {
+        return version;
+    }
+    
+    /**
+     * @return true if and only if the body has been put to sleep
+     */
+    public boolean isSleeping() {
+        return sleeping;
+    }
+    
+    /**
+     * @return time the body has been resting for
+     */
+    public float getSleepTime() {
+        return sleepTime;
+    }
+    
+    /**
+     * @param time new time the body has been resting for
+     */
+    public void setSleepTime(final float time) {
+        sleepTime = time;
+    }
+    
+    /**
+     * Puts the body to sleep and stops it. A sleeping body is expected to stay
+     * where it is until it's woken up.
+     */
+    public void sleep() {
+        sleeping = true;
+        velocity = new Vector2(0.0f, 0.0f);
+        angularVelocity = 0.0f;
+    }
+    
+    /**
+     * Wakes the body up and resets the time it has been resting for.
+     */
+    public void wake() {
+        sleeping = false;
+        sleepTime = 0.0f;
+    }
         
     /**
      * @return moment of inertia around the center of the mass
      */
     public abstract float getMomentOfInertiaAroundCenterOfMass();
     
+    /**
+     * @return inverse of the moment of inertia, zero if impulses don't rotate the body
+     */
+    public float getInverseMomentOfInertia() {
+        return 1.0f / getMomentOfInertiaAroundCenterOfMass();
+    }
+    
     /**
      * @return center of mass for the body in world space
      */
@@ -173,10 +279,24 @@ public abstract class Body {
     public abstract Vector2 getVelocityAtPosition(final Vector2 position);
 
     /**
-     * @return new convex polygon representing the hull of the body in world space currently. 
+     * @return convex polygon representing the hull of the body in world space currently
      */
     public abstract ConvexPolygon getHull();
     
+    /**
+     * @return bounding box of the hull of the body in world space currently
+     */
+    public BoundingBox getBoundingBox() {
+        return getHull().getBoundingBox();
+    }
+    
+    /**
+     * @param output box to write the bounds of the hull of the body in world space to
+     */
+    public void getBounds(final AABB output) {
+        getHull().getBounds(output);
+    }
+    
     /**
      * Updates the position and rotation of the body
      * @param dt change in time
@@ -39,10 +39,19 @@ import com.github.caniblossom.polybounce.math.Vector2;
  * @author Jani Salo
  */
 public class RigidBody extends Body {
-    private final ConvexPolygon hull;
+    // Helper class, immutable so that it can be shared between threads without locking.
+    private static class HullCache {
+        public final int version;
+        public final ConvexPolygon hull;
+        
+        public HullCache(final int version, final ConvexPolygon hull) {
+            this.version = version;
+            this.hull = hull;
+        }
+    }
     
-    private final float massPerVertex;
-    private final float momentOfInertiaAroundCenterOfMass;
+    private final Shape shape;
+    private HullCache hullCache = null;
         
     /**
      * Construct a new rigid body.
@@ -57,37 +66,46 @@ public class RigidBody extends Body {
      * @param angularVelocity angular velocity of the body around center of mass
      */
     public RigidBody(final ConvexPolygon hull, final float mass, final float bounciness, final float staticFriction, final float dynamicFriction, final Vector2 position, final float rotation, final Vector2 velocity, final float angularVelocity) {
-        super(mass, bounciness, staticFriction, dynamicFriction, position, rotation, velocity, angularVelocity);
-        
-        this.hull = hull;
-        this.massPerVertex = getMass() / (float) hull.getUnmodifiableViewToVertexList().size();
-        
-        float sum = 0.0f;
-        for (Vector2 p : hull.getUnmodifiableViewToVertexList()) {
-            final float r = 1.0f * p.difference(hull.getVertexAverage()).length();
-            sum += massPerVertex * r * r;
-        }
-        
-        this.momentOfInertiaAroundCenterOfMass = sum;
+        this(new Shape(hull, mass), bounciness, staticFriction, dynamicFriction, position, rotation, velocity, angularVelocity);
     }
     
     /**
-     * Copy constructor.
+     * Construct a new rigid body from a possibly shared shape.
+     * @param shape shape of the body, also gives the mass of the body
+     * @param bounciness bounciness of the body, value range [0, 1]
+     * @param staticFriction static friction as a cosine of an angle, value range [0, 1]
+     * @param dynamicFriction friction after overcoming static friction as relative resistance, value range [0, 1]
+     * @param position position of the body
+     * @param rotation rotation of the body
+     * @param velocity velocity of the body
+     * @param angularVelocity angular velocity of the body around center of mass
+     */
+    public RigidBody(final Shape shape, final float bounciness, final float staticFriction, final float dynamicFriction, final Vector2 position, final float rotation, final Vector2 velocity, final float angularVelocity) {
+        super(shape.getMass(), bounciness, staticFriction, dynamicFriction, position, rotation, velocity, angularVelocity);
+        this.shape = shape;
+    }
+    
+    /**
+     * Copy constructor. The copy shares the shape of the original.
      * @param body body to copy
      */
     public RigidBody(final RigidBody body) {
         super(body.getMass(), body.getBounciness(), body.getStaticFriction(), body.getDynamicFriction(), new Vector2(body.getPosition()), body.getRotation(), new Vector2(body.getVelocity()), body.getAngularVelocity());
-        
-        this.hull = new ConvexPolygon(body.hull);
-        this.massPerVertex = body.massPerVertex;
-        this.momentOfInertiaAroundCenterOfMass = body.momentOfInertiaAroundCenterOfMass;
+        this.shape = body.shape;
+    }
+    
+    /**
+     * @return shape of the body
+     */
+    public Shape getShape() {
+        return shape;
     }
     
     /**
      * @return mass per vertex.
      */
     public float getMassPerVertex() {
-        return massPerVertex;
+        return shape.getMassPerVertex();
     }
     
     /**
@@ -95,7 +113,7 @@ public class RigidBody extends Body {
      */
     @Override
     public float getMomentOfInertiaAroundCenterOfMass() {
-        return momentOfInertiaAroundCenterOfMass;
+        return shape.getMomentOfInertiaAroundCenterOfMass();
     }
     
     /**
@@ -120,11 +138,23 @@ public class RigidBody extends Body {
     }
     
     /**
-     * @return new convex polygon representing the hull of the body in world space currently. 
+     * Returns the hull of the body in world space. The hull is cached until the body is moved or rotated.
+     * @return convex polygon representing the hull of the body in world space currently
      */
     @Override
     public ConvexPolygon getHull() {
-        return hull.rotateAndTranslate(hull.getVertexAverage(), getRotation(), getPosition());
+        // Copy the reference, as another thread might replace the cache at any time.
+        final HullCache cache = hullCache;
+        
+        if (cache != null && cache.version == getVersion()) {
+            return cache.hull;
+        }
+        
+        final ConvexPolygon hull = shape.getHull();
+        final ConvexPolygon worldHull = hull.rotateAndTranslate(hull.getVertexAverage(), getRot(), getPosition());
+        hullCache = new HullCache(getVersion(), worldHull);
+        
+        return worldHull;
     }
     
     /**
@@ -148,6 +178,6 @@ public class RigidBody extends Body {
         setVelocity(getVelocity().sum(impulse.scale(1.0f / getMass())));
         
         final Vector2 r = position.difference(getCenterOfMass());
-        setAngularVelocity(getAngularVelocity() + r.cross(impulse.normal()) * impulse.length() / momentOfInertiaAroundCenterOfMass);
+        setAngularVelocity(getAngularVelocity() + r.cross(impulse.normal()) * impulse.length() / shape.getMomentOfInertiaAroundCenterOfMass());
     }
 }
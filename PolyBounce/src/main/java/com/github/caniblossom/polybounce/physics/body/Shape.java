@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics.body;
+
+import com.github.caniblossom.polybounce.math.ConvexPolygon;
+import com.github.caniblossom.polybounce.math.Vector2;
+
+/**
+ * An immutable shape in body space along with its mass properties. Shapes 
+ * carry no position, so any number of bodies and their copies can share one.
+ * See {@link ShapeRegistry} for sharing equal shapes built separately.
+ * @author Jani Salo
+ */
+public class Shape {
+    private final ConvexPolygon hull;
+    
+    private final float mass;
+    private final float massPerVertex;
+    private final float momentOfInertiaAroundCenterOfMass;
+    
+    /**
+     * Constructs a new shape. The mass is spread evenly over the vertices of the hull.
+     * @param hull a convex polygon representing the shape in body space
+     * @param mass total mass of the shape
+     */
+    public Shape(final ConvexPolygon hull, final float mass) {
+        this.hull = hull.isScratch() ? new ConvexPolygon(hull) : hull;
+        this.mass = mass;
+        this.massPerVertex = mass / (float) hull.getVertexCount();
+        
+        float sum = 0.0f;
+        for (Vector2 p : hull.getUnmodifiableViewToVertexList()) {
+            final float r = 1.0f * p.difference(hull.getVertexAverage()).length();
+            sum += massPerVertex * r * r;
+        }
+        
+        this.momentOfInertiaAroundCenterOfMass = sum;
+    }
+    
+    /**
+     * @return convex polygon representing the shape in body space
+     */
+    public ConvexPolygon getHull() {
+        return hull;
+    }
+    
+    /**
+     * @return total mass of the shape
+     */
+    public float getMass() {
+        return mass;
+    }
+    
+    /**
+     * @return mass per vertex
+     */
+    public float getMassPerVertex() {
+        return massPerVertex;
+    }
+    
+    /**
+     * @return moment of inertia around the center of mass
+     */
+    public float getMomentOfInertiaAroundCenterOfMass() {
+        return momentOfInertiaAroundCenterOfMass;
+    }
+}
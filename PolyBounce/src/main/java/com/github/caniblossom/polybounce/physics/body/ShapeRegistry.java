@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics.body;
+
+import com.github.caniblossom.polybounce.math.ConvexPolygon;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A registry interning shapes, so that every body built from an equal hull 
+ * with an equal mass references the same shape. Hulls are compared vertex by 
+ * vertex, including their starting vertex.
+ * @author Jani Salo
+ */
+public class ShapeRegistry {
+    // Helper class, identifies a shape by its mass and coordinates.
+    private static class Key {
+        private final float[] values;
+        private final int hash;
+        
+        public Key(final ConvexPolygon hull, final float mass) {
+            final int count = hull.getVertexCount();
+            
+            this.values = new float[2 * count + 1];
+            this.values[0] = mass;
+            
+            for (int i = 0; i < count; i++) {
+                this.values[2 * i + 1] = hull.getVertexX(i);
+                this.values[2 * i + 2] = hull.getVertexY(i);
+            }
+            
+            this.hash = Arrays.hashCode(values);
+        }
+        
+        @Override
+        public boolean equals(final Object object) {
+            return object instanceof Key && Arrays.equals(values, ((Key) object).values);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+    private final HashMap<Key, Shape> shapeMap;
+    
+    /**
+     * Constructs a new empty registry.
+     */
+    public ShapeRegistry() {
+        this.shapeMap = new HashMap();
+    }
+    
+    /**
+     * Returns the shape registered for a hull and a mass, registering a new one if there is none.
+     * @param hull a convex polygon representing the shape in body space
+     * @param mass total mass of the shape
+     * @return shared shape
+     */
+    public synchronized Shape getShape(final ConvexPolygon hull, final float mass) {
+        final Key key = new Key(hull, mass);
+        final Shape shape = shapeMap.get(key);
+        
+        if (shape != null) {
+            return shape;
+        }
+        
+        final Shape newShape = new Shape(hull, mass);
+        shapeMap.put(key, newShape);
+        
+        return newShape;
+    }
+    
+    /**
+     * @return number of registered shapes
+     */
+    public synchronized int size() {
+        return shapeMap.size();
+    }
+    
+    /**
+     * Forgets all registered shapes. Bodies keep the shapes they already reference.
+     */
+    public synchronized void clear() {
+        shapeMap.clear();
+    }
+}
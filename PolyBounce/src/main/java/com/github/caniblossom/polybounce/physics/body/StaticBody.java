@@ -38,6 +38,7 @@ import com.github.caniblossom.polybounce.math.Vector2;
  * @author Jani Salo
  */
 public class StaticBody extends Body {
+    private final Shape shape;
     private final ConvexPolygon hull;
         
     /**
@@ -51,18 +52,44 @@ public class StaticBody extends Body {
      * @param rotation rotation of the body
      */
     public StaticBody(final ConvexPolygon hull, final float mass, final float bounciness, final float staticFriction, final float dynamicFriction, final Vector2 position, final float rotation) {
-        super(mass, bounciness, staticFriction, dynamicFriction, position, rotation, new Vector2(0.0f, 0.0f), 0.0f);
-        this.hull = hull.rotateAndTranslate(getPosition().sum(hull.getVertexAverage()), getRotation(), getPosition());
+        this(new Shape(hull, mass), bounciness, staticFriction, dynamicFriction, position, rotation);
+    }
+    
+    /**
+     * Constructs a new static body from a possibly shared shape.
+     * @param shape shape of the body, its mass is returned for any mass related methods
+     * @param bounciness bounciness of the body, value range [0, 1]
+     * @param staticFriction static friction as a cosine of an angle, value range [0, 1]
+     * @param dynamicFriction friction after overcoming static friction as relative resistance, value range [0, 1]
+     * @param position position of the body
+     * @param rotation rotation of the body
+     */
+    public StaticBody(final Shape shape, final float bounciness, final float staticFriction, final float dynamicFriction, final Vector2 position, final float rotation) {
+        super(shape.getMass(), bounciness, staticFriction, dynamicFriction, position, rotation, new Vector2(0.0f, 0.0f), 0.0f);
+        
+        final ConvexPolygon localHull = shape.getHull();
+        
+        this.shape = shape;
+        this.hull = localHull.rotateAndTranslate(getPosition().sum(localHull.getVertexAverage()), getRot(), getPosition());
     }
 
     /**
-     * Copy constructor.
+     * Copy constructor. The copy shares the shape and the world space hull of the original.
      * @param body body to copy
      */
     public StaticBody(final StaticBody body) {
         super(body.getMass(), body.getBounciness(), body.getStaticFriction(), body.getDynamicFriction(), new Vector2(body.getPosition()), body.getRotation(), new Vector2(body.getVelocity()), body.getAngularVelocity());        
-        this.hull = new ConvexPolygon(body.hull);
+        this.shape = body.shape;
+        this.hull = body.hull;
+    }
+    
+    /**
+     * @return shape of the body
+     */
+    public Shape getShape() {
+        return shape;
     }
+    
     /**
      * @return parameter given for mass
      */
@@ -70,6 +97,22 @@ public class StaticBody extends Body {
     public float getMomentOfInertiaAroundCenterOfMass() {
         return getMass();
     }
+    
+    /**
+     * @return always zero, as impulses don't move static bodies
+     */
+    @Override
+    public float getInverseMass() {
+        return 0.0f;
+    }
+    
+    /**
+     * @return always zero, as impulses don't rotate static bodies
+     */
+    @Override
+    public float getInverseMomentOfInertia() {
+        return 0.0f;
+    }
 
     /**
      * @return hull center in world space
@@ -36,11 +36,9 @@ import com.github.caniblossom.polybounce.renderer.task.ImageRenderingTask;
 import com.github.caniblossom.polybounce.renderer.task.ClearRenderingTask;
 import com.github.caniblossom.polybounce.renderer.task.PolygonRenderingTask;
 import com.github.caniblossom.polybounce.math.BoundingBox;
-import com.github.caniblossom.polybounce.math.ConvexPolygon;
 import com.github.caniblossom.polybounce.math.Vector2;
 import com.github.caniblossom.polybounce.renderer.opengl.Texture2D;
 import com.github.caniblossom.polybounce.physics.body.Body;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -54,11 +52,6 @@ public class RenderingEngine {
     private final ClearRenderingTask clearTask;
     private final PolygonRenderingTask polygonTask;
     private final ImageRenderingTask imageTask;
-    
-    private final ArrayList<ConvexPolygon> polygonList;
-    private final ArrayList<Color> colorList;
-    
-    private boolean renderingDataChanged;
 
     private Texture2D textureHelp;
     private Texture2D textureGo;
@@ -90,12 +83,7 @@ public class RenderingEngine {
         clearTask = new ClearRenderingTask(0.0f, 0.0f, 0.0f, 1.0f, 1.0f);
         polygonTask = new PolygonRenderingTask();
         imageTask = new ImageRenderingTask();
-                
-        polygonList = new ArrayList();
-        colorList = new ArrayList();
 
-        renderingDataChanged = false;
-        
         manager = new RenderingManager();
         manager.addTask(clearTask);
         manager.addTask(polygonTask);        
@@ -127,11 +115,6 @@ public class RenderingEngine {
     public void drawCurrentFrame() {
         assert isGood();        
 
-        if (renderingDataChanged) {
-            polygonTask.setPolygonData(polygonList, colorList);
-            renderingDataChanged = false;
-        }
-        
         update();
         manager.runTasks();        
     }
@@ -150,9 +133,7 @@ public class RenderingEngine {
      * Resets current rendering data.
      */
     public void resetRenderingData() {
-        renderingDataChanged = true;
-        polygonList.clear();
-        colorList.clear();
+        polygonTask.clearPolygonData();
     }
     
     /**
@@ -161,10 +142,7 @@ public class RenderingEngine {
      * @param color color for the body to be drawn
      */
     public void addBodyToDraw(Body body, final Color color) {
-        renderingDataChanged = true;
-        
-        polygonList.add(body.getHull());
-        colorList.add(color);
+        polygonTask.addPolygon(body.getHull(), color);
     }
     
     /**
@@ -173,11 +151,8 @@ public class RenderingEngine {
      * @param color color to use for the bodies.
      */
     public void addBodiesToDraw(final List<? extends Body> bodyList, final Color color) {
-        renderingDataChanged = true;
-        
         for (Body body : bodyList) {
-            polygonList.add(body.getHull());
-            colorList.add(color);
+            polygonTask.addPolygon(body.getHull(), color);
         }        
     }
             
@@ -31,44 +31,78 @@ package com.github.caniblossom.polybounce.renderer;
 
 import com.github.caniblossom.polybounce.renderer.misc.Color;
 import com.github.caniblossom.polybounce.math.ConvexPolygon;
-import com.github.caniblossom.polybounce.math.Segment2;
 import com.github.caniblossom.polybounce.math.Vector2;
-import com.github.caniblossom.polybounce.renderer.shader.SimpleShaderVertex;
-import java.util.List;
+import java.nio.FloatBuffer;
+import org.lwjgl.BufferUtils;
 
 /**
  * An utility class for tessellating convex polygons into format used by the simple shader.
+ * The vertex data is written straight into a reusable direct float buffer, which
+ * grows as needed and is never shrunk.
  * @author Jani Salo
  */
 public class Tessellator {
-    private List<Float> output = null;
+    /**
+     * Number of floats per vertex in the format used by the simple shader.
+     */
+    public static final int VERTEX_SIZE_IN_FLOATS = 3 * 3;
+    
+    private static final int INITIAL_CAPACITY_IN_VERTICES = 4096;
 
-    // Adds front triangle to the output list.
-    private void outputFrontTriangle(final Vector2 a, final Vector2 b, final Vector2 c, final Color color, final float depth) {
+    private FloatBuffer output;
+    
+    // Makes sure there is room for at least given number of vertices more.
+    private void reserve(final int vertexCount) {
+        final int required = vertexCount * VERTEX_SIZE_IN_FLOATS;
+
+        if (output.remaining() < required) {
+            final FloatBuffer grown = BufferUtils.createFloatBuffer(Math.max(2 * output.capacity(), output.position() + required));
+
+            output.flip();
+            grown.put(output);
+            output = grown;
+        }
+    }
+
+    // Writes a single vertex to the output buffer.
+    private void putVertex(final float px, final float py, final float pz, final Color color, final float nx, final float ny, final float nz) {
+        output.put(px).put(py).put(pz);
+        output.put(color.getRed()).put(color.getGreen()).put(color.getBlue());
+        output.put(nx).put(ny).put(nz);
+    }
+
+    // Adds front triangle to the output buffer.
+    private void outputFrontTriangle(final float ax, final float ay, final float bx, final float by, final Vector2 c, final Color color, final float depth) {
         // There is currently no method for adding back triangles, as the camera will 
         // never look at the scene from such an angle that they would actually be visible.
-        new SimpleShaderVertex(a.getX(), a.getY(), depth, color.getRed(), color.getGreen(), color.getBlue(), 0.0f, 0.0f, 1.0f).addToList(output);
-        new SimpleShaderVertex(b.getX(), b.getY(), depth, color.getRed(), color.getGreen(), color.getBlue(), 0.0f, 0.0f, 1.0f).addToList(output);
-        new SimpleShaderVertex(c.getX(), c.getY(), depth, color.getRed(), color.getGreen(), color.getBlue(), 0.0f, 0.0f, 1.0f).addToList(output);
+        putVertex(ax, ay, depth, color, 0.0f, 0.0f, 1.0f);
+        putVertex(bx, by, depth, color, 0.0f, 0.0f, 1.0f);
+        putVertex(c.getX(), c.getY(), depth, color, 0.0f, 0.0f, 1.0f);
     }
     
-    // Adds two triangles making up a side quad to the output list.
-    private void outputSideQuad(final Segment2 s, final Color color, final float frontDepth, final float backDepth) {
-        new SimpleShaderVertex(s.getA().getX(), s.getA().getY(), frontDepth, color.getRed(), color.getGreen(), color.getBlue(), s.getRightNormal().getX(), s.getRightNormal().getY(), 0.0f).addToList(output);
-        new SimpleShaderVertex(s.getA().getX(), s.getA().getY(), backDepth, color.getRed(), color.getGreen(), color.getBlue(), s.getRightNormal().getX(), s.getRightNormal().getY(), 0.0f).addToList(output);
-        new SimpleShaderVertex(s.getB().getX(), s.getB().getY(), backDepth, color.getRed(), color.getGreen(), color.getBlue(), s.getRightNormal().getX(), s.getRightNormal().getY(), 0.0f).addToList(output);
+    // Adds two triangles making up a side quad to the output buffer.
+    private void outputSideQuad(final float ax, final float ay, final float bx, final float by, final float nx, final float ny, final Color color, final float frontDepth, final float backDepth) {
+        putVertex(ax, ay, frontDepth, color, nx, ny, 0.0f);
+        putVertex(ax, ay, backDepth, color, nx, ny, 0.0f);
+        putVertex(bx, by, backDepth, color, nx, ny, 0.0f);
 
-        new SimpleShaderVertex(s.getB().getX(), s.getB().getY(), backDepth, color.getRed(), color.getGreen(), color.getBlue(), s.getRightNormal().getX(), s.getRightNormal().getY(), 0.0f).addToList(output);
-        new SimpleShaderVertex(s.getB().getX(), s.getB().getY(), frontDepth, color.getRed(), color.getGreen(), color.getBlue(), s.getRightNormal().getX(), s.getRightNormal().getY(), 0.0f).addToList(output);
-        new SimpleShaderVertex(s.getA().getX(), s.getA().getY(), frontDepth, color.getRed(), color.getGreen(), color.getBlue(), s.getRightNormal().getX(), s.getRightNormal().getY(), 0.0f).addToList(output);
+        putVertex(bx, by, backDepth, color, nx, ny, 0.0f);
+        putVertex(bx, by, frontDepth, color, nx, ny, 0.0f);
+        putVertex(ax, ay, frontDepth, color, nx, ny, 0.0f);
+    }
+    
+    /**
+     * Constructs a new tessellator with an empty output buffer.
+     */
+    public Tessellator() {
+        this.output = BufferUtils.createFloatBuffer(INITIAL_CAPACITY_IN_VERTICES * VERTEX_SIZE_IN_FLOATS);
     }
     
     /**
-     * Constructs a new tessellator with output as target
-     * @param output output list or null
+     * Discards all generated vertices while keeping the allocated buffer.
      */
-    public Tessellator(List output) {
-        this.output = output;
+    public void clear() {
+        output.clear();
     }
     
     /**
@@ -78,13 +112,39 @@ public class Tessellator {
      * @param backDepth z component of the back face
      */
     public void generateTriangles(final ConvexPolygon polygon, final Color color, final float frontDepth, final float backDepth) {
-        if (output == null) {
-            return;
-        }
+        final int edgeCount = polygon.getVertexCount();
+
+        // Each edge produces one front triangle and one side quad.
+        reserve(edgeCount * (3 + 6));
 
-        for (Segment2 s : polygon.getUnmodifiableViewToSegmentList()) {
-            outputFrontTriangle(s.getA(), s.getB(), polygon.getVertexAverage(), color, frontDepth);
-            outputSideQuad(s, color, frontDepth, backDepth);
+        for (int i = 0; i < edgeCount; i++) {
+            final int j = i + 1 < edgeCount ? i + 1 : 0;
+            
+            final float ax = polygon.getVertexX(i);
+            final float ay = polygon.getVertexY(i);
+            final float bx = polygon.getVertexX(j);
+            final float by = polygon.getVertexY(j);
+
+            outputFrontTriangle(ax, ay, bx, by, polygon.getVertexAverage(), color, frontDepth);
+            outputSideQuad(ax, ay, bx, by, polygon.getRightNormalX(i), polygon.getRightNormalY(i), color, frontDepth, backDepth);
         }
     }
+    
+    /**
+     * @return number of vertices generated since last clear
+     */
+    public int getVertexCount() {
+        return output.position() / VERTEX_SIZE_IN_FLOATS;
+    }
+    
+    /**
+     * Returns a view to the generated vertices. The view shares its content with 
+     * the internal buffer, so it's only valid until the next call to clear or generate.
+     * @return buffer positioned at the first vertex and limited to the last
+     */
+    public FloatBuffer getBuffer() {
+        final FloatBuffer view = output.duplicate();
+        view.flip();
+        return view;
+    }
 }
@@ -29,8 +29,6 @@
  */
 package com.github.caniblossom.polybounce.renderer.shader;
 
-import java.util.List;
-
 /**
  * Abstract base class for vertex data types.
  * @author Jani Salo
@@ -51,14 +49,4 @@ public abstract class Vertex {
     public float[] getAsAnArray() {
         return data;
     }
-
-    /**
-     * Adds the vertex to a list.
-     * @param list to add the vertex to.
-     */
-    public void addToList(final List<Float> list) {
-        for (Float f : data) {
-            list.add(f);
-        }
-    }
 }
@@ -33,10 +33,6 @@ import com.github.caniblossom.polybounce.renderer.misc.Color;
 import com.github.caniblossom.polybounce.math.ConvexPolygon;
 import com.github.caniblossom.polybounce.renderer.Tessellator;
 import com.github.caniblossom.polybounce.renderer.opengl.VertexBuffer;
-import java.nio.FloatBuffer;
-import java.util.ArrayList;
-import java.util.List;
-import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL20;
 import org.lwjgl.opengl.GL30;
@@ -49,16 +45,12 @@ public class PolygonRenderingTask extends SimpleShaderRenderingTask {
     private static final float FRONT_DEPTH = -1.0f;
     private static final float BACK_DEPTH = -1.1f;
     
-    private static final int VERTEX_SIZE_IN_FLOATS = 3 * 3;
-            
     private int vertexArrayName = 0;
     private final VertexBuffer vertexBuffer;
     private int currentVertexCount = 0;
     
-    private final ArrayList<Float> rawTriangleData;
-    private FloatBuffer triangleBuffer = null;
-    
     private final Tessellator tessellator;
+    private boolean polygonDataChanged = false;
     
     // Sets up the vertex array for the format used by the simple shader program.
     private void setupVertexArray() {
@@ -78,13 +70,12 @@ public class PolygonRenderingTask extends SimpleShaderRenderingTask {
         vertexBuffer.unbind();
     }
 
-    // Writes the triangle buffer to the vertex buffer, assuming it exists.
+    // Writes the tessellated triangles to the vertex buffer if they have changed.
     private void uploadTriangleData() {
-        // While reuploading the triangle data every time we render is relatively 
-        // inefficient, it's still way fast enough and makes everything a lot simpler
-        if (triangleBuffer != null) {
-            triangleBuffer.rewind();
-            vertexBuffer.write(triangleBuffer);
+        if (polygonDataChanged) {
+            vertexBuffer.write(tessellator.getBuffer());
+            currentVertexCount = tessellator.getVertexCount();
+            polygonDataChanged = false;
         }        
     }
     
@@ -108,8 +99,7 @@ public class PolygonRenderingTask extends SimpleShaderRenderingTask {
             throw e;
         }
         
-        rawTriangleData = new ArrayList();
-        tessellator = new Tessellator(rawTriangleData);
+        tessellator = new Tessellator();
     }
  
     @Override
@@ -143,30 +133,23 @@ public class PolygonRenderingTask extends SimpleShaderRenderingTask {
     }
 
     /**
-     * Sets the polygon data to be rendered.
-     * @param polygonList list of convex polygons
-     * @param colorList list of colors, one for each polygon
+     * Removes all polygons from the data to be rendered.
      */
-    public void setPolygonData(final List<ConvexPolygon> polygonList, final List<Color> colorList) {
-        assert isGood();
-        
-        final int dataSize = Math.min(polygonList.size(), colorList.size());        
-
-        rawTriangleData.clear();
-        for (int i = 0; i < dataSize; i++) {
-            tessellator.generateTriangles(polygonList.get(i), colorList.get(i), FRONT_DEPTH, BACK_DEPTH);
-        }
-        
-        if (triangleBuffer == null || triangleBuffer.capacity() < rawTriangleData.size()) {
-            triangleBuffer = BufferUtils.createFloatBuffer(rawTriangleData.size());
-        }
+    public void clearPolygonData() {
+        tessellator.clear();
+        polygonDataChanged = true;
+    }
 
-        triangleBuffer.rewind();
-        for (Float f : rawTriangleData) {
-            triangleBuffer.put(f);
-        }
+    /**
+     * Adds a polygon to the data to be rendered.
+     * @param polygon convex polygon to add
+     * @param color color for the polygon
+     */
+    public void addPolygon(final ConvexPolygon polygon, final Color color) {
+        assert isGood();
 
-        currentVertexCount = rawTriangleData.size() / VERTEX_SIZE_IN_FLOATS;
+        tessellator.generateTriangles(polygon, color, FRONT_DEPTH, BACK_DEPTH);
+        polygonDataChanged = true;
     }
     
     /**
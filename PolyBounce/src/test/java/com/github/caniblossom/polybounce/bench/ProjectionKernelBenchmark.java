@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.bench;
+
+import com.github.caniblossom.polybounce.math.AABB;
+import com.github.caniblossom.polybounce.math.ConvexPolygon;
+import com.github.caniblossom.polybounce.math.PolygonBuilder;
+import com.github.caniblossom.polybounce.math.ProjectionKernel;
+import com.github.caniblossom.polybounce.math.Vector2;
+import java.util.Random;
+
+/**
+ * Compares the projection kernels on polygons of different sizes, first on the 
+ * separating axis test and then on the loops transforming polygons, finding their
+ * swept bounds and finding their extreme vertices for ray casts. Not a test, 
+ * run it by hand with mvn test-compile exec:java.
+ * @author Jani Salo
+ */
+public class ProjectionKernelBenchmark {
+    private static final int PAIR_COUNT = 1024;
+    private static final int ROUNDS = 2000;
+    private static final int[] SIZES = {3, 4, 5, 8, 16, 64};
+    
+    // Returns nanoseconds per axis test, the sink keeps the work from being optimized away.
+    private static double measure(final ProjectionKernel kernel, final float[][] a, final float[][] b, final float[] axes, final int vertexCount, final int[] sink) {
+        final long start = System.nanoTime();
+        int overlaps = 0;
+        
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < PAIR_COUNT; i++) {
+                if (kernel.doOverlapOnAxis(a[i], vertexCount, b[i], vertexCount, axes[2 * i], axes[2 * i + 1])) {
+                    overlaps++;
+                }
+            }
+        }
+        
+        sink[0] += overlaps;
+        
+        return (double) (System.nanoTime() - start) / ((double) ROUNDS * PAIR_COUNT);
+    }
+    
+    // Returns nanoseconds per polygon transformed into a scratch array.
+    private static double measureTransform(final ProjectionKernel kernel, final float[][] a, final float[] axes, final int vertexCount, final int[] sink) {
+        final float[] scratch = new float[2 * vertexCount];
+        final long start = System.nanoTime();
+        
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < PAIR_COUNT; i++) {
+                kernel.transform(a[i], scratch, vertexCount, 0.5f, 0.5f, axes[2 * i], axes[2 * i + 1], 0.1f, 0.2f);
+            }
+        }
+        
+        sink[0] += (int) scratch[0];
+        
+        return (double) (System.nanoTime() - start) / ((double) ROUNDS * PAIR_COUNT);
+    }
+    
+    // Returns nanoseconds per swept bounds of a polygon, like the broad phases compute them.
+    private static double measureSweptBounds(final ProjectionKernel kernel, final float[][] a, final float[] axes, final int vertexCount, final int[] sink) {
+        final AABB box = new AABB();
+        final long start = System.nanoTime();
+        
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < PAIR_COUNT; i++) {
+                kernel.findBounds(a[i], vertexCount, box);
+                kernel.includeTransformed(a[i], vertexCount, 0.5f, 0.5f, axes[2 * i], axes[2 * i + 1], 0.1f, 0.2f, box);
+            }
+        }
+        
+        sink[0] += (int) box.getXMax();
+        
+        return (double) (System.nanoTime() - start) / ((double) ROUNDS * PAIR_COUNT);
+    }
+    
+    // Returns nanoseconds per search of the extreme vertex, of which a ray cast does two.
+    private static double measureExtremeIndex(final ProjectionKernel kernel, final float[][] a, final float[] axes, final int vertexCount, final int[] sink) {
+        final long start = System.nanoTime();
+        int total = 0;
+        
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < PAIR_COUNT; i++) {
+                total += kernel.findExtremeIndex(a[i], vertexCount, axes[2 * i], axes[2 * i + 1]);
+            }
+        }
+        
+        sink[0] += total;
+        
+        return (double) (System.nanoTime() - start) / ((double) ROUNDS * PAIR_COUNT);
+    }
+    
+    /**
+     * @param args ignored
+     */
+    public static void main(final String[] args) {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final Random random = new Random(1);
+        final int[] sink = new int[1];
+        
+        System.out.println("vertices  scalar ns     fused ns  unrolled ns");
+        
+        for (int vertexCount : SIZES) {
+            final float[][] a = new float[PAIR_COUNT][];
+            final float[][] b = new float[PAIR_COUNT][];
+            final float[] axes = new float[2 * PAIR_COUNT];
+            
+            for (int i = 0; i < PAIR_COUNT; i++) {
+                a[i] = pack(builder.createRegularPolygon(new Vector2(0.0f, 0.0f), 1.0f, vertexCount));
+                b[i] = pack(builder.createRegularPolygon(new Vector2(4.0f * random.nextFloat(), 4.0f * random.nextFloat()), 1.0f, vertexCount));
+                
+                final double angle = 2.0 * Math.PI * random.nextDouble();
+                axes[2 * i] = (float) Math.cos(angle);
+                axes[2 * i + 1] = (float) Math.sin(angle);
+            }
+            
+            // Warm up all before measuring.
+            for (int i = 0; i < 5; i++) {
+                measure(ProjectionKernel.getScalar(), a, b, axes, vertexCount, sink);
+                measure(ProjectionKernel.getFused(), a, b, axes, vertexCount, sink);
+                measure(ProjectionKernel.getUnrolled(), a, b, axes, vertexCount, sink);
+            }
+            
+            final double scalar = measure(ProjectionKernel.getScalar(), a, b, axes, vertexCount, sink);
+            final double fused = measure(ProjectionKernel.getFused(), a, b, axes, vertexCount, sink);
+            final double unrolled = measure(ProjectionKernel.getUnrolled(), a, b, axes, vertexCount, sink);
+            
+            System.out.printf("%8d  %9.2f  %12.2f  %11.2f%n", vertexCount, scalar, fused, unrolled);
+        }
+        
+        System.out.println();
+        System.out.println("vertices  transform ns (scalar / unrolled)  swept bounds ns  extreme vertex ns");
+        
+        final ProjectionKernel scalar = ProjectionKernel.getScalar();
+        final ProjectionKernel unrolled = ProjectionKernel.getUnrolled();
+        
+        for (int vertexCount : SIZES) {
+            final float[][] a = new float[PAIR_COUNT][];
+            final float[] axes = new float[2 * PAIR_COUNT];
+            
+            for (int i = 0; i < PAIR_COUNT; i++) {
+                a[i] = pack(builder.createRegularPolygon(new Vector2(4.0f * random.nextFloat(), 4.0f * random.nextFloat()), 1.0f, vertexCount));
+                
+                final double angle = 2.0 * Math.PI * random.nextDouble();
+                axes[2 * i] = (float) Math.cos(angle);
+                axes[2 * i + 1] = (float) Math.sin(angle);
+            }
+            
+            for (int i = 0; i < 5; i++) {
+                measureTransform(scalar, a, axes, vertexCount, sink);
+                measureTransform(unrolled, a, axes, vertexCount, sink);
+                measureSweptBounds(scalar, a, axes, vertexCount, sink);
+                measureSweptBounds(unrolled, a, axes, vertexCount, sink);
+                measureExtremeIndex(scalar, a, axes, vertexCount, sink);
+                measureExtremeIndex(unrolled, a, axes, vertexCount, sink);
+            }
+            
+            System.out.printf("%8d  %12.2f / %8.2f  %6.2f / %6.2f  %7.2f / %7.2f%n", vertexCount, 
+                    measureTransform(scalar, a, axes, vertexCount, sink), measureTransform(unrolled, a, axes, vertexCount, sink),
+                    measureSweptBounds(scalar, a, axes, vertexCount, sink), measureSweptBounds(unrolled, a, axes, vertexCount, sink),
+                    measureExtremeIndex(scalar, a, axes, vertexCount, sink), measureExtremeIndex(unrolled, a, axes, vertexCount, sink));
+        }
+        
+        System.out.println("(" + sink[0] + " overlaps and checksums)");
+    }
+    
+    // Packs the vertices of a polygon into coordinates.
+    private static float[] pack(final ConvexPolygon polygon) {
+        final float[] packed = new float[2 * polygon.getVertexCount()];
+        
+        for (int i = 0; i < polygon.getVertexCount(); i++) {
+            packed[2 * i] = polygon.getVertexX(i);
+            packed[2 * i + 1] = polygon.getVertexY(i);
+        }
+        
+        return packed;
+    }
+}
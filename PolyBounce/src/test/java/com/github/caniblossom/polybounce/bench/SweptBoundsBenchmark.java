@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.bench;
+
+import com.github.caniblossom.polybounce.game.objects.Arc;
+import com.github.caniblossom.polybounce.math.AABB;
+import com.github.caniblossom.polybounce.math.BoundingBox;
+import com.github.caniblossom.polybounce.math.ConvexPolygon;
+import com.github.caniblossom.polybounce.math.Rot2;
+import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.PhysicsEngine;
+import com.github.caniblossom.polybounce.physics.body.Body;
+import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.StaticBody;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Counts the pairs of bodies whose step bounds overlap on a row of arcs knocked 
+ * over, comparing the bounds of the hull swept over the step, which the broad 
+ * phases use, to the earlier bounds inflated for any rotation and stretched by 
+ * the velocity. Pairs whose hulls don't meet at either end of the step are false 
+ * candidates, which the narrow phase has to reject. Not a test, run it by hand
+ * with mvn test-compile exec:java and
+ * -Dexec.mainClass=com.github.caniblossom.polybounce.bench.SweptBoundsBenchmark.
+ * @author Jani Salo
+ */
+public class SweptBoundsBenchmark {
+    private static final float TIME_STEP = 1.0f / 30.0f;
+    private static final float INERTIA = 0.995f;
+    private static final Vector2 GRAVITY = new Vector2(0.0f, -0.5f);
+    
+    private static final int ARC_COUNT = 40;
+    private static final int FRAMES = 300;
+    
+    // Bounds containing the body at any rotation, stretched by its motion over dt.
+    private static void computeInflatedBounds(final Body body, final float dt, final AABB output) {
+        body.getBounds(output);
+        
+        final float centerX = 0.5f * (output.getXMin() + output.getXMax());
+        final float centerY = 0.5f * (output.getYMin() + output.getYMax());
+        final float radius = 0.70710678118654752440084436210485f * Math.max(output.getWidth(), output.getHeight());
+        
+        output.set(centerX - radius, centerY - radius, centerX + radius, centerY + radius);
+        output.sweep(body.getVelocity().getX() * dt, body.getVelocity().getY() * dt);
+    }
+    
+    // Bounds of the hull at the start and at the end of the step, as the broad phases compute them.
+    private static void computeSweptBounds(final Body body, final float dt, final AABB output) {
+        final Vector2 center = body.getCenterOfMass();
+        final Rot2 motion = body.getMotion(dt);
+        
+        body.getHull().getSweptBounds(center.getX(), center.getY(), motion.getCos(), motion.getSin(), dt * body.getVelocity().getX(), dt * body.getVelocity().getY(), output);
+    }
+    
+    // Returns the hull of a body moved over dt, as the narrow phase predicts it.
+    private static ConvexPolygon predictHull(final Body body, final float dt) {
+        if (body instanceof StaticBody) {
+            return body.getHull();
+        }
+        
+        return body.getHull().rotateAndTranslate(body.getCenterOfMass(), body.getMotion(dt), body.getVelocity().scale(dt));
+    }
+    
+    /**
+     * @param args ignored
+     */
+    public static void main(final String[] args) {
+        final Random random = new Random(1);
+        final PhysicsEngine engine = new PhysicsEngine(TIME_STEP, INERTIA, GRAVITY, new BoundingBox(new Vector2(0.0f, 0.0f), 1.0f, 1.0f));
+        final ArrayList<Body> bodyList = new ArrayList();
+        
+        float x = 0.0f;
+        
+        for (int i = 0; i < ARC_COUNT; i++) {
+            final float width = 2.0f + 4.0f * random.nextFloat();
+            final Arc arc = new Arc(width, 2.0f + 4.0f * random.nextFloat(), new Vector2(x, 0.0f), 1 + random.nextInt(3));
+            
+            engine.addRigidBodies(arc.getUnmodifiableViewToRigidBodyList());
+            engine.addStaticBodies(arc.getUnmodifiableViewToStaticBodyList());
+            bodyList.addAll(arc.getUnmodifiableViewToRigidBodyList());
+            bodyList.addAll(arc.getUnmodifiableViewToStaticBodyList());
+            
+            x += width + 1.0f;
+        }
+        
+        // Knock every bar over.
+        for (Body body : bodyList) {
+            if (body instanceof RigidBody) {
+                body.setVelocity(new Vector2(4.0f * random.nextFloat() - 2.0f, 2.0f * random.nextFloat()));
+                body.setAngularVelocity(4.0f * random.nextFloat() - 2.0f);
+            }
+        }
+        
+        final int count = bodyList.size();
+        final AABB[] inflated = new AABB[count];
+        final AABB[] swept = new AABB[count];
+        final ConvexPolygon[] hullT1 = new ConvexPolygon[count];
+        
+        for (int i = 0; i < count; i++) {
+            inflated[i] = new AABB();
+            swept[i] = new AABB();
+        }
+        
+        long inflatedPairs = 0;
+        long sweptPairs = 0;
+        long touchingPairs = 0;
+        
+        for (int frame = 0; frame < FRAMES; frame++) {
+            for (int i = 0; i < count; i++) {
+                final Body body = bodyList.get(i);
+                
+                if (body instanceof StaticBody) {
+                    body.getBounds(inflated[i]);
+                    body.getBounds(swept[i]);
+                } else {
+                    computeInflatedBounds(body, TIME_STEP, inflated[i]);
+                    computeSweptBounds(body, TIME_STEP, swept[i]);
+                }
+                
+                hullT1[i] = predictHull(body, TIME_STEP);
+            }
+            
+            for (int i = 0; i < count; i++) {
+                for (int j = i + 1; j < count; j++) {
+                    final Body a = bodyList.get(i);
+                    final Body b = bodyList.get(j);
+                    
+                    // Pairs of static bodies are never tested.
+                    if (a instanceof StaticBody && b instanceof StaticBody) {
+                        continue;
+                    }
+                    
+                    if (inflated[i].doesOverlap(inflated[j])) {
+                        inflatedPairs++;
+                    }
+                    
+                    if (swept[i].doesOverlap(swept[j])) {
+                        sweptPairs++;
+                    }
+                    
+                    if (a.getHull().doesIntersect(b.getHull()) || hullT1[i].doesIntersect(b.getHull()) || a.getHull().doesIntersect(hullT1[j]) || hullT1[i].doesIntersect(hullT1[j])) {
+                        touchingPairs++;
+                    }
+                }
+            }
+            
+            engine.update(TIME_STEP);
+        }
+        
+        System.out.println(count + " bodies in " + ARC_COUNT + " arcs over " + FRAMES + " frames");
+        System.out.println("touching pairs          " + touchingPairs);
+        System.out.println("inflated bounds pairs   " + inflatedPairs + ", false " + (inflatedPairs - touchingPairs));
+        System.out.println("swept bounds pairs      " + sweptPairs + ", false " + (sweptPairs - touchingPairs));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.game;
+
+import com.github.caniblossom.polybounce.game.objects.Player;
+import com.github.caniblossom.polybounce.math.BoundingBox;
+import com.github.caniblossom.polybounce.math.PolygonBuilder;
+import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.PhysicsEngine;
+import com.github.caniblossom.polybounce.physics.body.StaticBody;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class PlayerControlTest {
+    public PlayerControlTest() {}
+    
+    // Same as the game.
+    private static final float TIME_STEP = 1.0f / 30.0f;
+    private static final float INERTIA = 0.995f;
+    private static final Vector2 GRAVITY = new Vector2(0.0f, -0.5f);
+    
+    private final PhysicsEngine engine = new PhysicsEngine(TIME_STEP, INERTIA, GRAVITY, new BoundingBox(new Vector2(0.0f, 0.0f), 1.0f, 1.0f));
+    private final PlayerControl control = new PlayerControl(engine);
+    
+    private Player player;
+    
+    // Drops the player on the ground and steps the engine until it falls asleep.
+    @Before
+    public void setUp() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        
+        player = new Player(new Vector2(0.0f, 1.6f));
+        engine.reset(null);
+        engine.add(new StaticBody(builder.createBox(new Vector2(-10.0f, -1.0f), new Vector2(10.0f, 0.0f)), 1000.0f, 0.2f, 0.4f, 0.2f, new Vector2(0.0f, 0.0f), 0.0f));
+        engine.add(player.getBody());
+        
+        for (int step = 0; step < 600 && !player.getBody().isSleeping(); step++) {
+            engine.update(TIME_STEP);
+        }
+        
+        assertTrue(player.getBody().isSleeping());
+    }
+    
+    @After
+    public void tearDown() {
+        engine.dispose();
+    }
+    
+    @Test
+    public void testNoInputLeavesPlayerAsleep() {
+        control.steer(player, false, false, false, false, TIME_STEP);
+        engine.update(TIME_STEP);
+        
+        assertTrue(player.getBody().isSleeping());
+    }
+    
+    @Test
+    public void testEachDirectionWakesPlayer() {
+        for (int direction = 0; direction < 4; direction++) {
+            setUp();
+            control.steer(player, direction == 0, direction == 1, direction == 2, direction == 3, TIME_STEP);
+            
+            assertFalse(player.getBody().isSleeping());
+            assertEquals(0.0f, player.getBody().getSleepTime(), 0.0f);
+        }
+    }
+    
+    @Test
+    public void testSteeringMovesWokenPlayer() {
+        final Vector2 position = player.getBody().getCenterOfMass();
+        
+        for (int step = 0; step < 30; step++) {
+            control.steer(player, true, false, false, false, TIME_STEP);
+            engine.update(TIME_STEP);
+        }
+        
+        assertFalse(player.getBody().isSleeping());
+        assertTrue(player.getBody().getCenterOfMass().getX() < position.getX());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class AABBArrayTest {
+    public AABBArrayTest() {
+    }
+    
+    // Creates an array with a row of unit boxes spaced two units apart.
+    private static AABBArray createRow(final int count) {
+        final AABBArray array = new AABBArray();
+        
+        for (int i = 0; i < count; i++) {
+            array.add(new AABB(2.0f * i, 0.0f, 2.0f * i + 1.0f, 1.0f));
+        }
+        
+        return array;
+    }
+    
+    @Test
+    public void testAddAndGet() {
+        final AABBArray array = createRow(100);
+        final AABB box = new AABB();
+        
+        assertEquals(array.size(), 100);
+        
+        array.get(37, box);
+        
+        assertEquals(box.getXMin(), 74.0f, 0.0f);
+        assertEquals(box.getXMax(), 75.0f, 0.0f);
+        assertEquals(array.getXMin(99), 198.0f, 0.0f);
+        
+        array.set(37, new AABB(-1.0f, -1.0f, 0.0f, 0.0f));
+        array.get(37, box);
+        
+        assertEquals(box.getYMin(), -1.0f, 0.0f);
+        
+        array.clear();
+        
+        assertEquals(array.size(), 0);
+    }
+    
+    @Test
+    public void testDoesOverlap() {
+        final AABBArray array = createRow(3);
+        
+        assertTrue(array.doesOverlap(1, new AABB(1.0f, 0.5f, 2.0f, 0.5f)));
+        assertFalse(array.doesOverlap(1, new AABB(3.5f, 0.0f, 3.9f, 1.0f)));
+    }
+    
+    @Test
+    public void testFindOverlaps() {
+        final AABBArray array = createRow(20);
+        final int[] output = new int[array.size()];
+        
+        final int count = array.findOverlaps(new AABB(3.5f, 0.5f, 8.0f, 2.0f), output);
+        
+        assertEquals(count, 3);
+        assertEquals(output[0], 2);
+        assertEquals(output[1], 3);
+        assertEquals(output[2], 4);
+        
+        assertEquals(array.findOverlaps(new AABB(0.0f, 1.5f, 40.0f, 2.0f), output), 0);
+    }
+    
+    @Test
+    public void testFindOverlapsOfCandidates() {
+        final AABBArray array = createRow(20);
+        final int[] candidates = new int[] {19, 0, 5, 6, 7, 12};
+        
+        final int count = array.findOverlaps(new AABB(10.0f, 0.0f, 23.0f, 1.0f), candidates, candidates.length, candidates);
+        
+        assertEquals(count, 3);
+        assertEquals(candidates[0], 5);
+        assertEquals(candidates[1], 6);
+        assertEquals(candidates[2], 7);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class AABBTest {
+    public AABBTest() {
+    }
+    
+    @Test
+    public void testEmpty() {
+        final AABB box = new AABB();
+        
+        assertTrue(box.isEmpty());
+        assertEquals(box.getWidth(), 0.0f, 0.0f);
+        assertEquals(box.getPerimeter(), 0.0f, 0.0f);
+        assertFalse(box.doesOverlap(new AABB(-1.0f, -1.0f, 1.0f, 1.0f)));
+    }
+    
+    @Test
+    public void testFromBoundingBox() {
+        final AABB box = new AABB(new BoundingBox(new Vector2(-64.0f, 58.0f), 12.0f, 84.0f));
+        
+        assertEquals(box.getXMin(), -64.0f, 0.0f);
+        assertEquals(box.getYMin(), 58.0f, 0.0f);
+        assertEquals(box.getXMax(), -52.0f, 0.0f);
+        assertEquals(box.getYMax(), 142.0f, 0.0f);
+        
+        final BoundingBox back = box.toBoundingBox();
+        
+        assertEquals(back.getPosition().getX(), -64.0f, 0.0f);
+        assertEquals(back.getHeight(), 84.0f, 0.0f);
+    }
+    
+    @Test
+    public void testUnion() {
+        final AABB box = new AABB();
+        
+        box.union(new AABB(0.0f, 0.0f, 1.0f, 1.0f));
+        box.union(new AABB(-2.0f, 3.0f, -1.0f, 4.0f));
+        
+        assertEquals(box.getXMin(), -2.0f, 0.0f);
+        assertEquals(box.getYMin(), 0.0f, 0.0f);
+        assertEquals(box.getXMax(), 1.0f, 0.0f);
+        assertEquals(box.getYMax(), 4.0f, 0.0f);
+        
+        box.include(5.0f, -1.0f);
+        
+        assertEquals(box.getXMax(), 5.0f, 0.0f);
+        assertEquals(box.getYMin(), -1.0f, 0.0f);
+    }
+    
+    @Test
+    public void testIntersect() {
+        final AABB box = new AABB(0.0f, 0.0f, 2.0f, 2.0f);
+        
+        box.intersect(new AABB(1.0f, -1.0f, 3.0f, 1.5f));
+        
+        assertFalse(box.isEmpty());
+        assertEquals(box.getXMin(), 1.0f, 0.0f);
+        assertEquals(box.getYMin(), 0.0f, 0.0f);
+        assertEquals(box.getXMax(), 2.0f, 0.0f);
+        assertEquals(box.getYMax(), 1.5f, 0.0f);
+        
+        box.intersect(new AABB(3.0f, 0.0f, 4.0f, 1.0f));
+        
+        assertTrue(box.isEmpty());
+    }
+    
+    @Test
+    public void testDoesOverlap() {
+        final AABB box = new AABB(-5.0f, -3.0f, -4.0f, -2.0f);
+        
+        assertTrue(box.doesOverlap(box));
+        assertTrue(box.doesOverlap(new AABB(-5.75f, -3.75f, -4.75f, -2.75f)));
+        assertTrue(box.doesOverlap(new AABB(-4.0f, -2.0f, -3.0f, -1.0f)));
+        assertFalse(box.doesOverlap(new AABB(-3.99f, -3.0f, -3.0f, -2.0f)));
+        assertFalse(box.doesOverlap(new AABB(-5.0f, -1.99f, -4.0f, -1.0f)));
+    }
+    
+    @Test
+    public void testExpandAndSweep() {
+        final AABB box = new AABB(0.0f, 0.0f, 1.0f, 1.0f);
+        
+        box.expand(0.5f);
+        box.sweep(2.0f, -3.0f);
+        
+        assertEquals(box.getXMin(), -0.5f, 0.0f);
+        assertEquals(box.getYMin(), -3.5f, 0.0f);
+        assertEquals(box.getXMax(), 3.5f, 0.0f);
+        assertEquals(box.getYMax(), 1.5f, 0.0f);
+        assertTrue(box.contains(new AABB(0.0f, -3.0f, 3.0f, 1.0f)));
+        assertFalse(box.contains(new AABB(0.0f, -3.0f, 3.6f, 1.0f)));
+    }
+}
@@ -143,6 +143,25 @@ public class ConvexPolygonTest {
         }
      }
     
+    @Test
+    public void testConvexPolygonRejectsStar() {
+        final ArrayList<Vector2> list = new ArrayList();
+        
+        // A pentagram turns left at every vertex, but winds around twice.
+        for (int i = 0; i < 5; i++) {
+            final double r = (double) ((i * 2) % 5) / 5.0 * 2.0 * Math.PI;
+            list.add(new Vector2((float) Math.cos(r), (float) Math.sin(r)));
+        }
+        
+        try {
+            final ConvexPolygon poly = ConvexPolygon.constructNew(list);
+            fail();
+        } catch (IllegalArgumentException e) {
+        } catch (Exception e) {
+            fail();
+        } 
+    }
+
     @Test
     public void testGetUnmodifiableViewToVertexList() {
         final List<Vector2> list = getSquareVertexList(1.0f, new Vector2(0.0f, 0.0f));
@@ -180,6 +199,35 @@ public class ConvexPolygonTest {
         } catch (UnsupportedOperationException e) {}
     }
 
+    @Test
+    public void testPackedVertices() {
+        final List<Vector2> list = getSquareVertexList(2.0f, new Vector2(1.0f, -1.0f));
+        final ConvexPolygon poly = getSquarePolygon(2.0f, new Vector2(1.0f, -1.0f));
+        
+        assertEquals(poly.getVertexCount(), 4);
+        
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(poly.getVertexX(i), list.get(i).getX(), 0.0f);
+            assertEquals(poly.getVertexY(i), list.get(i).getY(), 0.0f);
+        }
+    }
+    
+    @Test
+    public void testGetRightNormal() {
+        final ConvexPolygon poly = getSquarePolygon(2.0f, new Vector2(1.0f, -1.0f));
+        final List<Segment2> segmentList = poly.getUnmodifiableViewToSegmentList();
+        
+        for (int i = 0; i < segmentList.size(); i++) {
+            assertEquals(poly.getRightNormalX(i), segmentList.get(i).getRightNormal().getX(), 0.0f);
+            assertEquals(poly.getRightNormalY(i), segmentList.get(i).getRightNormal().getY(), 0.0f);
+        }
+        
+        assertEquals(poly.getRightNormalX(0),  0.0f, 0.0f);
+        assertEquals(poly.getRightNormalY(0), -1.0f, 0.0f);
+        assertEquals(poly.getRightNormalX(1),  1.0f, 0.0f);
+        assertEquals(poly.getRightNormalY(1),  0.0f, 0.0f);
+    }
+
     @Test
     public void testGetVertexAverage() {
         final ConvexPolygon poly = getSquarePolygon(1.0f, new Vector2(0.0f, 0.0f));
@@ -277,4 +325,144 @@ public class ConvexPolygonTest {
         assertEquals(listRotated.get(3).getX(), 2.0f, 0.001f);
         assertEquals(listRotated.get(3).getY(), 1.0f, 0.001f);
     }
+    
+    @Test
+    public void testTransformInto() {
+        final ConvexPolygon poly = getSquarePolygon(1.0f, new Vector2(0.0f, 0.0f));
+        final ConvexPolygon scratch = ConvexPolygon.constructScratch(4);
+        
+        final Vector2 origo = new Vector2(0.5f, 0.25f);
+        final Vector2 translation = new Vector2(1.0f, -2.0f);
+        
+        final ConvexPolygon expected = poly.rotateAndTranslate(origo, 0.75f, translation).rotateAndTranslate(origo, -0.5f, origo);
+        poly.transformInto(scratch, origo, 0.75f, translation);
+        scratch.transformInto(scratch, origo, -0.5f, origo);
+
+        assertTrue(scratch.isScratch());
+        assertFalse(expected.isScratch());
+        assertTrue(scratch.getUnmodifiableViewToVertexList().equals(expected.getUnmodifiableViewToVertexList()));
+        assertTrue(scratch.getVertexAverage().equals(expected.getVertexAverage()));
+        assertEquals(scratch.getBoundingBox().getWidth(), expected.getBoundingBox().getWidth(), 0.0f);
+        assertEquals(scratch.getRightNormalX(2), expected.getRightNormalX(2), 0.0f);
+        
+        try {
+            poly.transformInto(expected, origo, 0.0f, translation);
+            fail();
+        } catch (IllegalArgumentException e) {}
+        
+        try {
+            poly.transformInto(ConvexPolygon.constructScratch(3), origo, 0.0f, translation);
+            fail();
+        } catch (IllegalArgumentException e) {}
+    }
+    
+    @Test
+    public void testGetSweptBounds() {
+        final ConvexPolygon poly = new PolygonBuilder().createRegularPolygon(new Vector2(1.0f, 2.0f), 1.0f, 5);
+        final ConvexPolygon scratch = ConvexPolygon.constructScratch(5);
+        final AABB swept = new AABB();
+        final AABB expected = new AABB();
+        final AABB moved = new AABB();
+        
+        for (int i = 0; i < 20; i++) {
+            final Vector2 origo = new Vector2(1.0f + 0.1f * i, 2.0f);
+            final Vector2 translation = new Vector2(0.3f * i, -0.2f * i);
+            final Rot2 rotation = new Rot2(0.41f * i);
+            
+            poly.getSweptBounds(origo.getX(), origo.getY(), rotation.getCos(), rotation.getSin(), translation.getX(), translation.getY(), swept);
+            poly.transformInto(scratch, origo, rotation, translation);
+            poly.getBounds(expected);
+            scratch.getBounds(moved);
+            expected.union(moved);
+            
+            assertEquals(swept.getXMin(), expected.getXMin(), 0.0f);
+            assertEquals(swept.getYMin(), expected.getYMin(), 0.0f);
+            assertEquals(swept.getXMax(), expected.getXMax(), 0.0f);
+            assertEquals(swept.getYMax(), expected.getYMax(), 0.0f);
+        }
+    }
+    
+    @Test
+    public void testFindExtremeVertex() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        
+        for (int vertexCount = 3; vertexCount < 70; vertexCount += 11) {
+            final ConvexPolygon poly = builder.createRegularPolygon(new Vector2(1.0f, -2.0f), 3.0f, vertexCount).rotateAndTranslate(new Vector2(0.0f, 0.0f), 0.3f, new Vector2(0.0f, 0.0f));
+            
+            for (int i = 0; i < 100; i++) {
+                final float dx = (float) Math.cos(0.0731 * i);
+                final float dy = (float) Math.sin(0.0731 * i);
+                
+                float max = -Float.MAX_VALUE;
+                for (int j = 0; j < vertexCount; j++) {
+                    max = Math.max(max, dx * poly.getVertexX(j) + dy * poly.getVertexY(j));
+                }
+                
+                final int extreme = poly.findExtremeVertex(dx, dy);
+                assertEquals(dx * poly.getVertexX(extreme) + dy * poly.getVertexY(extreme), max, 0.0001f);
+            }
+        }
+        
+        final ConvexPolygon box = getSquarePolygon(1.0f, new Vector2(0.0f, 0.0f));
+        assertEquals(box.findExtremeVertex(1.0f, 1.0f), 2);
+        assertEquals(box.findExtremeVertex(-1.0f, 0.1f), 3);
+    }
+    
+    @Test
+    public void testContainsPoint() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final ConvexPolygon poly = builder.createRegularPolygon(new Vector2(1.0f, 1.0f), 2.0f, 64);
+        final ConvexPolygon box = getSquarePolygon(1.0f, new Vector2(0.0f, 0.0f));
+        
+        for (int i = 0; i < 100; i++) {
+            final float x = (float) Math.cos(0.0731 * i);
+            final float y = (float) Math.sin(0.0731 * i);
+            
+            assertTrue(poly.containsPoint(1.0f + 1.9f * x, 1.0f + 1.9f * y));
+            assertFalse(poly.containsPoint(1.0f + 2.1f * x, 1.0f + 2.1f * y));
+        }
+
+        assertTrue(box.containsPoint(new Vector2(0.5f, 0.5f)));
+        assertTrue(box.containsPoint(new Vector2(1.0f, 0.5f)));
+        assertTrue(box.containsPoint(new Vector2(0.0f, 0.0f)));
+        assertFalse(box.containsPoint(new Vector2(1.5f, 0.5f)));
+        assertFalse(box.containsPoint(new Vector2(0.5f, -0.1f)));
+        assertFalse(box.containsPoint(new Vector2(-0.1f, 0.5f)));
+    }
+    
+    @Test
+    public void testCastRay() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final ConvexPolygon poly = builder.createRegularPolygon(new Vector2(0.0f, 0.0f), 1.0f, 256);
+        final ConvexPolygon box = getSquarePolygon(1.0f, new Vector2(0.0f, 0.0f));
+        
+        for (int i = 0; i < 100; i++) {
+            final float x = (float) Math.cos(0.0731 * i);
+            final float y = (float) Math.sin(0.0731 * i);
+            
+            assertEquals(poly.castRay(3.0f * x, 3.0f * y, -x, -y), 2.0f, 0.001f);
+            assertEquals(poly.castRay(0.5f * x, 0.5f * y, x, y), 0.0f, 0.0f);
+            assertTrue(Float.isInfinite(poly.castRay(3.0f * x, 3.0f * y, x, y)));
+            assertTrue(Float.isInfinite(poly.castRay(3.0f * x, 3.0f * y, -y, x)));
+        }
+        
+        assertEquals(box.castRay(-1.0f, 0.5f, 2.0f, 0.0f), 0.5f, 0.0f);
+        assertEquals(box.castRay(0.5f, 3.0f, 0.0f, -1.0f), 2.0f, 0.0f);
+        assertTrue(Float.isInfinite(box.castRay(-1.0f, 1.5f, 2.0f, 0.0f)));
+
+        assertTrue(box.doesIntersect(new Segment2(new Vector2(-1.0f, 0.5f), new Vector2(0.5f, 0.5f))));
+        assertFalse(box.doesIntersect(new Segment2(new Vector2(-1.0f, 0.5f), new Vector2(-0.5f, 0.5f))));
+        assertTrue(box.doesIntersect(new Segment2(new Vector2(0.25f, 0.5f), new Vector2(0.75f, 0.5f))));
+    }
+    
+    @Test
+    public void testDoesIntersectLarge() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final ConvexPolygon a = builder.createRegularPolygon(new Vector2(0.0f, 0.0f), 1.0f, 100);
+        
+        assertTrue(a.doesIntersect(builder.createRegularPolygon(new Vector2(1.9f, 0.0f), 1.0f, 100)));
+        assertFalse(a.doesIntersect(builder.createRegularPolygon(new Vector2(1.5f, 1.5f), 1.0f, 100)));
+        assertTrue(a.doesIntersect(getSquarePolygon(1.0f, new Vector2(0.5f, 0.5f))));
+        assertFalse(a.doesIntersect(getSquarePolygon(1.0f, new Vector2(0.75f, 0.75f))));
+    }
 }
@@ -29,6 +29,8 @@
  */
 package com.github.caniblossom.polybounce.math;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -87,4 +89,184 @@ public class PolygonBuilderTest {
             fail();
         }
     }
+    
+    @Test
+    public void testCreateRegularPolygonWithManyVertices() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        
+        // Far from the origin, rounding leaves many of the vertices in line with their neighbors.
+        final ConvexPolygon poly = builder.createRegularPolygon(new Vector2(100.0f, 100.0f), 1.0f, 5000);
+        
+        assertTrue(poly.getVertexCount() > 100);
+        assertTrue(poly.getVertexCount() <= 5000);
+        assertEquals(poly.getBoundingBox().getWidth(), 2.0f, 0.001f);
+        assertEquals(poly.getBoundingBox().getHeight(), 2.0f, 0.001f);
+        
+        try {
+            ConvexPolygon.constructNew(poly.getUnmodifiableViewToVertexList());
+        } catch (IllegalArgumentException e) {
+            fail();
+        }
+    }
+    
+    @Test
+    public void testCreateDegenerateShapes() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        
+        try {
+            builder.createBox(new Vector2(1.0f, 1.0f), new Vector2(1.0f, 2.0f));
+            fail();
+        } catch (IllegalArgumentException e) {}
+
+        try {
+            builder.createBox(new Vector2(1.0f, 1.0f), new Vector2(0.0f, 0.0f));
+            fail();
+        } catch (IllegalArgumentException e) {}
+        
+        // Too small for the corners to turn left in floating point.
+        try {
+            builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0e-30f, 1.0e-30f));
+            fail();
+        } catch (IllegalArgumentException e) {}
+        
+        try {
+            builder.createRegularPolygon(new Vector2(0.0f, 0.0f), 1.0f, 2);
+            fail();
+        } catch (IllegalArgumentException e) {}
+
+        try {
+            builder.createRegularPolygon(new Vector2(0.0f, 0.0f), 0.0f, 5);
+            fail();
+        } catch (IllegalArgumentException e) {}
+    }
+    
+    @Test
+    public void testCreateConvexHull() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final ArrayList<Vector2> pointList = new ArrayList();
+        
+        // Corners of a square in a mixed order, with points inside, on the edges and repeated.
+        pointList.add(new Vector2(2.0f, 2.0f));
+        pointList.add(new Vector2(1.0f, 1.0f));
+        pointList.add(new Vector2(0.0f, 0.0f));
+        pointList.add(new Vector2(1.0f, 0.0f));
+        pointList.add(new Vector2(0.0f, 2.0f));
+        pointList.add(new Vector2(0.5f, 1.5f));
+        pointList.add(new Vector2(2.0f, 0.0f));
+        pointList.add(new Vector2(2.0f, 1.0f));
+        pointList.add(new Vector2(0.0f, 0.0f));
+        
+        final ConvexPolygon hull = builder.createConvexHull(pointList);
+        final List<Vector2> vertexList = hull.getUnmodifiableViewToVertexList();
+        
+        assertEquals(vertexList.size(), 4);
+        assertTrue(vertexList.get(0).equals(new Vector2(0.0f, 0.0f)));
+        assertTrue(vertexList.get(1).equals(new Vector2(2.0f, 0.0f)));
+        assertTrue(vertexList.get(2).equals(new Vector2(2.0f, 2.0f)));
+        assertTrue(vertexList.get(3).equals(new Vector2(0.0f, 2.0f)));
+        
+        // The hull must be accepted as a valid polygon.
+        ConvexPolygon.constructNew(vertexList);
+    }
+    
+    @Test
+    public void testCreateConvexHullOfCircle() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final ArrayList<Vector2> pointList = new ArrayList();
+        
+        for (int i = 0; i < 360; i++) {
+            final float r = (float) ((i * 7) % 360) / 360.0f * 2.0f * (float) Math.PI;
+            pointList.add(new Vector2(4.0f * (float) Math.cos(r), 4.0f * (float) Math.sin(r)));
+            pointList.add(new Vector2(2.0f * (float) Math.cos(r), 2.0f * (float) Math.sin(r)));
+        }
+        
+        final ConvexPolygon hull = builder.createConvexHull(pointList);
+        
+        assertTrue(hull.getVertexCount() > 300);
+        assertEquals(hull.getBoundingBox().getWidth(), 8.0f, 0.01f);
+        assertEquals(hull.getVertexAverage().getX(), 0.0f, 0.01f);
+        
+        ConvexPolygon.constructNew(hull.getUnmodifiableViewToVertexList());
+    }
+    
+    @Test
+    public void testCreateConvexHullOfLine() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final ArrayList<Vector2> pointList = new ArrayList();
+        
+        pointList.add(new Vector2(0.0f, 0.0f));
+        pointList.add(new Vector2(1.0f, 1.0f));
+        pointList.add(new Vector2(2.0f, 2.0f));
+        
+        try {
+            builder.createConvexHull(pointList);
+            fail();
+        } catch (IllegalArgumentException e) {}
+    }
+    
+    // Returns the area of a convex polygon.
+    private static float area(final ConvexPolygon polygon) {
+        float area = 0.0f;
+        
+        for (int i = 0; i < polygon.getVertexCount(); i++) {
+            final int j = (i + 1) % polygon.getVertexCount();
+            area += polygon.getVertexX(i) * polygon.getVertexY(j) - polygon.getVertexX(j) * polygon.getVertexY(i);
+        }
+        
+        return 0.5f * area;
+    }
+    
+    @Test
+    public void testCreateConvexDecompositionOfConvexOutline() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final List<Vector2> outline = builder.createRegularPolygon(new Vector2(1.0f, 1.0f), 2.0f, 12).getUnmodifiableViewToVertexList();
+        final List<ConvexPolygon> pieceList = builder.createConvexDecomposition(outline);
+        
+        assertEquals(pieceList.size(), 1);
+        assertEquals(pieceList.get(0).getVertexCount(), 12);
+    }
+    
+    @Test
+    public void testCreateConvexDecompositionOfConcaveOutline() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final ArrayList<Vector2> outline = new ArrayList();
+        
+        // A U-shape wound clockwise, with a collinear point on the bottom edge.
+        outline.add(new Vector2(0.0f, 0.0f));
+        outline.add(new Vector2(0.0f, 3.0f));
+        outline.add(new Vector2(1.0f, 3.0f));
+        outline.add(new Vector2(1.0f, 1.0f));
+        outline.add(new Vector2(2.0f, 1.0f));
+        outline.add(new Vector2(2.0f, 3.0f));
+        outline.add(new Vector2(3.0f, 3.0f));
+        outline.add(new Vector2(3.0f, 0.0f));
+        outline.add(new Vector2(1.5f, 0.0f));
+        
+        final List<ConvexPolygon> pieceList = builder.createConvexDecomposition(outline);
+        
+        float totalArea = 0.0f;
+        for (ConvexPolygon piece : pieceList) {
+            ConvexPolygon.constructNew(piece.getUnmodifiableViewToVertexList());
+            totalArea += area(piece);
+        }
+        
+        assertTrue(pieceList.size() <= 4);
+        assertEquals(totalArea, 7.0f, 0.0001f);
+    }
+    
+    @Test
+    public void testCreateConvexDecompositionOfInvalidOutline() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final ArrayList<Vector2> outline = new ArrayList();
+        
+        outline.add(new Vector2(0.0f, 0.0f));
+        outline.add(new Vector2(1.0f, 1.0f));
+        outline.add(new Vector2(1.0f, 0.0f));
+        outline.add(new Vector2(0.0f, 1.0f));
+
+        try {
+            builder.createConvexDecomposition(outline);
+            fail();
+        } catch (IllegalArgumentException e) {}
+    }
 }
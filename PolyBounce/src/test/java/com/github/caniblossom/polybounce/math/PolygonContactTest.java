@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class PolygonContactTest {
+    public PolygonContactTest() {}
+
+    private final PolygonBuilder builder = new PolygonBuilder();
+
+    private ConvexPolygon getBox(final float x, final float y) {
+        return builder.createBox(new Vector2(x, y), new Vector2(x + 1.0f, y + 1.0f));
+    }
+    
+    // Returns how far b reaches past the edge of a it reaches past the least, by brute force.
+    private static float findPenetration(final ConvexPolygon a, final ConvexPolygon b) {
+        float penetration = Float.MAX_VALUE;
+        
+        for (int i = 0; i < a.getVertexCount(); i++) {
+            float deepest = 0.0f;
+            
+            for (int j = 0; j < b.getVertexCount(); j++) {
+                deepest = Math.max(deepest, a.getRightNormalX(i) * (a.getVertexX(i) - b.getVertexX(j)) + a.getRightNormalY(i) * (a.getVertexY(i) - b.getVertexY(j)));
+            }
+            
+            penetration = Math.min(penetration, deepest);
+        }
+        
+        return penetration;
+    }
+    
+    @Test
+    public void testSeparated() {
+        final PolygonContact query = new PolygonContact();
+        
+        assertFalse(query.query(getBox(0.0f, 0.0f), getBox(2.0f, 0.5f)));
+        assertEquals(query.getPointCount(), 0);
+        assertFalse(query.query(getBox(0.0f, 0.0f), getBox(1.1f, 1.1f)));
+    }
+    
+    @Test
+    public void testFaceContact() {
+        final PolygonContact query = new PolygonContact();
+        
+        assertTrue(query.query(getBox(0.0f, 0.0f), getBox(0.2f, 0.75f)));
+        assertEquals(query.getPointCount(), 2);
+        assertEquals(query.getNormalX(), 0.0f, 0.0001f);
+        assertEquals(query.getNormalY(), 1.0f, 0.0001f);
+        
+        // The face of the second box is clipped to the width of the first one.
+        assertEquals(Math.min(query.getPointBX(0), query.getPointBX(1)), 0.2f, 0.0001f);
+        assertEquals(Math.max(query.getPointBX(0), query.getPointBX(1)), 1.0f, 0.0001f);
+        
+        for (int i = 0; i < 2; i++) {
+            assertEquals(query.getDepth(i), 0.25f, 0.0001f);
+            assertEquals(query.getPointAX(i), query.getPointBX(i), 0.0001f);
+            assertEquals(query.getPointAY(i), 1.0f, 0.0001f);
+            assertEquals(query.getPointBY(i), 0.75f, 0.0001f);
+        }
+        
+        // Swapping the polygons swaps the points and flips the normal.
+        assertTrue(query.query(getBox(0.2f, 0.75f), getBox(0.0f, 0.0f)));
+        assertEquals(query.getPointCount(), 2);
+        assertEquals(query.getNormalY(), -1.0f, 0.0001f);
+        
+        for (int i = 0; i < 2; i++) {
+            assertEquals(query.getPointAY(i), 0.75f, 0.0001f);
+            assertEquals(query.getPointBY(i), 1.0f, 0.0001f);
+        }
+    }
+    
+    @Test
+    public void testVertexContact() {
+        final PolygonContact query = new PolygonContact();
+        
+        // A box standing on its corner 0.1 deep into another.
+        final ConvexPolygon diamond = getBox(0.0f, 0.0f).rotateAndTranslate(new Vector2(0.5f, 0.5f), (float) Math.PI / 4.0f, new Vector2(0.0f, 0.4f + (float) Math.sqrt(0.5)));
+        
+        assertTrue(query.query(getBox(0.0f, 0.0f), diamond));
+        assertEquals(query.getPointCount(), 1);
+        assertEquals(query.getNormalX(), 0.0f, 0.0001f);
+        assertEquals(query.getNormalY(), 1.0f, 0.0001f);
+        assertEquals(query.getDepth(0), 0.1f, 0.0001f);
+        assertEquals(query.getPointBX(0), 0.5f, 0.0001f);
+        assertEquals(query.getPointBY(0), 0.9f, 0.0001f);
+        assertEquals(query.getPointAY(0), 1.0f, 0.0001f);
+    }
+    
+    @Test
+    public void testMatchesPenetrationDepth() {
+        final PolygonContact query = new PolygonContact();
+        final ConvexPolygon a = builder.createRegularPolygon(new Vector2(0.0f, 0.0f), 1.0f, 7);
+        
+        for (int i = 0; i < 100; i++) {
+            final float angle = 0.173f * i;
+            final float offset = 1.0f + 0.009f * i;
+            final ConvexPolygon b = builder.createRegularPolygon(new Vector2(0.0f, 0.0f), 0.5f, 5).rotateAndTranslate(new Vector2(0.0f, 0.0f), angle, new Vector2(offset * (float) Math.cos(angle), offset * (float) Math.sin(angle)));
+            
+            assertEquals(query.query(a, b), a.doesIntersect(b));
+            
+            if (query.getPointCount() == 0) {
+                continue;
+            }
+            
+            assertTrue(query.getPointCount() <= PolygonContact.MAX_POINT_COUNT);
+            final float penetration = Math.min(findPenetration(a, b), findPenetration(b, a));
+            
+            float depth = 0.0f;
+            for (int j = 0; j < query.getPointCount(); j++) {
+                depth = Math.max(depth, query.getDepth(j));
+            }
+            
+            // The reference face isn't always the best one, so the depths may differ a little.
+            assertEquals(depth, penetration, 0.02f * depth + 0.001f);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class PolygonDistanceTest {
+    public PolygonDistanceTest() {}
+
+    private final PolygonBuilder builder = new PolygonBuilder();
+
+    private ConvexPolygon getBox(final float x, final float y) {
+        return builder.createBox(new Vector2(x, y), new Vector2(x + 1.0f, y + 1.0f));
+    }
+    
+    @Test
+    public void testSeparated() {
+        final PolygonDistance query = new PolygonDistance();
+        
+        assertFalse(query.query(getBox(0.0f, 0.0f), getBox(2.0f, 0.5f)));
+        assertFalse(query.isOverlapping());
+        assertEquals(query.getDistance(), 1.0f, 0.0001f);
+        assertEquals(query.getNormalX(), 1.0f, 0.0001f);
+        assertEquals(query.getNormalY(), 0.0f, 0.0001f);
+        assertEquals(query.getPointAX(), 1.0f, 0.0001f);
+        assertEquals(query.getPointBX(), 2.0f, 0.0001f);
+        assertEquals(query.getPointAY(), query.getPointBY(), 0.0001f);
+        
+        assertEquals(query.findDistance(getBox(0.0f, 0.0f), getBox(-3.0f, -3.0f)), (float) Math.sqrt(8.0), 0.0001f);
+        assertEquals(query.getNormalX(), -(float) Math.sqrt(0.5), 0.0001f);
+        assertEquals(query.getNormalY(), -(float) Math.sqrt(0.5), 0.0001f);
+        assertEquals(query.getPointAX(), 0.0f, 0.0001f);
+        assertEquals(query.getPointBY(), -2.0f, 0.0001f);
+    }
+    
+    @Test
+    public void testOverlapping() {
+        final PolygonDistance query = new PolygonDistance();
+        
+        assertTrue(query.query(getBox(0.0f, 0.0f), getBox(0.2f, 0.75f)));
+        assertTrue(query.isOverlapping());
+        assertEquals(query.getDistance(), -0.25f, 0.0001f);
+        assertEquals(query.getNormalX(), 0.0f, 0.0001f);
+        assertEquals(query.getNormalY(), 1.0f, 0.0001f);
+        assertEquals(query.getPointAY() - query.getPointBY(), 0.25f, 0.0001f);
+        
+        assertEquals(query.findDistance(getBox(0.0f, 0.0f), getBox(0.2f, 0.75f)), 0.0f, 0.0f);
+    }
+    
+    @Test
+    public void testLargePolygons() {
+        final PolygonDistance query = new PolygonDistance();
+        final ConvexPolygon a = builder.createRegularPolygon(new Vector2(0.0f, 0.0f), 1.0f, 128);
+        
+        // The normals can be off by the angle between the edges, which is less than 0.03 radians.
+        
+        for (int i = 0; i < 50; i++) {
+            final float x = (float) Math.cos(0.131 * i);
+            final float y = (float) Math.sin(0.131 * i);
+            
+            assertFalse(query.query(a, builder.createRegularPolygon(new Vector2(3.0f * x, 3.0f * y), 1.0f, 128)));
+            assertEquals(query.getDistance(), 1.0f, 0.01f);
+            assertEquals(query.getNormalX(), x, 0.03f);
+            assertEquals(query.getNormalY(), y, 0.03f);
+            
+            assertTrue(query.query(a, builder.createRegularPolygon(new Vector2(1.5f * x, 1.5f * y), 1.0f, 128)));
+            assertEquals(query.getDistance(), -0.5f, 0.01f);
+            assertEquals(query.getNormalX(), x, 0.03f);
+            assertEquals(query.getNormalY(), y, 0.03f);
+        }
+    }
+    
+    @Test
+    public void testTouching() {
+        final PolygonDistance query = new PolygonDistance();
+        
+        assertTrue(query.query(getBox(0.0f, 0.0f), getBox(1.0f, 0.0f)));
+        assertEquals(query.getDistance(), 0.0f, 0.0001f);
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class ProjectionKernelTest {
+    public ProjectionKernelTest() {}
+    
+    private final float[] triangle = {0.0f, 0.0f, 1.0f, 0.0f, 0.0f, 1.0f};
+    
+    @Test
+    public void testProjectMinimum() {
+        for (ProjectionKernel kernel : new ProjectionKernel[] {ProjectionKernel.getScalar(), ProjectionKernel.getFused(), ProjectionKernel.getUnrolled()}) {
+            assertEquals(kernel.projectMinimum(triangle, 3, 1.0f, 1.0f), 0.0f, 0.0f);
+            assertEquals(kernel.projectMinimum(triangle, 3, -1.0f, 0.0f), -1.0f, 0.0f);
+        }
+    }
+
+    @Test
+    public void testProjectMaximum() {
+        for (ProjectionKernel kernel : new ProjectionKernel[] {ProjectionKernel.getScalar(), ProjectionKernel.getFused(), ProjectionKernel.getUnrolled()}) {
+            assertEquals(kernel.projectMaximum(triangle, 3, 1.0f, 1.0f), 1.0f, 0.0f);
+            assertEquals(kernel.projectMaximum(triangle, 3, -1.0f, 0.0f), 0.0f, 0.0f);
+        }
+    }
+    
+    @Test
+    public void testKernelsAgree() {
+        final Random random = new Random(1);
+        final float[] a = new float[14];
+        final float[] b = new float[14];
+        
+        for (int i = 0; i < 1000; i++) {
+            for (int j = 0; j < a.length; j++) {
+                a[j] = random.nextFloat();
+                b[j] = random.nextFloat() + 0.5f;
+            }
+            
+            final int countA = 3 + random.nextInt(5);
+            final int countB = 3 + random.nextInt(5);
+            final float nx = random.nextFloat() - 0.5f;
+            final float ny = random.nextFloat() - 0.5f;
+            
+            assertEquals(ProjectionKernel.getFused().doOverlapOnAxis(a, countA, b, countB, nx, ny), ProjectionKernel.getScalar().doOverlapOnAxis(a, countA, b, countB, nx, ny));
+            assertEquals(ProjectionKernel.getUnrolled().doOverlapOnAxis(a, countA, b, countB, nx, ny), ProjectionKernel.getScalar().doOverlapOnAxis(a, countA, b, countB, nx, ny));
+            assertEquals(ProjectionKernel.getUnrolled().projectMinimum(a, countA, nx, ny), ProjectionKernel.getScalar().projectMinimum(a, countA, nx, ny), 0.0f);
+            assertEquals(ProjectionKernel.getUnrolled().projectMaximum(b, countB, nx, ny), ProjectionKernel.getScalar().projectMaximum(b, countB, nx, ny), 0.0f);
+        }
+    }
+    
+    // Packs the vertices of a polygon into coordinates.
+    private static float[] pack(final ConvexPolygon polygon) {
+        final float[] packed = new float[2 * polygon.getVertexCount()];
+        
+        for (int i = 0; i < polygon.getVertexCount(); i++) {
+            packed[2 * i] = polygon.getVertexX(i);
+            packed[2 * i + 1] = polygon.getVertexY(i);
+        }
+        
+        return packed;
+    }
+    
+    @Test
+    public void testKernelsAgreeOnRegularPolygons() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final Random random = new Random(1);
+        final ProjectionKernel scalar = ProjectionKernel.getScalar();
+        
+        for (int vertexCount : new int[] {3, 4, 5, 8, 16, 64}) {
+            final float[] a = pack(builder.createRegularPolygon(new Vector2(0.0f, 0.0f), 1.0f, vertexCount));
+            
+            for (int i = 0; i < 200; i++) {
+                final float[] b = pack(builder.createRegularPolygon(new Vector2(4.0f * random.nextFloat(), 4.0f * random.nextFloat()), 1.0f, vertexCount));
+                
+                final double angle = 2.0 * Math.PI * random.nextDouble();
+                final float nx = (float) Math.cos(angle);
+                final float ny = (float) Math.sin(angle);
+                
+                for (ProjectionKernel kernel : new ProjectionKernel[] {ProjectionKernel.getFused(), ProjectionKernel.getUnrolled()}) {
+                    assertEquals(kernel.doOverlapOnAxis(a, vertexCount, b, vertexCount, nx, ny), scalar.doOverlapOnAxis(a, vertexCount, b, vertexCount, nx, ny));
+                    assertEquals(kernel.projectMinimum(b, vertexCount, nx, ny), scalar.projectMinimum(b, vertexCount, nx, ny), 0.0f);
+                    assertEquals(kernel.projectMaximum(b, vertexCount, nx, ny), scalar.projectMaximum(b, vertexCount, nx, ny), 0.0f);
+                }
+            }
+        }
+    }
+    
+    // Checks that two boxes are exactly the same.
+    private static void assertSameBounds(final AABB expected, final AABB actual) {
+        assertEquals(actual.getXMin(), expected.getXMin(), 0.0f);
+        assertEquals(actual.getYMin(), expected.getYMin(), 0.0f);
+        assertEquals(actual.getXMax(), expected.getXMax(), 0.0f);
+        assertEquals(actual.getYMax(), expected.getYMax(), 0.0f);
+    }
+    
+    @Test
+    public void testKernelsAgreeOnTransformsAndBounds() {
+        final Random random = new Random(1);
+        final ProjectionKernel scalar = ProjectionKernel.getScalar();
+        final float[] source = new float[14];
+        final float[] expected = new float[14];
+        final float[] actual = new float[14];
+        final AABB expectedBounds = new AABB();
+        final AABB actualBounds = new AABB();
+        
+        for (int i = 0; i < 1000; i++) {
+            for (int j = 0; j < source.length; j++) {
+                source[j] = 4.0f * random.nextFloat() - 2.0f;
+            }
+            
+            final int count = 3 + random.nextInt(5);
+            final float angle = 6.0f * random.nextFloat();
+            final float ox = random.nextFloat();
+            final float oy = random.nextFloat();
+            final float tx = random.nextFloat() - 0.5f;
+            final float ty = random.nextFloat() - 0.5f;
+            final float c = (float) Math.cos(angle);
+            final float s = (float) Math.sin(angle);
+            
+            scalar.transform(source, expected, count, ox, oy, c, s, tx, ty);
+            scalar.findBounds(source, count, expectedBounds);
+            scalar.includeTransformed(source, count, ox, oy, c, s, tx, ty, expectedBounds);
+            
+            for (ProjectionKernel kernel : new ProjectionKernel[] {ProjectionKernel.getFused(), ProjectionKernel.getUnrolled()}) {
+                kernel.transform(source, actual, count, ox, oy, c, s, tx, ty);
+                assertArrayEquals(expected, actual, 0.0f);
+                
+                kernel.findBounds(source, count, actualBounds);
+                kernel.includeTransformed(source, count, ox, oy, c, s, tx, ty, actualBounds);
+                assertSameBounds(expectedBounds, actualBounds);
+                
+                assertEquals(kernel.findExtremeIndex(source, count, c, s), scalar.findExtremeIndex(source, count, c, s));
+            }
+            
+            // Transforming in place gives the same result.
+            ProjectionKernel.getUnrolled().transform(source, source, count, ox, oy, c, s, tx, ty);
+            
+            for (int j = 0; j < 2 * count; j++) {
+                assertEquals(source[j], expected[j], 0.0f);
+            }
+        }
+    }
+    
+    @Test
+    public void testFindExtremeIndexPicksFirstOfTies() {
+        final float[] square = {0.0f, 0.0f, 1.0f, 0.0f, 1.0f, 1.0f, 0.0f, 1.0f};
+        
+        for (ProjectionKernel kernel : new ProjectionKernel[] {ProjectionKernel.getScalar(), ProjectionKernel.getFused(), ProjectionKernel.getUnrolled()}) {
+            assertEquals(kernel.findExtremeIndex(square, 4, 1.0f, 0.0f), 1);
+            assertEquals(kernel.findExtremeIndex(square, 4, 0.0f, 1.0f), 2);
+            assertEquals(kernel.findExtremeIndex(square, 4, -1.0f, 0.0f), 0);
+            assertEquals(kernel.findExtremeIndex(square, 4, 0.0f, -1.0f), 0);
+            assertEquals(kernel.findExtremeIndex(triangle, 3, -1.0f, 0.0f), 0);
+            assertEquals(kernel.findExtremeIndex(triangle, 3, 0.0f, 1.0f), 2);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.math;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class Rot2Test {
+    public Rot2Test() {}
+
+    @Test
+    public void testConstructor() {
+        final Rot2 a = new Rot2(0.0f);
+        final Rot2 b = new Rot2(0.5f * (float) Math.PI);
+        
+        assertEquals(a.getCos(), 1.0f, 0.0f);
+        assertEquals(a.getSin(), 0.0f, 0.0f);
+        assertEquals(b.getCos(), 0.0f, 0.001f);
+        assertEquals(b.getSin(), 1.0f, 0.001f);
+        
+        assertTrue(a.equals(Rot2.IDENTITY));
+    }
+    
+    @Test
+    public void testGetAngle() {
+        assertEquals(new Rot2( 0.25f).getAngle(),  0.25f, 0.0001f);
+        assertEquals(new Rot2(-2.50f).getAngle(), -2.50f, 0.0001f);
+    }
+    
+    @Test
+    public void testMultiply() {
+        final Rot2 a = new Rot2(0.75f).multiply(new Rot2(-2.0f));
+        final Rot2 b = new Rot2(1.0f).multiply(new Rot2(1.0f).inverse());
+        
+        assertEquals(a.getAngle(), -1.25f, 0.0001f);
+        assertEquals(b.getCos(), 1.0f, 0.0001f);
+        assertEquals(b.getSin(), 0.0f, 0.0001f);
+    }
+    
+    @Test
+    public void testRotate() {
+        final Vector2 v = new Rot2(0.5f * (float) Math.PI).rotate(new Vector2(2.0f, 1.0f));
+        
+        assertEquals(v.getX(), -1.0f, 0.001f);
+        assertEquals(v.getY(),  2.0f, 0.001f);
+    }
+    
+    @Test
+    public void testEquals() {
+        assertTrue(new Rot2(1.5f).equals(new Rot2(1.5f)));
+        assertFalse(new Rot2(1.5f).equals(new Rot2(1.25f)));
+        assertFalse(new Rot2(1.5f).equals(new Vector2(1.5f)));
+        assertEquals(new Rot2(1.5f).hashCode(), new Rot2(1.5f).hashCode());
+    }
+}
@@ -29,6 +29,7 @@
  */
 package com.github.caniblossom.polybounce.math;
 
+import java.util.Random;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -227,6 +228,33 @@ public class Segment2Test {
         assertTrue(adac.getPosition().equals(a));        
     }  
     
+    @Test
+    public void testIntersectPrimitive() {
+        final Random random = new Random(1);
+        final Segment2Hit hit = new Segment2Hit();
+        int hitCount = 0;
+        
+        for (int i = 0; i < 10000; i++) {
+            final Segment2 wall = new Segment2(new Vector2(random.nextFloat(), random.nextFloat()), new Vector2(random.nextFloat(), random.nextFloat()));
+            final Segment2 ray = new Segment2(new Vector2(random.nextFloat(), random.nextFloat()), new Vector2(random.nextFloat(), random.nextFloat()));
+            final Segment2Intersection expected = wall.intersect(ray);
+            
+            final boolean didHit = Segment2.intersect(wall.getA().getX(), wall.getA().getY(), wall.getRightNormal().getX(), wall.getRightNormal().getY(), wall.getAB().length(),
+                                                      ray.getA().getX(), ray.getA().getY(), ray.getB().getX(), ray.getB().getY(), ray.getNormal().getX(), ray.getNormal().getY(), hit);
+            
+            assertEquals(didHit, expected.didIntersect());
+            
+            if (didHit) {
+                assertEquals(hit.getDistance(), expected.getDistance(), 0.0f);
+                assertEquals(hit.getX(), expected.getPosition().getX(), 0.0f);
+                assertEquals(hit.getY(), expected.getPosition().getY(), 0.0f);
+                hitCount++;
+            }
+        }
+        
+        assertTrue(hitCount > 0);
+    }
+    
     @Test
     public void testEquals() {
         final Vector2 a = new Vector2(1.0f, 2.0f);
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics;
+
+import com.github.caniblossom.polybounce.math.AABB;
+import com.github.caniblossom.polybounce.math.PolygonBuilder;
+import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.body.Body;
+import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.StaticBody;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.Assert.*;
+
+/**
+ * A reproducible world of random boxes that move, fall asleep, wake up and get
+ * added and removed, for testing a broad phase against a brute force test of 
+ * the bounds of every pair of bodies.
+ * @author Jani Salo
+ */
+class BroadPhaseScenario {
+    private static final float WORLD_SIZE = 40.0f;
+    
+    private final BroadPhase broadPhase;
+    private final Random random;
+    private final PolygonBuilder builder;
+    
+    private final ArrayList<Body> bodyList;
+    private final ArrayList<RigidBody> rigidBodyList;
+    private final ArrayList<StaticBody> staticBodyList;
+    
+    private float nextFloat(final float min, final float max) {
+        return min + (max - min) * random.nextFloat();
+    }
+    
+    private Vector2 nextPosition() {
+        return new Vector2(nextFloat(-WORLD_SIZE, WORLD_SIZE), nextFloat(-WORLD_SIZE, WORLD_SIZE));
+    }
+    
+    private Vector2 nextVelocity() {
+        return new Vector2(nextFloat(-20.0f, 20.0f), nextFloat(-20.0f, 20.0f));
+    }
+    
+    private Vector2 nextSize() {
+        return new Vector2(nextFloat(0.2f, 3.0f), nextFloat(0.2f, 3.0f));
+    }
+    
+    public BroadPhaseScenario(final BroadPhase broadPhase, final long seed) {
+        this.broadPhase = broadPhase;
+        this.random = new Random(seed);
+        this.builder = new PolygonBuilder();
+        
+        this.bodyList = new ArrayList();
+        this.rigidBodyList = new ArrayList();
+        this.staticBodyList = new ArrayList();
+    }
+    
+    public List<Body> getBodyList() {
+        return bodyList;
+    }
+    
+    public List<RigidBody> getRigidBodyList() {
+        return rigidBodyList;
+    }
+    
+    public void addRigidBody(final RigidBody body) {
+        bodyList.add(body);
+        rigidBodyList.add(body);
+        broadPhase.addRigidBody(body);
+    }
+    
+    public void addStaticBody(final StaticBody body) {
+        bodyList.add(body);
+        staticBodyList.add(body);
+        broadPhase.addStaticBody(body);
+    }
+    
+    public void addRandomRigidBodies(final int count) {
+        for (int i = 0; i < count; i++) {
+            addRigidBody(new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), nextSize()), 1.0f, 0.5f, 0.5f, 0.5f, nextPosition(), nextFloat(-3.0f, 3.0f), nextVelocity(), nextFloat(-5.0f, 5.0f)));
+        }
+    }
+    
+    public void addRandomStaticBodies(final int count) {
+        for (int i = 0; i < count; i++) {
+            addStaticBody(new StaticBody(builder.createBox(new Vector2(0.0f, 0.0f), nextSize()), 1.0f, 0.5f, 0.5f, 0.5f, nextPosition(), 0.0f));
+        }
+    }
+    
+    /**
+     * Moves the awake bodies over a step and changes the velocities of some, teleports a few 
+     * across the world, and puts some to sleep and wakes up others, then updates the broad phase.
+     */
+    public void step(final float dt) {
+        for (RigidBody body : rigidBodyList) {
+            if (body.isSleeping()) {
+                if (random.nextFloat() < 0.1f) {
+                    body.wake();
+                    body.setVelocity(nextVelocity());
+                }
+                
+                continue;
+            }
+            
+            body.update(dt);
+            
+            final float choice = random.nextFloat();
+            
+            if (choice < 0.05f) {
+                body.sleep();
+            } else if (choice < 0.08f) {
+                body.setPosition(nextPosition());
+            } else if (choice < 0.3f) {
+                body.setVelocity(nextVelocity());
+                body.setAngularVelocity(nextFloat(-5.0f, 5.0f));
+            }
+        }
+        
+        broadPhase.update(dt);
+    }
+    
+    /**
+     * Removes every body from the broad phase and adds back a random half of them.
+     */
+    public void removeRandomHalf(final float dt) {
+        broadPhase.clear();
+        
+        final ArrayList<Body> keptList = new ArrayList();
+        
+        for (Body body : bodyList) {
+            if (random.nextBoolean()) {
+                keptList.add(body);
+            }
+        }
+        
+        bodyList.clear();
+        rigidBodyList.clear();
+        staticBodyList.clear();
+        
+        for (Body body : keptList) {
+            if (body instanceof RigidBody) {
+                addRigidBody((RigidBody) body);
+            } else {
+                addStaticBody((StaticBody) body);
+            }
+        }
+        
+        broadPhase.update(dt);
+    }
+    
+    /**
+     * Finds the bounds of a body over a step like the broad phases do, static bodies don't move so they only have their hull bounds.
+     */
+    public static void findStepBounds(final Body body, final float dt, final AABB output) {
+        if (body instanceof StaticBody) {
+            body.getBounds(output);
+        } else {
+            BroadPhase.computeBounds(body, dt, output);
+        }
+    }
+    
+    /**
+     * Lists the bodies the broad phase finds in a box, which must not contain duplicates.
+     */
+    public Set<Body> findBodiesInBounds(final AABB bounds) {
+        final ArrayList<Body> foundList = new ArrayList();
+        broadPhase.findBodiesInBounds(foundList, bounds);
+        
+        final Set<Body> foundSet = new HashSet(foundList);
+        assertEquals(foundSet.size(), foundList.size());
+        
+        return foundSet;
+    }
+    
+    /**
+     * Lists the bodies whose bounds over a step overlap a box by brute force.
+     */
+    public Set<Body> findBodiesOverlapping(final AABB bounds, final float dt) {
+        final AABB otherBounds = new AABB();
+        final Set<Body> overlapSet = new HashSet();
+        
+        for (Body other : bodyList) {
+            findStepBounds(other, dt, otherBounds);
+            
+            if (bounds.doesOverlap(otherBounds)) {
+                overlapSet.add(other);
+            }
+        }
+        
+        return overlapSet;
+    }
+    
+    /**
+     * Lists the candidates the broad phase finds for a body, which must not contain duplicates.
+     */
+    public Set<Body> findCandidates(final Body body, final float dt) {
+        final ArrayList<Body> candidateList = new ArrayList();
+        broadPhase.findPossibleIntersections(candidateList, body, dt);
+        
+        final Set<Body> candidateSet = new HashSet(candidateList);
+        assertEquals(candidateSet.size(), candidateList.size());
+        
+        return candidateSet;
+    }
+    
+    /**
+     * Lists the other bodies whose bounds over the step overlap those of a body, by testing every one of them.
+     */
+    public Set<Body> findOverlaps(final Body body, final float dt) {
+        final AABB bounds = new AABB();
+        final AABB otherBounds = new AABB();
+        final Set<Body> overlapSet = new HashSet();
+        
+        findStepBounds(body, dt, bounds);
+        
+        for (Body other : bodyList) {
+            findStepBounds(other, dt, otherBounds);
+            
+            if (other != body && bounds.doesOverlap(otherBounds)) {
+                overlapSet.add(other);
+            }
+        }
+        
+        return overlapSet;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics;
+
+import com.github.caniblossom.polybounce.math.PolygonBuilder;
+import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.ContactCache.Contact;
+import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.StaticBody;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class ColliderTest {
+    public ColliderTest() {}
+    
+    private static final float DT = 1.0f / 30.0f;
+    
+    private final PolygonBuilder builder = new PolygonBuilder();
+    private final ContactCache cache = new ContactCache();
+    private final Collider collider = new Collider(cache);
+    private final CollisionList collisionList = new CollisionList();
+    
+    // A unit box with its bottom resting on top of the ground.
+    private final RigidBody box = new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 1.0f)), 1.0f, 0.0f, 0.4f, 0.2f, new Vector2(0.0f, 0.0f), 0.0f, new Vector2(0.0f, 0.0f), 0.0f);
+    private final StaticBody ground = new StaticBody(builder.createBox(new Vector2(-5.0f, -1.0f), new Vector2(5.0f, 0.0f)), 1000.0f, 0.0f, 0.4f, 0.2f, new Vector2(0.0f, 0.0f), 0.0f);
+    
+    // Solves a step with the box at given velocities touching the ground at its bottom corners.
+    private List<Contact> solveStep(final float vx, final float vy, final float w, final int iterationCount) {
+        box.setVelocity(new Vector2(vx, vy));
+        box.setAngularVelocity(w);
+        
+        collisionList.clear();
+        collisionList.add(0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 0.0f, 1.0f);
+        collisionList.add(0.0f, 1.0f, 0.0f, 1.0f, 0.0f, 0.0f, 1.0f);
+        
+        cache.beginStep();
+        collider.addCollisions(box, ground, collisionList, DT);
+        collider.solveCollisions(iterationCount);
+        cache.endStep();
+        
+        final List<Contact> contactList = cache.getContacts(box, ground);
+        assertEquals(contactList.size(), 2);
+        
+        return contactList;
+    }
+    
+    // Returns how far the box is from being at rest, which is what a resting contact aims for.
+    private float getRestingError() {
+        return Math.abs(box.getVelocity().getX()) + Math.abs(box.getVelocity().getY()) + Math.abs(box.getAngularVelocity());
+    }
+    
+    @Test
+    public void testNormalImpulseStopsApproach() {
+        for (Contact contact : solveStep(0.0f, -0.5f, 0.0f, Collider.DEFAULT_ITERATION_COUNT)) {
+            assertTrue(contact.getNormalImpulse() > 0.0f);
+        }
+        
+        assertTrue(box.getVelocity().getY() > -0.001f);
+    }
+    
+    @Test
+    public void testNormalImpulseIsNeverNegative() {
+        final Random random = new Random(1);
+        
+        for (int i = 0; i < 200; i++) {
+            final float vx = 4.0f * random.nextFloat() - 2.0f;
+            final float vy = 4.0f * random.nextFloat() - 2.0f;
+            final float w = 4.0f * random.nextFloat() - 2.0f;
+            
+            for (Contact contact : solveStep(vx, vy, w, 1 + random.nextInt(8))) {
+                assertTrue(contact.getNormalImpulse() >= 0.0f);
+            }
+        }
+    }
+    
+    @Test
+    public void testSeparatingContactHasNoImpulse() {
+        for (Contact contact : solveStep(0.0f, 0.5f, 0.0f, Collider.DEFAULT_ITERATION_COUNT)) {
+            assertEquals(contact.getNormalImpulse(), 0.0f, 0.0f);
+            assertEquals(contact.getTangentImpulse(), 0.0f, 0.0f);
+        }
+        
+        assertEquals(box.getVelocity().getY(), 0.5f, 0.0f);
+    }
+    
+    @Test
+    public void testFrictionIsClampedToFrictionCone() {
+        // Same as the collider, the larger of the summed frictions averaged over the two bodies.
+        final float friction = 0.5f * Math.max(box.getStaticFriction() + ground.getStaticFriction(), box.getDynamicFriction() + ground.getDynamicFriction());
+        final Random random = new Random(2);
+        
+        for (int i = 0; i < 200; i++) {
+            final float vx = 20.0f * random.nextFloat() - 10.0f;
+            final float vy = -random.nextFloat();
+            
+            for (Contact contact : solveStep(vx, vy, 0.0f, 1 + random.nextInt(8))) {
+                assertTrue(Math.abs(contact.getTangentImpulse()) <= friction * contact.getNormalImpulse() + 1e-6f);
+            }
+        }
+    }
+    
+    @Test
+    public void testFastSlideIsOnlySlowedDown() {
+        final List<Contact> contactList = solveStep(10.0f, -0.5f, 0.0f, Collider.DEFAULT_ITERATION_COUNT);
+        
+        // The friction saturates, so it can't stop the box within a single step. The tangent 
+        // points along the normal turned left, so friction against sliding right is positive.
+        assertTrue(box.getVelocity().getX() > 0.0f);
+        assertTrue(box.getVelocity().getX() < 10.0f);
+        assertTrue(contactList.get(0).getTangentImpulse() > 0.0f);
+    }
+    
+    @Test
+    public void testWarmStartingLowersIterationError() {
+        final float gravityStep = -0.5f * DT;
+        
+        solveStep(0.0f, gravityStep, 0.0f, 1);
+        final float coldError = getRestingError();
+        
+        // The same resting contact over the following steps starts from the impulses of the previous one.
+        float warmError = 0.0f;
+        
+        for (int i = 0; i < 10; i++) {
+            solveStep(0.0f, gravityStep, 0.0f, 1);
+            warmError = getRestingError();
+        }
+        
+        assertTrue(coldError > 0.0f);
+        assertTrue(warmError < coldError);
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics;
+
+import com.github.caniblossom.polybounce.math.PolygonBuilder;
+import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.ContactCache.Contact;
+import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class ContactCacheTest {
+    public ContactCacheTest() {}
+    
+    private final PolygonBuilder builder = new PolygonBuilder();
+    private final ContactCache cache = new ContactCache();
+    private final CollisionList collisionList = new CollisionList();
+    
+    private final RigidBody active = new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 1.0f)), 1.0f, 0.5f, 0.5f, 0.5f, new Vector2(0.0f, 1.0f), 0.0f, new Vector2(0.0f, 0.0f), 0.0f);
+    private final RigidBody passive = new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 1.0f)), 1.0f, 0.5f, 0.5f, 0.5f, new Vector2(0.0f, 0.0f), 0.0f, new Vector2(0.0f, 0.0f), 0.0f);
+    
+    // Updates the pair over a step with a single contact at given point and normal.
+    private Contact step(final float x, final float y, final float nx, final float ny) {
+        collisionList.clear();
+        collisionList.add(0.0f, x, y, x, y, nx, ny);
+        
+        cache.beginStep();
+        final List<Contact> contactList = cache.updateContacts(active, passive, collisionList);
+        cache.endStep();
+        
+        assertEquals(contactList.size(), 1);
+        return contactList.get(0);
+    }
+    
+    // Stores impulses on a contact as the solver would.
+    private static void accumulate(final Contact contact) {
+        contact.setNormalImpulse(2.0f);
+        contact.setTangentImpulse(-0.5f);
+    }
+    
+    @Test
+    public void testNewContactHasNoImpulse() {
+        final Contact contact = step(0.5f, 1.0f, 0.0f, 1.0f);
+        
+        assertEquals(contact.getNormalImpulse(), 0.0f, 0.0f);
+        assertEquals(contact.getTangentImpulse(), 0.0f, 0.0f);
+    }
+    
+    @Test
+    public void testPersistentContactKeepsImpulse() {
+        accumulate(step(0.5f, 1.0f, 0.0f, 1.0f));
+        
+        final Contact contact = step(0.52f, 1.01f, 0.0f, 1.0f);
+        
+        assertEquals(contact.getNormalImpulse(), 2.0f, 0.0f);
+        assertEquals(contact.getTangentImpulse(), -0.5f, 0.0f);
+        
+        // The impulses keep being carried over for as long as the contact persists.
+        contact.setNormalImpulse(3.0f);
+        
+        assertEquals(step(0.5f, 1.0f, 0.0f, 1.0f).getNormalImpulse(), 3.0f, 0.0f);
+    }
+    
+    @Test
+    public void testMovedContactStartsOver() {
+        accumulate(step(0.5f, 1.0f, 0.0f, 1.0f));
+        
+        final Contact contact = step(0.5f + 0.06f, 1.0f, 0.0f, 1.0f);
+        
+        assertEquals(contact.getNormalImpulse(), 0.0f, 0.0f);
+        assertEquals(contact.getTangentImpulse(), 0.0f, 0.0f);
+    }
+    
+    @Test
+    public void testRotatedContactStartsOver() {
+        accumulate(step(0.5f, 1.0f, 0.0f, 1.0f));
+        
+        // Cosine of the angle between the normals is about 0.94.
+        final Contact contact = step(0.5f, 1.0f, (float) Math.sin(0.35), (float) Math.cos(0.35));
+        
+        assertEquals(contact.getNormalImpulse(), 0.0f, 0.0f);
+        assertEquals(contact.getTangentImpulse(), 0.0f, 0.0f);
+    }
+    
+    @Test
+    public void testSeparatedPairStartsOver() {
+        accumulate(step(0.5f, 1.0f, 0.0f, 1.0f));
+        
+        // A step without contact between the bodies.
+        cache.beginStep();
+        cache.endStep();
+        
+        final Contact contact = step(0.5f, 1.0f, 0.0f, 1.0f);
+        
+        assertEquals(contact.getNormalImpulse(), 0.0f, 0.0f);
+        assertEquals(contact.getTangentImpulse(), 0.0f, 0.0f);
+    }
+    
+    @Test
+    public void testEachOldContactIsInheritedOnce() {
+        collisionList.clear();
+        collisionList.add(0.0f, 0.5f, 1.0f, 0.5f, 1.0f, 0.0f, 1.0f);
+        
+        cache.beginStep();
+        accumulate(cache.updateContacts(active, passive, collisionList).get(0));
+        cache.endStep();
+        
+        collisionList.clear();
+        collisionList.add(0.0f, 0.51f, 1.0f, 0.51f, 1.0f, 0.0f, 1.0f);
+        collisionList.add(0.0f, 0.49f, 1.0f, 0.49f, 1.0f, 0.0f, 1.0f);
+        
+        cache.beginStep();
+        final List<Contact> contactList = cache.updateContacts(active, passive, collisionList);
+        cache.endStep();
+        
+        assertEquals(contactList.get(0).getNormalImpulse() + contactList.get(1).getNormalImpulse(), 2.0f, 0.0f);
+    }
+    
+    // Updates the pair over a step with the roles of the bodies swapped, with a single contact between given points.
+    private Contact stepReversed(final float x, final float y, final float px, final float py, final float nx, final float ny) {
+        collisionList.clear();
+        collisionList.add(0.0f, x, y, px, py, nx, ny);
+        
+        cache.beginStep();
+        final List<Contact> contactList = cache.updateContacts(passive, active, collisionList);
+        cache.endStep();
+        
+        assertEquals(contactList.size(), 1);
+        return contactList.get(0);
+    }
+    
+    @Test
+    public void testReversedPairKeepsImpulse() {
+        collisionList.clear();
+        collisionList.add(0.0f, 0.5f, 0.98f, 0.5f, 1.0f, 0.0f, 1.0f);
+        
+        cache.beginStep();
+        accumulate(cache.updateContacts(active, passive, collisionList).get(0));
+        cache.endStep();
+        
+        // The same contact seen from the other body, with the points swapped and the normal reversed.
+        final Contact contact = stepReversed(0.5f, 1.0f, 0.5f, 0.98f, 0.0f, -1.0f);
+        
+        assertEquals(contact.getNormalImpulse(), 2.0f, 0.0f);
+        assertEquals(contact.getTangentImpulse(), -0.5f, 0.0f);
+        
+        // And back again.
+        contact.setNormalImpulse(3.0f);
+        
+        assertEquals(step(0.5f, 0.98f, 0.0f, 1.0f).getNormalImpulse(), 3.0f, 0.0f);
+        assertEquals(cache.getContacts(passive, active).size(), 1);
+    }
+    
+    @Test
+    public void testReversedPairWithSameNormalStartsOver() {
+        accumulate(step(0.5f, 1.0f, 0.0f, 1.0f));
+        
+        // Seen from the other body, the normal should have been reversed too.
+        final Contact contact = stepReversed(0.5f, 1.0f, 0.5f, 1.0f, 0.0f, 1.0f);
+        
+        assertEquals(contact.getNormalImpulse(), 0.0f, 0.0f);
+        assertEquals(contact.getTangentImpulse(), 0.0f, 0.0f);
+    }
+    
+    @Test
+    public void testPairUpdatedOnAnotherThreadIsFound() throws InterruptedException {
+        accumulate(step(0.5f, 1.0f, 0.0f, 1.0f));
+        
+        final Contact[] result = new Contact[1];
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result[0] = step(0.5f, 1.0f, 0.0f, 1.0f);
+            }
+        });
+        
+        thread.start();
+        thread.join();
+        
+        // The other thread looked the pair up with its own key and inherited the impulses.
+        assertEquals(result[0].getNormalImpulse(), 2.0f, 0.0f);
+        assertSame(cache.getContacts(active, passive).get(0), result[0]);
+    }
+}
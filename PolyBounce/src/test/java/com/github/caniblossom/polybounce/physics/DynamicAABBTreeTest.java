@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics;
+
+import com.github.caniblossom.polybounce.math.AABB;
+import com.github.caniblossom.polybounce.math.PolygonBuilder;
+import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.StaticBody;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class DynamicAABBTreeTest {
+    private static final float DT = 1.0f / 30.0f;
+    
+    public DynamicAABBTreeTest() {
+    }
+    
+    private void assertFindsExactOverlaps(final BroadPhaseScenario scenario) {
+        final AABB bounds = new AABB();
+        
+        for (RigidBody body : scenario.getRigidBodyList()) {
+            assertEquals(scenario.findCandidates(body, DT), scenario.findOverlaps(body, DT));
+            
+            body.getBounds(bounds);
+            bounds.expand(0.5f);
+            assertEquals(scenario.findBodiesOverlapping(bounds, DT), scenario.findBodiesInBounds(bounds));
+        }
+    }
+    
+    @Test
+    public void testFindPossibleIntersectionsMatchesBruteForce() {
+        for (long seed = 0; seed < 4; seed++) {
+            final BroadPhaseScenario scenario = new BroadPhaseScenario(new DynamicAABBTree(), seed);
+            
+            scenario.addRandomStaticBodies(20);
+            scenario.addRandomRigidBodies(80);
+            
+            for (int i = 0; i < 200; i++) {
+                if (i % 50 == 25) {
+                    scenario.addRandomRigidBodies(10);
+                } else if (i % 50 == 49) {
+                    scenario.removeRandomHalf(DT);
+                    scenario.addRandomStaticBodies(5);
+                    scenario.addRandomRigidBodies(30);
+                }
+                
+                scenario.step(DT);
+                assertFindsExactOverlaps(scenario);
+            }
+        }
+    }
+    
+    @Test
+    public void testBodyMovingWithinFatMarginFindsEveryNeighbour() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final DynamicAABBTree tree = new DynamicAABBTree();
+        final BroadPhaseScenario scenario = new BroadPhaseScenario(tree, 0);
+        
+        for (int i = 0; i < 20; i++) {
+            scenario.addStaticBody(new StaticBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(0.5f, 0.5f)), 1.0f, 0.5f, 0.5f, 0.5f, new Vector2(i, 0.8f), 0.0f));
+        }
+        
+        final RigidBody body = new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(0.5f, 0.5f)), 1.0f, 0.5f, 0.5f, 0.5f, new Vector2(-1.0f, 0.0f), 0.0f, new Vector2(0.0f, 0.0f), 0.0f);
+        scenario.addRigidBody(body);
+        
+        for (int i = 0; i < 500; i++) {
+            body.setVelocity(new Vector2(1.2f, i % 40 < 20 ? 0.6f : -0.6f));
+            tree.update(DT);
+            
+            assertEquals(scenario.findCandidates(body, DT), scenario.findOverlaps(body, DT));
+            body.update(DT);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics;
+
+import com.github.caniblossom.polybounce.math.BoundingBox;
+import com.github.caniblossom.polybounce.math.PolygonBuilder;
+import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.body.Body;
+import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.StaticBody;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the results of the engine don't depend on the number of threads it uses.
+ * @author Jani Salo
+ */
+public class PhysicsEngineDeterminismTest {
+    public PhysicsEngineDeterminismTest() {}
+    
+    private static final float TIME_STEP = 1.0f / 30.0f;
+    private static final int PILE_COUNT = 4;
+    private static final int PILE_SIZE = 16;
+    private static final int STEP_COUNT = 120;
+    
+    private final PolygonBuilder builder = new PolygonBuilder();
+    
+    // Builds the same world of separate piles of tumbling boxes on each call.
+    private PhysicsEngine createWorld(final int threadCount, final PhysicsEngine.NarrowPhaseType type) {
+        final PhysicsEngine engine = new PhysicsEngine(TIME_STEP, 0.995f, new Vector2(0.0f, -0.5f), new BoundingBox(new Vector2(0.0f, 0.0f), 1.0f, 1.0f), threadCount);
+        final Random random = new Random(7);
+        
+        engine.setNarrowPhaseType(type);
+        engine.reset(null);
+        engine.add(new StaticBody(builder.createBox(new Vector2(-10.0f, -1.0f), new Vector2(10.0f * PILE_COUNT, 0.0f)), 1000.0f, 0.2f, 0.4f, 0.2f, new Vector2(0.0f, 0.0f), 0.0f));
+        
+        for (int pile = 0; pile < PILE_COUNT; pile++) {
+            for (int i = 0; i < PILE_SIZE; i++) {
+                final Vector2 position = new Vector2(10.0f * pile + 1.2f * (i % 4) + 0.1f * random.nextFloat(), 0.5f + 1.2f * (i / 4));
+                final Vector2 velocity = new Vector2(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+                
+                engine.add(new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 1.0f)), 1.0f, 0.3f, 0.4f, 0.2f, position, 0.2f * random.nextFloat(), velocity, random.nextFloat() - 0.5f));
+            }
+        }
+        
+        return engine;
+    }
+    
+    // Asserts that two float values have exactly the same bits.
+    private static void assertSameBits(final float expected, final float actual) {
+        assertEquals(Float.floatToIntBits(expected), Float.floatToIntBits(actual));
+    }
+    
+    private void testThreadCountDoesNotChangeResults(final PhysicsEngine.NarrowPhaseType type) {
+        final PhysicsEngine serial = createWorld(1, type);
+        final PhysicsEngine parallel = createWorld(8, type);
+        
+        final List<Body> serialList = serial.getUnmodifiableViewToBodyList();
+        final List<Body> parallelList = parallel.getUnmodifiableViewToBodyList();
+        
+        try {
+            for (int step = 0; step < STEP_COUNT; step++) {
+                serial.update(TIME_STEP);
+                parallel.update(TIME_STEP);
+                
+                for (int i = 0; i < serialList.size(); i++) {
+                    final Body expected = serialList.get(i);
+                    final Body actual = parallelList.get(i);
+                    
+                    assertSameBits(expected.getPosition().getX(), actual.getPosition().getX());
+                    assertSameBits(expected.getPosition().getY(), actual.getPosition().getY());
+                    assertSameBits(expected.getRotation(), actual.getRotation());
+                    assertSameBits(expected.getVelocity().getX(), actual.getVelocity().getX());
+                    assertSameBits(expected.getVelocity().getY(), actual.getVelocity().getY());
+                    assertSameBits(expected.getAngularVelocity(), actual.getAngularVelocity());
+                    assertEquals(expected.isSleeping(), actual.isSleeping());
+                }
+            }
+        } finally {
+            serial.dispose();
+            parallel.dispose();
+        }
+    }
+    
+    @Test
+    public void testWorldIsSplitIntoIslands() {
+        final PhysicsEngine engine = createWorld(8, PhysicsEngine.NarrowPhaseType.CLIPPING);
+        final HashSet<Integer> islandSet = new HashSet();
+        
+        try {
+            engine.update(TIME_STEP);
+            
+            for (Body body : engine.getUnmodifiableViewToBodyList()) {
+                if (body instanceof RigidBody) {
+                    islandSet.add(engine.getIsland(body));
+                }
+            }
+        } finally {
+            engine.dispose();
+        }
+        
+        // The piles are far enough apart to never touch, so there's enough work for the threads.
+        assertFalse(islandSet.contains(-1));
+        assertTrue(islandSet.size() >= PILE_COUNT);
+    }
+    
+    @Test
+    public void testThreadCountDoesNotChangeResultsWithClipping() {
+        testThreadCountDoesNotChangeResults(PhysicsEngine.NarrowPhaseType.CLIPPING);
+    }
+    
+    @Test
+    public void testThreadCountDoesNotChangeResultsWithGjkEpa() {
+        testThreadCountDoesNotChangeResults(PhysicsEngine.NarrowPhaseType.GJK_EPA);
+    }
+    
+    @Test
+    public void testThreadCountDoesNotChangeResultsWithRayCasting() {
+        testThreadCountDoesNotChangeResults(PhysicsEngine.NarrowPhaseType.RAY_CASTING);
+    }
+}
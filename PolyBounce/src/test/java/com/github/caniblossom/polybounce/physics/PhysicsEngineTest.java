@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics;
+
+import com.github.caniblossom.polybounce.math.AABB;
+import com.github.caniblossom.polybounce.math.BoundingBox;
+import com.github.caniblossom.polybounce.math.PolygonBuilder;
+import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.body.Body;
+import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.StaticBody;
+import java.util.ArrayList;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class PhysicsEngineTest {
+    public PhysicsEngineTest() {}
+    
+    // Same as the game.
+    private static final float TIME_STEP = 1.0f / 30.0f;
+    private static final float INERTIA = 0.995f;
+    private static final Vector2 GRAVITY = new Vector2(0.0f, -0.5f);
+    
+    // Overlap the collider leaves uncorrected.
+    private static final float SLOP = Collider.SLOP;
+    
+    // Time resting bodies are kept awake for, and distance within which woken bodies wake others.
+    private static final float TIME_TO_SLEEP = PhysicsEngine.TIME_TO_SLEEP;
+    private static final float WAKE_MARGIN = PhysicsEngine.WAKE_MARGIN;
+    
+    private final PolygonBuilder builder = new PolygonBuilder();
+    private final PhysicsEngine engine = new PhysicsEngine(TIME_STEP, INERTIA, GRAVITY, new BoundingBox(new Vector2(0.0f, 0.0f), 1.0f, 1.0f));
+    
+    // Returns a new unit box with its lower left corner at a position.
+    private RigidBody createBox(final float x, final float y) {
+        return new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 1.0f)), 1.0f, 0.2f, 0.4f, 0.2f, new Vector2(x, y), 0.0f, new Vector2(0.0f, 0.0f), 0.0f);
+    }
+    
+    // Returns a new static slab with its top at y = 0.
+    private StaticBody createGround(final float minX, final float maxX) {
+        return new StaticBody(builder.createBox(new Vector2(minX, -1.0f), new Vector2(maxX, 0.0f)), 1000.0f, 0.2f, 0.4f, 0.2f, new Vector2(0.0f, 0.0f), 0.0f);
+    }
+    
+    // Drops a box on the ground and checks that once it has settled, it neither sinks nor jitters past the slop.
+    private void testBoxSettles(final PhysicsEngine.NarrowPhaseType type) {
+        engine.setNarrowPhaseType(type);
+        engine.reset(null);
+        
+        final RigidBody box = createBox(0.0f, 0.2f);
+        engine.add(createGround(-5.0f, 5.0f));
+        engine.add(box);
+        
+        final AABB bounds = new AABB();
+        float previousY = 0.0f;
+        
+        for (int step = 0; step < 300; step++) {
+            engine.update(TIME_STEP);
+            box.getBounds(bounds);
+            
+            if (step >= 150) {
+                assertTrue(bounds.getYMin() > -SLOP);
+                assertEquals(bounds.getYMin(), previousY, SLOP);
+                assertEquals(bounds.getXMin(), 0.0f, SLOP);
+            }
+            
+            previousY = bounds.getYMin();
+        }
+    }
+    
+    // Stacks two boxes on the ground and checks that the upper one comes to rest on the lower one.
+    // The pair of boxes is awake on both sides, so it's handled once with both motions accounted for.
+    private void testStackSettles(final PhysicsEngine.NarrowPhaseType type) {
+        engine.setNarrowPhaseType(type);
+        engine.reset(null);
+        
+        final RigidBody lower = createBox(0.0f, 0.1f);
+        final RigidBody upper = createBox(0.0f, 1.2f);
+        engine.add(createGround(-5.0f, 5.0f));
+        engine.add(lower);
+        engine.add(upper);
+        
+        final AABB lowerBounds = new AABB();
+        final AABB upperBounds = new AABB();
+        
+        for (int step = 0; step < 300; step++) {
+            engine.update(TIME_STEP);
+            lower.getBounds(lowerBounds);
+            upper.getBounds(upperBounds);
+            
+            if (step >= 150) {
+                assertTrue(lowerBounds.getYMin() > -SLOP);
+                assertEquals(upperBounds.getYMin(), lowerBounds.getYMax(), SLOP);
+            }
+        }
+    }
+    
+    // Steps the engine until a body falls asleep, failing if it doesn't within ten seconds.
+    private int stepUntilAsleep(final Body body) {
+        for (int step = 0; step < 300; step++) {
+            if (body.isSleeping()) {
+                return step;
+            }
+            
+            engine.update(TIME_STEP);
+        }
+        
+        fail();
+        return -1;
+    }
+    
+    @After
+    public void tearDown() {
+        engine.dispose();
+    }
+    
+    @Test
+    public void testBoxSettlesOnGroundWithClipping() {
+        testBoxSettles(PhysicsEngine.NarrowPhaseType.CLIPPING);
+    }
+    
+    @Test
+    public void testBoxSettlesOnGroundWithGjkEpa() {
+        testBoxSettles(PhysicsEngine.NarrowPhaseType.GJK_EPA);
+    }
+    
+    @Test
+    public void testStackSettlesWithClipping() {
+        testStackSettles(PhysicsEngine.NarrowPhaseType.CLIPPING);
+    }
+    
+    @Test
+    public void testStackIsOneIsland() {
+        final StaticBody ground = createGround(-5.0f, 5.0f);
+        final RigidBody a = createBox(0.0f, 0.0f);
+        final RigidBody b = createBox(0.0f, 1.0f);
+        final RigidBody c = createBox(0.0f, 2.0f);
+        
+        engine.add(ground);
+        engine.add(c);
+        engine.add(a);
+        engine.add(b);
+        engine.update(TIME_STEP);
+        
+        // The top and the bottom box only touch through the middle one.
+        assertTrue(engine.getIsland(a) >= 0);
+        assertEquals(engine.getIsland(b), engine.getIsland(a));
+        assertEquals(engine.getIsland(c), engine.getIsland(a));
+        assertEquals(engine.getIsland(ground), -1);
+    }
+    
+    @Test
+    public void testSeparateGroupsAreSeparateIslands() {
+        final RigidBody a = createBox(0.0f, 0.0f);
+        final RigidBody b = createBox(0.0f, 1.0f);
+        final RigidBody c = createBox(3.0f, 0.0f);
+        final RigidBody d = createBox(3.0f, 1.0f);
+        final RigidBody e = createBox(6.0f, 0.0f);
+        
+        engine.add(createGround(-5.0f, 10.0f));
+        engine.add(a);
+        engine.add(c);
+        engine.add(e);
+        engine.add(b);
+        engine.add(d);
+        engine.update(TIME_STEP);
+        
+        // All of the boxes rest on the same static ground, which doesn't join them.
+        assertEquals(engine.getIsland(b), engine.getIsland(a));
+        assertEquals(engine.getIsland(d), engine.getIsland(c));
+        assertNotEquals(engine.getIsland(a), engine.getIsland(c));
+        assertNotEquals(engine.getIsland(a), engine.getIsland(e));
+        assertNotEquals(engine.getIsland(c), engine.getIsland(e));
+    }
+    
+    @Test
+    public void testFallingBodiesJoinIslandWhenTheyMeet() {
+        final RigidBody lower = createBox(0.0f, 0.0f);
+        final RigidBody upper = createBox(0.0f, 3.0f);
+        
+        engine.add(createGround(-5.0f, 5.0f));
+        engine.add(lower);
+        engine.add(upper);
+        engine.update(TIME_STEP);
+        
+        assertNotEquals(engine.getIsland(lower), engine.getIsland(upper));
+        
+        for (int step = 0; step < 150 && engine.getIsland(lower) != engine.getIsland(upper); step++) {
+            engine.update(TIME_STEP);
+        }
+        
+        assertEquals(engine.getIsland(lower), engine.getIsland(upper));
+    }
+    
+    @Test
+    public void testSleepingNeighborsJoinTouchingBodysIsland() {
+        final ArrayList<RigidBody> sleeperList = new ArrayList();
+        
+        engine.add(createGround(-5.0f, 155.0f));
+        
+        // Settle the boxes in batches that fit in the island arrays, so that they only 
+        // grow once the plank touches more sleeping neighbours than they have room for.
+        for (int batch = 0; batch < 2; batch++) {
+            for (int i = 50 * batch; i < 50 * (batch + 1); i++) {
+                final RigidBody sleeper = createBox(1.5f * i, 0.0f);
+                
+                sleeperList.add(sleeper);
+                engine.add(sleeper);
+            }
+            
+            for (RigidBody sleeper : sleeperList) {
+                stepUntilAsleep(sleeper);
+            }
+        }
+        
+        final RigidBody plank = new RigidBody(builder.createBox(new Vector2(-1.0f, 0.0f), new Vector2(150.0f, 0.5f)), 10.0f, 0.2f, 0.4f, 0.2f, new Vector2(-1.0f, 0.99f), 0.0f, new Vector2(0.0f, 0.0f), 0.0f);
+        engine.add(plank);
+        engine.update(TIME_STEP);
+        
+        for (RigidBody sleeper : sleeperList) {
+            assertEquals(engine.getIsland(sleeper), engine.getIsland(plank));
+        }
+    }
+    
+    @Test
+    public void testResetForgetsIslands() {
+        final RigidBody box = createBox(0.0f, 0.0f);
+        
+        engine.add(createGround(-5.0f, 5.0f));
+        engine.add(box);
+        engine.update(TIME_STEP);
+        
+        assertNotEquals(engine.getIsland(box), -1);
+        
+        engine.reset(null);
+        
+        assertEquals(engine.getIsland(box), -1);
+    }
+    
+    @Test
+    public void testIslandSleepsTogetherAfterTimeout() {
+        final RigidBody slab = new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(6.0f, 1.0f)), 4.0f, 0.0f, 0.4f, 0.2f, new Vector2(0.0f, 0.0f), 0.0f, new Vector2(0.0f, 0.0f), 0.0f);
+        final RigidBody slider = new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 1.0f)), 1.0f, 0.0f, 0.4f, 0.2f, new Vector2(1.0f, 1.0f), 0.0f, new Vector2(0.5f, 0.0f), 0.0f);
+        
+        engine.add(createGround(-5.0f, 10.0f));
+        engine.add(slab);
+        engine.add(slider);
+        
+        int step = 0;
+        
+        for (; step < 300 && !slab.isSleeping(); step++) {
+            // Neither body may fall asleep alone.
+            assertFalse(slider.isSleeping());
+            engine.update(TIME_STEP);
+        }
+        
+        assertTrue(slab.isSleeping());
+        assertTrue(slider.isSleeping());
+        
+        // The slab rests from the start, the slider only after friction has stopped it. 
+        // The island sleeps once the slider too has rested for long enough.
+        assertTrue(slider.getSleepTime() >= TIME_TO_SLEEP);
+        assertTrue(slab.getSleepTime() > slider.getSleepTime() + TIME_STEP);
+        assertTrue(step * TIME_STEP > TIME_TO_SLEEP + TIME_STEP);
+    }
+    
+    @Test
+    public void testMovingMemberKeepsIslandAwake() {
+        final RigidBody slab = new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(6.0f, 1.0f)), 4.0f, 0.0f, 0.4f, 0.2f, new Vector2(0.0f, 0.0f), 0.0f, new Vector2(0.0f, 0.0f), 0.0f);
+        final RigidBody slider = createBox(1.0f, 1.0f);
+        
+        engine.add(createGround(-5.0f, 10.0f));
+        engine.add(slab);
+        engine.add(slider);
+        
+        for (int step = 0; step < 150; step++) {
+            slider.setVelocity(new Vector2(0.3f, slider.getVelocity().getY()));
+            engine.update(TIME_STEP);
+            
+            assertFalse(slab.isSleeping());
+            assertFalse(slider.isSleeping());
+        }
+        
+        // The slab itself has been resting for long enough, it's only kept awake by the slider.
+        assertTrue(slab.getSleepTime() >= TIME_TO_SLEEP);
+    }
+    
+    @Test
+    public void testWakingBodyWakesNeighborsWithinMargin() {
+        final RigidBody woken = createBox(0.0f, 0.0f);
+        final RigidBody near = createBox(1.0f + 0.5f * WAKE_MARGIN, 0.0f);
+        final RigidBody far = createBox(2.0f + 4.0f * WAKE_MARGIN, 0.0f);
+        
+        engine.add(createGround(-5.0f, 10.0f));
+        engine.add(woken);
+        engine.add(near);
+        engine.add(far);
+        stepUntilAsleep(far);
+        
+        // The gaps keep the boxes in separate islands, but they all rest for as long.
+        assertTrue(woken.isSleeping());
+        assertTrue(near.isSleeping());
+        assertNotEquals(engine.getIsland(woken), engine.getIsland(near));
+        
+        engine.wake(woken);
+        
+        assertFalse(woken.isSleeping());
+        assertFalse(near.isSleeping());
+        assertTrue(far.isSleeping());
+    }
+    
+    @Test
+    public void testLandingBodyWakesSleepingIsland() {
+        final RigidBody sleeper = createBox(0.0f, 0.0f);
+        
+        engine.add(createGround(-5.0f, 5.0f));
+        engine.add(sleeper);
+        stepUntilAsleep(sleeper);
+        
+        final RigidBody faller = createBox(0.0f, 1.5f);
+        engine.add(faller);
+        
+        for (int step = 0; step < 150 && sleeper.isSleeping(); step++) {
+            engine.update(TIME_STEP);
+        }
+        
+        assertFalse(sleeper.isSleeping());
+        assertEquals(engine.getIsland(sleeper), engine.getIsland(faller));
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics;
+
+import com.github.caniblossom.polybounce.math.AABB;
+import com.github.caniblossom.polybounce.math.PolygonBuilder;
+import com.github.caniblossom.polybounce.math.Vector2;
+import com.github.caniblossom.polybounce.physics.body.Body;
+import com.github.caniblossom.polybounce.physics.body.RigidBody;
+import com.github.caniblossom.polybounce.physics.body.StaticBody;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class SpatialTableTest {
+    private static final float DT = 1.0f / 30.0f;
+    private static final float CELL_SIZE = 2.0f;
+    
+    // Small enough that the larger bodies touch too many cells and are tested by brute force.
+    private static final float SMALL_CELL_SIZE = 0.25f;
+    
+    public SpatialTableTest() {
+    }
+    
+    // Same mixing function as the hash table of the spatial table uses.
+    private static int hash(final long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+    
+    private static int toCell(final float value, final float cellSize) {
+        return (int) Math.floor(value / cellSize);
+    }
+    
+    // Lists the bodies whose cells overlap those of a body, the table can't tell them apart.
+    private static Set<Body> findCellNeighbours(final BroadPhaseScenario scenario, final Body body, final float cellSize) {
+        final AABB bounds = new AABB();
+        final AABB otherBounds = new AABB();
+        final Set<Body> neighbourSet = new HashSet();
+        
+        BroadPhaseScenario.findStepBounds(body, DT, bounds);
+        
+        for (Body other : scenario.getBodyList()) {
+            BroadPhaseScenario.findStepBounds(other, DT, otherBounds);
+            
+            if (toCell(otherBounds.getXMin(), cellSize) <= toCell(bounds.getXMax(), cellSize) && toCell(bounds.getXMin(), cellSize) <= toCell(otherBounds.getXMax(), cellSize) &&
+                toCell(otherBounds.getYMin(), cellSize) <= toCell(bounds.getYMax(), cellSize) && toCell(bounds.getYMin(), cellSize) <= toCell(otherBounds.getYMax(), cellSize)) {
+                neighbourSet.add(other);
+            }
+        }
+        
+        return neighbourSet;
+    }
+    
+    // Checks the candidates of every body against the cells they share, over a scenario of bodies being moved, added and removed.
+    private void testMatchesBruteForce(final float cellSize) {
+        for (long seed = 0; seed < 4; seed++) {
+            final BroadPhaseScenario scenario = new BroadPhaseScenario(new SpatialTable(cellSize, cellSize), seed);
+            final AABB bounds = new AABB();
+            
+            scenario.addRandomStaticBodies(20);
+            scenario.addRandomRigidBodies(80);
+            
+            for (int i = 0; i < 200; i++) {
+                if (i % 50 == 25) {
+                    scenario.addRandomRigidBodies(10);
+                } else if (i % 50 == 49) {
+                    scenario.removeRandomHalf(DT);
+                    scenario.addRandomStaticBodies(5);
+                    scenario.addRandomRigidBodies(30);
+                }
+                
+                scenario.step(DT);
+                
+                for (RigidBody body : scenario.getRigidBodyList()) {
+                    final Set<Body> candidateSet = scenario.findCandidates(body, DT);
+                    
+                    assertTrue(candidateSet.containsAll(scenario.findOverlaps(body, DT)));
+                    assertEquals(candidateSet, findCellNeighbours(scenario, body, cellSize));
+                    
+                    body.getBounds(bounds);
+                    bounds.expand(0.5f);
+                    assertTrue(scenario.findBodiesInBounds(bounds).containsAll(scenario.findBodiesOverlapping(bounds, DT)));
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testFindPossibleIntersectionsMatchesBruteForce() {
+        testMatchesBruteForce(CELL_SIZE);
+    }
+    
+    @Test
+    public void testLargeBodiesMatchBruteForce() {
+        testMatchesBruteForce(SMALL_CELL_SIZE);
+    }
+    
+    @Test
+    public void testLargeStaticBodyIsFoundEverywhereOnIt() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final BroadPhaseScenario scenario = new BroadPhaseScenario(new SpatialTable(CELL_SIZE, CELL_SIZE), 0);
+        final StaticBody ground = new StaticBody(builder.createBox(new Vector2(-1000.0f, -1.0f), new Vector2(1000.0f, 0.0f)), 1000.0f, 0.5f, 0.5f, 0.5f, new Vector2(0.0f, 0.0f), 0.0f);
+        
+        scenario.addStaticBody(ground);
+        
+        for (int i = -10; i <= 10; i++) {
+            scenario.addRigidBody(new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 1.0f)), 1.0f, 0.5f, 0.5f, 0.5f, new Vector2(90.0f * i, 0.0f), 0.0f, new Vector2(0.0f, 0.0f), 0.0f));
+        }
+        
+        scenario.step(DT);
+        
+        for (RigidBody body : scenario.getRigidBodyList()) {
+            final Set<Body> candidateSet = scenario.findCandidates(body, DT);
+            
+            // The ground and the body itself, the bodies are far apart.
+            assertEquals(candidateSet.size(), 2);
+            assertTrue(candidateSet.contains(ground));
+        }
+    }
+    
+    @Test
+    public void testEmptyingClusteredCellsKeepsTheOthersFound() {
+        final PolygonBuilder builder = new PolygonBuilder();
+        final ArrayList<Vector2> cellList = new ArrayList();
+        
+        // Pick cells whose keys all hash near the end of the initial table, so that 
+        // they form long probe sequences that wrap around to the start of the table.
+        for (int y = -100; y <= 100 && cellList.size() < 48; y++) {
+            for (int x = -100; x <= 100 && cellList.size() < 48; x++) {
+                final int slot = hash(((long) x << 32) | ((long) y & 0xffffffffL)) & 255;
+                
+                if (slot >= 250 || slot <= 2) {
+                    cellList.add(new Vector2(x, y));
+                }
+            }
+        }
+        
+        assertEquals(cellList.size(), 48);
+        
+        for (long seed = 0; seed < 8; seed++) {
+            final SpatialTable table = new SpatialTable(1.0f, 1.0f);
+            final BroadPhaseScenario scenario = new BroadPhaseScenario(table, seed);
+            final ArrayList<RigidBody> removeList = new ArrayList();
+            
+            // One small box in the middle of every cell.
+            for (Vector2 cell : cellList) {
+                final RigidBody body = new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(0.5f, 0.5f)), 1.0f, 0.5f, 0.5f, 0.5f, cell.sum(new Vector2(0.25f, 0.25f)), 0.0f, new Vector2(0.0f, 0.0f), 0.0f);
+                
+                scenario.addRigidBody(body);
+                removeList.add(body);
+            }
+            
+            if (seed == 1) {
+                Collections.reverse(removeList);
+            } else if (seed > 1) {
+                Collections.shuffle(removeList, new Random(seed));
+            }
+            
+            table.update(DT);
+            
+            for (RigidBody body : removeList) {
+                assertEquals(scenario.findCandidates(body, DT).size(), 1);
+            }
+            
+            // Move the bodies out of their cells one at a time.
+            for (RigidBody removed : removeList) {
+                removed.setPosition(new Vector2(1000.25f, 1000.25f));
+                table.update(DT);
+                
+                for (RigidBody body : scenario.getRigidBodyList()) {
+                    final Set<Body> candidateSet = scenario.findCandidates(body, DT);
+                    
+                    assertTrue(candidateSet.contains(body));
+                    assertEquals(candidateSet, findCellNeighbours(scenario, body, 1.0f));
+                }
+            }
+        }
+    }
+}
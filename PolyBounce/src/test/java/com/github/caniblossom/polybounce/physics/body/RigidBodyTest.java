@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics.body;
+
+import com.github.caniblossom.polybounce.math.ConvexPolygon;
+import com.github.caniblossom.polybounce.math.PolygonBuilder;
+import com.github.caniblossom.polybounce.math.Vector2;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class RigidBodyTest {
+    public RigidBodyTest() {}
+    
+    private final PolygonBuilder builder = new PolygonBuilder();
+    private final RigidBody body = new RigidBody(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(2.0f, 1.0f)), 1.0f, 0.5f, 0.5f, 0.5f, new Vector2(1.0f, 2.0f), 0.3f, new Vector2(0.5f, -0.25f), 0.7f);
+    
+    // Checks that the hull of the body matches its shape freshly transformed to the current placement.
+    private void assertHullIsCurrent() {
+        final ConvexPolygon local = body.getShape().getHull();
+        final ConvexPolygon expected = local.rotateAndTranslate(local.getVertexAverage(), body.getRotation(), body.getPosition());
+        final ConvexPolygon hull = body.getHull();
+        
+        assertEquals(hull.getVertexCount(), expected.getVertexCount());
+        
+        for (int i = 0; i < hull.getVertexCount(); i++) {
+            assertEquals(hull.getVertexX(i), expected.getVertexX(i), 0.0001f);
+            assertEquals(hull.getVertexY(i), expected.getVertexY(i), 0.0001f);
+        }
+    }
+    
+    @Test
+    public void testHullIsCachedWhileBodyIsStill() {
+        final ConvexPolygon hull = body.getHull();
+        
+        // Changing velocities doesn't move the body yet.
+        body.setVelocity(new Vector2(-1.0f, 1.0f));
+        body.setAngularVelocity(-0.2f);
+        
+        assertSame(body.getHull(), hull);
+        assertHullIsCurrent();
+    }
+    
+    @Test
+    public void testSetPositionInvalidatesHull() {
+        final ConvexPolygon hull = body.getHull();
+        body.setPosition(new Vector2(-3.0f, 4.0f));
+        
+        assertNotSame(body.getHull(), hull);
+        assertHullIsCurrent();
+        assertSame(body.getHull(), body.getHull());
+    }
+    
+    @Test
+    public void testSetRotationInvalidatesHull() {
+        final ConvexPolygon hull = body.getHull();
+        body.setRotation(1.2f);
+        
+        assertNotSame(body.getHull(), hull);
+        assertHullIsCurrent();
+        assertSame(body.getHull(), body.getHull());
+    }
+    
+    @Test
+    public void testUpdateInvalidatesHull() {
+        for (int step = 0; step < 10; step++) {
+            final ConvexPolygon hull = body.getHull();
+            body.update(1.0f / 30.0f);
+            
+            assertNotSame(body.getHull(), hull);
+            assertHullIsCurrent();
+        }
+    }
+}
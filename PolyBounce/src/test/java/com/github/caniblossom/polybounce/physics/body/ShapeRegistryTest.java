@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics.body;
+
+import com.github.caniblossom.polybounce.math.PolygonBuilder;
+import com.github.caniblossom.polybounce.math.Vector2;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class ShapeRegistryTest {
+    public ShapeRegistryTest() {}
+    
+    private final PolygonBuilder builder = new PolygonBuilder();
+    private final ShapeRegistry registry = new ShapeRegistry();
+    
+    @Test
+    public void testEqualHullAndMassGiveSameShape() {
+        final Shape a = registry.getShape(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 2.0f)), 1.0f);
+        final Shape b = registry.getShape(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 2.0f)), 1.0f);
+        
+        assertSame(a, b);
+        assertEquals(registry.size(), 1);
+    }
+    
+    @Test
+    public void testDifferentMassGivesDifferentShape() {
+        final Shape a = registry.getShape(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 2.0f)), 1.0f);
+        final Shape b = registry.getShape(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 2.0f)), 2.0f);
+        
+        assertNotSame(a, b);
+        assertEquals(a.getMass(), 1.0f, 0.0f);
+        assertEquals(b.getMass(), 2.0f, 0.0f);
+        assertEquals(registry.size(), 2);
+    }
+    
+    @Test
+    public void testDifferentHullGivesDifferentShape() {
+        final Shape a = registry.getShape(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 2.0f)), 1.0f);
+        final Shape b = registry.getShape(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 2.5f)), 1.0f);
+        
+        assertNotSame(a, b);
+        assertEquals(registry.size(), 2);
+    }
+    
+    @Test
+    public void testClearForgetsShapes() {
+        final Shape a = registry.getShape(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 2.0f)), 1.0f);
+        registry.clear();
+        
+        assertEquals(registry.size(), 0);
+        assertNotSame(a, registry.getShape(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 2.0f)), 1.0f));
+    }
+}
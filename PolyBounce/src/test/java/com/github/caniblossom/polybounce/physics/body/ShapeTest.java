@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2015, Jani Salo
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice, 
+ *    this list of conditions and the following disclaimer in the documentation 
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE
+ * USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.github.caniblossom.polybounce.physics.body;
+
+import com.github.caniblossom.polybounce.math.ConvexPolygon;
+import com.github.caniblossom.polybounce.math.PolygonBuilder;
+import com.github.caniblossom.polybounce.math.Vector2;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * @author Jani Salo
+ */
+public class ShapeTest {
+    public ShapeTest() {}
+    
+    private final PolygonBuilder builder = new PolygonBuilder();
+    private final Shape shape = new Shape(builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(2.0f, 2.0f)), 4.0f);
+    
+    @Test
+    public void testMassIsSpreadOverVertices() {
+        assertEquals(shape.getMass(), 4.0f, 0.0f);
+        assertEquals(shape.getMassPerVertex(), 1.0f, 0.0f);
+        
+        // Each of the four unit masses is sqrt(2) away from the center.
+        assertEquals(shape.getMomentOfInertiaAroundCenterOfMass(), 8.0f, 0.0001f);
+    }
+    
+    @Test
+    public void testScratchHullIsCopied() {
+        final ConvexPolygon scratch = ConvexPolygon.constructScratch(4);
+        builder.createBox(new Vector2(0.0f, 0.0f), new Vector2(1.0f, 1.0f)).transformInto(scratch, 0.0f, 0.0f, 1.0f, 0.0f, 0.0f, 0.0f);
+        
+        final Shape scratchShape = new Shape(scratch, 1.0f);
+        
+        assertFalse(scratchShape.getHull().isScratch());
+    }
+    
+    @Test
+    public void testRigidBodyCopySharesShape() {
+        final RigidBody body = new RigidBody(shape, 0.5f, 0.5f, 0.5f, new Vector2(1.0f, 2.0f), 0.3f, new Vector2(1.0f, 0.0f), 0.1f);
+        final RigidBody copy = new RigidBody(body);
+        
+        assertSame(body.getShape(), shape);
+        assertSame(copy.getShape(), shape);
+        assertEquals(copy.getMomentOfInertiaAroundCenterOfMass(), body.getMomentOfInertiaAroundCenterOfMass(), 0.0f);
+    }
+    
+    @Test
+    public void testStaticBodyCopySharesShape() {
+        final StaticBody body = new StaticBody(shape, 0.5f, 0.5f, 0.5f, new Vector2(1.0f, 2.0f), 0.3f);
+        final StaticBody copy = new StaticBody(body);
+        
+        assertSame(body.getShape(), shape);
+        assertSame(copy.getShape(), shape);
+        assertSame(copy.getHull(), body.getHull());
+    }
+}